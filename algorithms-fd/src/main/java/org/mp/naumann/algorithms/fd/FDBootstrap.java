@@ -0,0 +1,182 @@
+package org.mp.naumann.algorithms.fd;
+
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
+import org.mp.naumann.algorithms.fd.incremental.IncrementalFD;
+import org.mp.naumann.algorithms.fd.incremental.IncrementalFDConfiguration;
+import org.mp.naumann.algorithms.fd.incremental.IncrementalFDResult;
+import org.mp.naumann.algorithms.result.ResultListener;
+import org.mp.naumann.database.InputReadException;
+import org.mp.naumann.database.Table;
+import org.mp.naumann.database.TableInput;
+import org.mp.naumann.database.data.Column;
+import org.mp.naumann.database.data.Row;
+import org.mp.naumann.database.statement.DefaultInsertStatement;
+import org.mp.naumann.database.statement.Statement;
+import org.mp.naumann.database.statement.StatementGroup;
+import org.mp.naumann.processor.batch.ListBatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+
+/**
+ * Discovers the FDs of a table by running HyFD on its first chunk of records only and adding the remaining records
+ * to {@link IncrementalFD} as insert-only batches. The FDs of the first chunk are reported as soon as they are known,
+ * and raw records are held in memory one chunk or batch at a time. The table is read in a single pass, so the split
+ * does not depend on the order of repeated reads.
+ */
+public class FDBootstrap {
+
+    private final IncrementalFDConfiguration configuration;
+    private final Table table;
+    private final int chunkSize;
+    private final int batchSize;
+    private final Collection<ResultListener<IncrementalFDResult>> resultListeners = new ArrayList<>();
+    private IncrementalFD incrementalAlgorithm;
+
+    public FDBootstrap(IncrementalFDConfiguration configuration, Table table, int chunkSize) {
+        this(configuration, table, chunkSize, chunkSize);
+    }
+
+    /**
+     * @param chunkSize the number of records HyFD starts from
+     * @param batchSize the number of records added to IncrementalFD at once
+     */
+    public FDBootstrap(IncrementalFDConfiguration configuration, Table table, int chunkSize, int batchSize) {
+        if (chunkSize < 1 || batchSize < 1)
+            throw new IllegalArgumentException(String.format("Chunk size and batch size must be positive, but were %s and %s", chunkSize, batchSize));
+        this.configuration = configuration;
+        this.table = table;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    public void addResultListener(ResultListener<IncrementalFDResult> listener) {
+        resultListeners.add(listener);
+    }
+
+    /**
+     * @return the incremental algorithm that holds the FDs of the whole table, which can be used to handle further
+     * batches, or null if the table is empty
+     */
+    public IncrementalFD getIncrementalAlgorithm() {
+        return incrementalAlgorithm;
+    }
+
+    public List<FunctionalDependency> execute() throws InputReadException, AlgorithmExecutionException {
+        List<FunctionalDependency> fds;
+        try (TableInput input = table.open()) {
+            ChunkTable firstChunk = new ChunkTable(input);
+            HyFDInitialAlgorithm initialAlgorithm = new HyFDInitialAlgorithm(configuration, firstChunk);
+            fds = new ArrayList<>(initialAlgorithm.execute());
+            FDLogger.log(Level.INFO, String.format("Found %s FDs in the first %s records", fds.size(), firstChunk.numRecords));
+            notifyListeners(new IncrementalFDResult(fds, initialAlgorithm.getValidationCount(), 0));
+            if (firstChunk.numRecords == 0) {
+                return fds;
+            }
+
+            incrementalAlgorithm = new IncrementalFD(table.getName(), configuration);
+            incrementalAlgorithm.initialize(initialAlgorithm.getIntermediateDataStructure());
+            List<Statement> statements = new ArrayList<>(batchSize);
+            while (input.hasNext()) {
+                statements.add(new DefaultInsertStatement(input.next().getValues(), "", table.getName()));
+                if (statements.size() == batchSize || !input.hasNext()) {
+                    ListBatch batch = new ListBatch(statements, "", table.getName());
+                    IncrementalFDResult result = incrementalAlgorithm.execute(batch);
+                    notifyListeners(result);
+                    fds = result.getFDs();
+                    statements = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        return fds;
+    }
+
+    private void notifyListeners(IncrementalFDResult result) {
+        resultListeners.forEach(listener -> listener.receiveResult(result));
+    }
+
+    /**
+     * The first chunk of records of the input, which HyFD can read like a table of its own.
+     */
+    private class ChunkTable implements Table {
+
+        private final TableInput input;
+        private int numRecords = 0;
+
+        private ChunkTable(TableInput input) {
+            this.input = input;
+        }
+
+        @Override
+        public long getRowCount() {
+            return numRecords;
+        }
+
+        @Override
+        public boolean execute(Statement statement) {
+            throw new UnsupportedOperationException("The records of a chunk cannot be changed");
+        }
+
+        @Override
+        public boolean execute(StatementGroup statementGroup) {
+            throw new UnsupportedOperationException("The records of a chunk cannot be changed");
+        }
+
+        @Override
+        public TableInput open() {
+            return new TableInput() {
+
+                @Override
+                public void close() {
+                    // the underlying input is still needed for the remaining records
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return numRecords < chunkSize && input.hasNext();
+                }
+
+                @Override
+                public Row next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    numRecords++;
+                    return input.next();
+                }
+
+                @Override
+                public List<Column<String>> getColumns() {
+                    return input.getColumns();
+                }
+
+                @Override
+                public String getName() {
+                    return input.getName();
+                }
+            };
+        }
+
+        @Override
+        public int getLimit() {
+            return chunkSize;
+        }
+
+        @Override
+        public void setLimit(int limit) {
+            throw new UnsupportedOperationException("The size of a chunk is fixed");
+        }
+
+        @Override
+        public List<Column<String>> getColumns() {
+            return input.getColumns();
+        }
+
+        @Override
+        public String getName() {
+            return input.getName();
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package org.mp.naumann.algorithms.fd;
 
 import java.util.List;
+import org.mp.naumann.algorithms.fd.hyfd.PositionListIndex;
 import org.mp.naumann.algorithms.fd.structures.PLIBuilder;
 import org.mp.naumann.algorithms.fd.incremental.agreesets.AgreeSetCollection;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
 import org.mp.naumann.algorithms.fd.utils.ValueComparator;
 
+/**
+ * Everything HyFD built for the initial records that IncrementalFD can start from: the cluster maps of each column,
+ * which map each value to its records, the plis in their order and the records encoded by these plis. The structures
+ * are handed over as they are, so the incremental algorithm takes ownership of them and may change them.
+ */
 public class FDIntermediateDatastructure {
 
     private final PLIBuilder pliBuilder;
+    private final int[][] compressedRecords;
     private final ValueComparator valueComparator;
     private final List<String> columns;
     private final AgreeSetCollection pruner;
@@ -16,9 +23,10 @@ public class FDIntermediateDatastructure {
 
 
     public FDIntermediateDatastructure(List<OpenBitSetFD> functionalDependencies, PLIBuilder pliBuilder,
-        ValueComparator valueComparator,
+        int[][] compressedRecords, ValueComparator valueComparator,
         List<String> columns, AgreeSetCollection pruner) {
         this.pliBuilder = pliBuilder;
+        this.compressedRecords = compressedRecords;
         this.valueComparator = valueComparator;
         this.columns = columns;
         this.pruner = pruner;
@@ -29,6 +37,25 @@ public class FDIntermediateDatastructure {
         return pliBuilder;
     }
 
+    public List<PositionListIndex> getPlis() {
+        return pliBuilder.fetchPositionListIndexes();
+    }
+
+    public List<Integer> getPliOrder() {
+        return pliBuilder.getPliOrder();
+    }
+
+    /**
+     * @return the records encoded by the cluster ids of {@link #getPlis()}, or null if there are no records
+     */
+    public int[][] getCompressedRecords() {
+        return compressedRecords;
+    }
+
+    public int getNumRecords() {
+        return pliBuilder.getNumLastRecords();
+    }
+
     public ValueComparator getValueComparator() {
         return valueComparator;
     }
@@ -64,6 +64,7 @@ public interface IncrementalFDRunner {
             // process batch
             batchProcessor.addBatchHandler(algorithm);
             batchSource.startStreaming();
+            algorithm.close();
             afterIncremental(listener);
         }
     }
@@ -1,25 +1,49 @@
 package org.mp.naumann.algorithms.fd.fdep;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import org.apache.lucene.util.OpenBitSet;
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
+import org.mp.naumann.algorithms.fd.hyfd.PositionListIndex;
 import org.mp.naumann.algorithms.fd.structures.FDTree;
 import org.mp.naumann.algorithms.fd.structures.FDTreeElement;
 import org.mp.naumann.algorithms.fd.utils.ValueComparator;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 class FDEP {
 
+    // Number of record pairs that are compared in one block
+    private static final long PAIRS_PER_BLOCK = 1 << 16;
 
     private int numAttributes;
     private ValueComparator valueComparator;
+    private List<PositionListIndex> plis;
+    private int numThreads = 1;
 
     public FDEP(int numAttributes, ValueComparator valueComparator) {
         this.numAttributes = numAttributes;
         this.valueComparator = valueComparator;
     }
 
-    public FDTree execute(int[][] records) {
-        FDTree negCoverTree = this.calculateNegativeCover(records);
+    /**
+     * Creates an FDEP that only compares record pairs sharing at least one cluster of the given plis, whose order
+     * must match the attributes of the records, and spreads the pairs over the given number of threads.
+     */
+    public FDEP(int numAttributes, ValueComparator valueComparator, List<PositionListIndex> plis, int numThreads) {
+        this(numAttributes, valueComparator);
+        this.plis = plis;
+        this.numThreads = numThreads;
+    }
+
+    public FDTree execute(int[][] records) throws AlgorithmExecutionException {
+        FDTree negCoverTree = (this.plis == null) ? this.calculateNegativeCover(records) : this.calculateNegativeCoverFromClusters(records);
         //negCoverTree.filterGeneralizations(); // TODO: (= remove all generalizations) Not necessary for correctness because calculating the positive cover does the filtering automatically if there are generalizations in the negCover, but for maybe for performance (?)
         records = null;
 
@@ -41,6 +65,132 @@ class FDEP {
         return negCoverTree;
     }
 
+    /**
+     * Calculates the negative cover from the record pairs that share a cluster. Each such pair is compared only in
+     * the cluster of the first attribute both records agree on, and equal agree sets are added to the cover once.
+     * All other pairs agree on no attribute, so they only violate the FDs with an empty lhs and a non-constant rhs.
+     */
+    private FDTree calculateNegativeCoverFromClusters(int[][] records) throws AlgorithmExecutionException {
+        List<List<ClusterRange>> blocks = this.buildBlocks();
+        Set<OpenBitSet> agreeSets = new ObjectOpenHashSet<>();
+        if (this.numThreads < 2 || blocks.size() < 2) {
+            for (List<ClusterRange> block : blocks)
+                this.collectAgreeSets(records, block, agreeSets);
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(this.numThreads);
+            try {
+                List<Future<Set<OpenBitSet>>> futures = new ArrayList<>(blocks.size());
+                for (List<ClusterRange> block : blocks) {
+                    futures.add(executor.submit(() -> {
+                        Set<OpenBitSet> blockAgreeSets = new ObjectOpenHashSet<>();
+                        this.collectAgreeSets(records, block, blockAgreeSets);
+                        return blockAgreeSets;
+                    }));
+                }
+                for (Future<Set<OpenBitSet>> future : futures)
+                    agreeSets.addAll(future.get());
+            } catch (ExecutionException | InterruptedException e) {
+                e.printStackTrace();
+                throw new AlgorithmExecutionException(e.getMessage());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        FDTree negCoverTree = new FDTree(this.numAttributes, -1);
+        for (OpenBitSet equalAttrs : agreeSets) {
+            OpenBitSet diffAttrs = new OpenBitSet(this.numAttributes);
+            diffAttrs.set(0, this.numAttributes);
+            diffAttrs.andNot(equalAttrs);
+            negCoverTree.addFunctionalDependency(equalAttrs, diffAttrs);
+        }
+
+        OpenBitSet nonConstantAttrs = new OpenBitSet(this.numAttributes);
+        for (int attr = 0; attr < this.numAttributes; attr++)
+            if (!this.plis.get(attr).isConstant(records.length))
+                nonConstantAttrs.set(attr);
+        if (!nonConstantAttrs.isEmpty())
+            negCoverTree.addFunctionalDependency(new OpenBitSet(this.numAttributes), nonConstantAttrs);
+        return negCoverTree;
+    }
+
+    /**
+     * Groups the pairs of all clusters into blocks of about {@link #PAIRS_PER_BLOCK} pairs. Large clusters are split
+     * by the position of the first record of a pair.
+     */
+    private List<List<ClusterRange>> buildBlocks() {
+        List<List<ClusterRange>> blocks = new ArrayList<>();
+        List<ClusterRange> block = new ArrayList<>();
+        long pairsInBlock = 0;
+        for (int attr = 0; attr < this.numAttributes; attr++) {
+            for (IntArrayList cluster : this.plis.get(attr).getClusters()) {
+                int from = 0;
+                for (int position = 0; position < cluster.size(); position++) {
+                    pairsInBlock += cluster.size() - position - 1;
+                    if (pairsInBlock >= PAIRS_PER_BLOCK) {
+                        block.add(new ClusterRange(attr, cluster, from, position + 1));
+                        blocks.add(block);
+                        block = new ArrayList<>();
+                        pairsInBlock = 0;
+                        from = position + 1;
+                    }
+                }
+                if (from < cluster.size())
+                    block.add(new ClusterRange(attr, cluster, from, cluster.size()));
+            }
+        }
+        if (!block.isEmpty())
+            blocks.add(block);
+        return blocks;
+    }
+
+    private void collectAgreeSets(int[][] records, List<ClusterRange> block, Set<OpenBitSet> agreeSets) {
+        for (ClusterRange range : block) {
+            IntArrayList cluster = range.cluster;
+            for (int i = range.from; i < range.to; i++) {
+                int[] t1 = records[cluster.getInt(i)];
+                for (int j = i + 1; j < cluster.size(); j++) {
+                    int[] t2 = records[cluster.getInt(j)];
+                    OpenBitSet equalAttrs = this.getAgreeSet(t1, t2, range.attr);
+                    if (equalAttrs != null)
+                        agreeSets.add(equalAttrs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the attributes t1 and t2 agree on, or null if they agree on an attribute before firstAttr, in which
+     * case the pair is compared in a cluster of that attribute.
+     */
+    private OpenBitSet getAgreeSet(int[] t1, int[] t2, int firstAttr) {
+        for (int i = 0; i < firstAttr; i++)
+            if (this.valueComparator.isEqual(t1[i], t2[i]))
+                return null;
+
+        OpenBitSet equalAttrs = new OpenBitSet(this.numAttributes);
+        for (int i = firstAttr; i < t1.length; i++)
+            if (this.valueComparator.isEqual(t1[i], t2[i]))
+                equalAttrs.set(i);
+        return equalAttrs;
+    }
+
+    private static class ClusterRange {
+
+        private final int attr;
+        private final IntArrayList cluster;
+        // positions of the first records of the pairs in the cluster
+        private final int from;
+        private final int to;
+
+        private ClusterRange(int attr, IntArrayList cluster, int from, int to) {
+            this.attr = attr;
+            this.cluster = cluster;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
     /**
      * Find the least general functional dependencies violated by t1 and t2 and update the negative
      * cover accordingly. Note: t1 and t2 must have the same length.
@@ -73,14 +223,11 @@ class FDEP {
         for (int rhs = fds.nextSetBit(0); rhs >= 0; rhs = fds.nextSetBit(rhs + 1))
             this.specializePositiveCover(posCoverTree, activePath, rhs);
 
-        if (negCoverSubtree.getChildren() != null) {
-            for (int attr = 0; attr < this.numAttributes; attr++) {
-                if (negCoverSubtree.getChildren()[attr] != null) {
-                    activePath.set(attr);
-                    this.calculatePositiveCover(posCoverTree, negCoverSubtree.getChildren()[attr], activePath);
-                    activePath.clear(attr);
-                }
-            }
+        for (int i = 0; i < negCoverSubtree.getNumChildren(); i++) {
+            int attr = negCoverSubtree.getChildAttribute(i);
+            activePath.set(attr);
+            this.calculatePositiveCover(posCoverTree, negCoverSubtree.getChildAt(i), activePath);
+            activePath.clear(attr);
         }
     }
 
@@ -2,6 +2,7 @@ package org.mp.naumann.algorithms.fd.fdep;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
 import org.mp.naumann.algorithms.fd.FDLogger;
 import org.mp.naumann.algorithms.fd.FunctionalDependency;
 import org.mp.naumann.algorithms.fd.FunctionalDependencyAlgorithm;
@@ -32,9 +33,17 @@ public class FDEPExecutor implements FunctionalDependencyAlgorithm {
     private String tableName;
     private List<String> attributeNames;
     private int numAttributes;
+    private final boolean parallel;
 
     public FDEPExecutor() {
+        this(false);
+    }
 
+    /**
+     * @param parallel whether only record pairs that share a pli cluster are compared, on multiple threads
+     */
+    public FDEPExecutor(boolean parallel) {
+        this.parallel = parallel;
     }
 
     public FDEPExecutor(Table table, FunctionalDependencyResultReceiver resultReceiver) {
@@ -55,7 +64,7 @@ public class FDEPExecutor implements FunctionalDependencyAlgorithm {
             this.valueComparator = new ValueComparator(true);
     }
 
-    public void execute() {
+    public void execute() throws AlgorithmExecutionException {
         long startTime = System.currentTimeMillis();
 
         this.executeFDEP();
@@ -63,7 +72,7 @@ public class FDEPExecutor implements FunctionalDependencyAlgorithm {
         FDLogger.log(Level.FINEST, "Time: " + (System.currentTimeMillis() - startTime) + " ms");
     }
 
-    private void executeFDEP() {
+    private void executeFDEP() throws AlgorithmExecutionException {
         // Initialize
         FDLogger.log(Level.FINEST, "Initializing ...");
         TableInput tableInput = this.getInput();
@@ -86,7 +95,7 @@ public class FDEPExecutor implements FunctionalDependencyAlgorithm {
 
         // Calculate plis
         FDLogger.log(Level.FINEST, "Calculating plis ...");
-        PLIBuilder pliBuilder = new PLIBuilder(this.numAttributes, this.valueComparator.isNullEqualNull());
+        PLIBuilder pliBuilder = new PLIBuilder(this.numAttributes, this.valueComparator.isNullEqualNull(), true);
         pliBuilder.addRecords(records);
         List<PositionListIndex> plis = pliBuilder.fetchPositionListIndexes();
         pliBuilder = null;
@@ -96,7 +105,9 @@ public class FDEPExecutor implements FunctionalDependencyAlgorithm {
 
         // Execute fdep
         FDLogger.log(Level.FINEST, "Executing fdep ...");
-        FDEP fdep = new FDEP(this.numAttributes, this.valueComparator);
+        FDEP fdep = this.parallel
+                ? new FDEP(this.numAttributes, this.valueComparator, plis, Runtime.getRuntime().availableProcessors())
+                : new FDEP(this.numAttributes, this.valueComparator);
         FDTree fds = fdep.execute(compressedRecords);
 
         // Output all valid FDs
@@ -43,6 +43,7 @@ public class HyFD implements FunctionalDependencyAlgorithm {
     private int numAttributes;
     private FDTree posCover;
     private PLIBuilder pliBuilder;
+    private int[][] compressedRecords;
     private AgreeSetCollection pruner;
 
     public HyFD() {
@@ -94,7 +95,8 @@ public class HyFD implements FunctionalDependencyAlgorithm {
 
         // Calculate plis
         FDLogger.log(Level.FINER, "Reading data and calculating plis ...");
-        this.pliBuilder = new PLIBuilder(this.numAttributes, this.valueComparator.isNullEqualNull());
+        this.pliBuilder = new PLIBuilder(this.numAttributes, this.valueComparator.isNullEqualNull(),
+                configuration.usesParallelPliConstruction());
         pliBuilder.addRecords(tableInput);
         List<PositionListIndex> plis = pliBuilder.fetchPositionListIndexes();
         this.closeInput(tableInput);
@@ -109,9 +111,9 @@ public class HyFD implements FunctionalDependencyAlgorithm {
             return;
         }
 
-        int[][] compressedRecords = RecordCompressor.fetchCompressedRecords(plis, numRecords);
+        this.compressedRecords = RecordCompressor.fetchCompressedRecords(plis, numRecords);
         // Initialize the negative cover
-        int maxLhsSize = -1;
+        int maxLhsSize = configuration.getMaxLhsSize();
         FDSet negCover = new FDSet(this.numAttributes, maxLhsSize);
 
         // Initialize the positive cover
@@ -193,6 +195,13 @@ public class HyFD implements FunctionalDependencyAlgorithm {
         return pliBuilder;
     }
 
+    /**
+     * @return the records encoded by the plis of {@link #getPLIBuilder()}, or null if there are no records
+     */
+    public int[][] getCompressedRecords() {
+        return compressedRecords;
+    }
+
     public ValueComparator getValueComparator() {
         return valueComparator;
     }
@@ -45,7 +45,7 @@ class Inductor {
     }
 
     private int specializePositiveCover(OpenBitSet lhs, int rhs, FDList nonFds) {
-        int numAttributes = this.posCover.getChildren().length;
+        int numAttributes = this.posCover.getNumAttributes();
         int newFDs = 0;
         List<OpenBitSet> specLhss = this.posCover.getFdAndGeneralizations(lhs, rhs);
         if (!(specLhss = this.posCover.getFdAndGeneralizations(lhs, rhs)).isEmpty()) { // TODO: May be "while" instead of "if"?
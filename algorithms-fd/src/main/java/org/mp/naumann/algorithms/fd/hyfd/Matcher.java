@@ -4,7 +4,6 @@ import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.fd.incremental.IncrementalFDConfiguration;
 import org.mp.naumann.algorithms.fd.incremental.IncrementalFDConfiguration.PruningStrategy;
 import org.mp.naumann.algorithms.fd.incremental.agreesets.AgreeSetCollection;
-import org.mp.naumann.algorithms.fd.incremental.agreesets.MaxSizeViolationSet;
 import org.mp.naumann.algorithms.fd.utils.ValueComparator;
 
 class Matcher {
@@ -19,13 +18,13 @@ class Matcher {
         this.compressedRecords = compressedRecords;
         this.valueComparator = valueComparator;
         this.configuration = configuration;
-        this.agreeSets = new AgreeSetCollection(() -> new MaxSizeViolationSet(1000));
+        this.agreeSets = new AgreeSetCollection(configuration.getViolationCollectionSize());
     }
 
     public void match(OpenBitSet equalAttrs, int recId1, int recId2) {
         match(equalAttrs, compressedRecords[recId1], compressedRecords[recId2]);
         if (configuration.usesPruningStrategy(PruningStrategy.DELETE_ANNOTATIONS)) {
-            agreeSets.addAgreeSet(equalAttrs.clone(), recId1, recId2);
+            agreeSets.addAgreeSet(equalAttrs, recId1, recId2);
         }
     }
 
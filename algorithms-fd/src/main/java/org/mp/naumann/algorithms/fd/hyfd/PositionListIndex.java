@@ -28,6 +28,7 @@ import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.fd.structures.ClusterIdentifier;
 import org.mp.naumann.algorithms.fd.structures.ClusterIdentifierWithRecord;
 import org.mp.naumann.algorithms.fd.structures.IntegerPair;
+import org.mp.naumann.algorithms.fd.structures.ParallelRefinement;
 import org.mp.naumann.algorithms.fd.structures.PLIBuilder;
 import org.mp.naumann.algorithms.fd.utils.CollectionUtils;
 
@@ -77,9 +78,22 @@ public class PositionListIndex {
 
 
     public boolean refines(int[][] compressedRecords, int rhsAttr) {
-        for (IntArrayList cluster : this.clusters) {
-            if (!this.probe(compressedRecords, rhsAttr, cluster))
+        return this.refines(compressedRecords, rhsAttr, this.clusters, null);
+    }
+
+    /**
+     * Checks whether the given range of this PLI's clusters refines the rhs attribute. If a refinement is given,
+     * the range stops as soon as another range refuted the rhs and reports its own refutation.
+     */
+    public boolean refines(int[][] compressedRecords, int rhsAttr, List<IntArrayList> clusters, ParallelRefinement refinement) {
+        for (IntArrayList cluster : clusters) {
+            if (refinement != null && refinement.isRefuted())
                 return false;
+            if (!this.probe(compressedRecords, rhsAttr, cluster)) {
+                if (refinement != null)
+                    refinement.refute(rhsAttr);
+                return false;
+            }
         }
         return true;
     }
@@ -104,6 +118,16 @@ public class PositionListIndex {
 
 
     public OpenBitSet refines(int[][] compressedRecords, OpenBitSet lhs, OpenBitSet rhs, List<IntegerPair> comparisonSuggestions) {
+        return this.refines(compressedRecords, lhs, rhs, comparisonSuggestions, this.clusters, null);
+    }
+
+    /**
+     * Returns the rhs attributes that are refined by the lhs within the given range of this PLI's clusters. If a
+     * refinement is given, rhs attributes refuted by other ranges are skipped and the range stops as soon as all of
+     * them are refuted.
+     */
+    public OpenBitSet refines(int[][] compressedRecords, OpenBitSet lhs, OpenBitSet rhs, List<IntegerPair> comparisonSuggestions,
+                              List<IntArrayList> clusters, ParallelRefinement refinement) {
         int rhsSize = (int) rhs.cardinality();
         int lhsSize = (int) lhs.cardinality();
 
@@ -123,7 +147,16 @@ public class PositionListIndex {
             index++;
         }
 
-        for (IntArrayList cluster : this.clusters) {
+        int refutations = 0;
+        for (IntArrayList cluster : clusters) {
+            if (refinement != null && refinement.getRefutations() != refutations) {
+                if (refinement.isRefuted()) {
+                    refinedRhs.clear(0, refinedRhs.size());
+                    return refinedRhs;
+                }
+                refutations = refinement.getRefutations();
+                refinement.retainRemaining(refinedRhs);
+            }
             Object2ObjectOpenHashMap<ClusterIdentifier, ClusterIdentifierWithRecord> subClusters = new Object2ObjectOpenHashMap<>(cluster.size());
             for (int recordId : cluster) {
                 ClusterIdentifier subClusterIdentifier = this.buildClusterIdentifier(lhs, lhsSize, compressedRecords[recordId]);
@@ -139,6 +172,8 @@ public class PositionListIndex {
                             comparisonSuggestions.add(new IntegerPair(recordId, rhsClusters.getRecord()));
 
                             refinedRhs.clear(rhsAttr);
+                            if (refinement != null)
+                                refinement.refute(rhsAttr);
                             if (refinedRhs.isEmpty())
                                 return refinedRhs;
                         }
@@ -18,6 +18,7 @@ import org.mp.naumann.algorithms.fd.structures.FDTreeElement;
 import org.mp.naumann.algorithms.fd.structures.FDTreeElementLhsPair;
 import org.mp.naumann.algorithms.fd.structures.IntegerPair;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
+import org.mp.naumann.algorithms.fd.structures.ParallelRefinement;
 
 public class Validator {
 
@@ -31,6 +32,7 @@ public class Validator {
     private float efficiencyThreshold;
     private MemoryGuardian memoryGuardian;
     private ExecutorService executor;
+    private int numThreads = 1;
     private int level = 0;
 
     public Validator(FDSet negCover, FDTree posCover, int numRecords, int[][] compressedRecords, List<PositionListIndex> plis, float efficiencyThreshold, boolean parallel, MemoryGuardian memoryGuardian, Matcher matcher) {
@@ -44,7 +46,7 @@ public class Validator {
         this.matcher = matcher;
 
         if (parallel) {
-            int numThreads = Runtime.getRuntime().availableProcessors();
+            this.numThreads = Runtime.getRuntime().availableProcessors();
             this.executor = Executors.newFixedThreadPool(numThreads);
         }
     }
@@ -69,12 +71,22 @@ public class Validator {
     private ValidationResult validateParallel(List<FDTreeElementLhsPair> currentLevel) throws AlgorithmExecutionException {
         ValidationResult validationResult = new ValidationResult();
 
+        // only a level with fewer candidates than threads may be split, so the pivot plis are not counted otherwise
+        boolean maySplit = currentLevel.size() < this.numThreads;
+        List<FDTreeElementLhsPair> splitLevel = new ArrayList<>();
         List<Future<ValidationResult>> futures = new ArrayList<>();
         for (FDTreeElementLhsPair elementLhsPair : currentLevel) {
-            ValidationTask task = new ValidationTask(elementLhsPair);
-            futures.add(this.executor.submit(task));
+            if (maySplit && ParallelRefinement.shouldSplit(currentLevel.size(), this.numThreads, this.countPivotRecords(elementLhsPair))) {
+                splitLevel.add(elementLhsPair);
+            } else {
+                ValidationTask task = new ValidationTask(elementLhsPair);
+                futures.add(this.executor.submit(task));
+            }
         }
 
+        if (!splitLevel.isEmpty())
+            validationResult.add(this.validateSplit(splitLevel));
+
         for (Future<ValidationResult> future : futures) {
             try {
                 validationResult.add(future.get());
@@ -92,6 +104,49 @@ public class Validator {
         return validationResult;
     }
 
+    private long countPivotRecords(FDTreeElementLhsPair elementLhsPair) {
+        OpenBitSet lhs = elementLhsPair.getLhs();
+        if (lhs.isEmpty())
+            return 0;
+        return this.plis.get(lhs.nextSetBit(0)).getNumNonUniqueValues();
+    }
+
+    private ValidationResult validateSplit(List<FDTreeElementLhsPair> splitLevel) throws AlgorithmExecutionException {
+        ValidationResult validationResult = new ValidationResult();
+
+        ValidationTask task = new ValidationTask(null);
+        task.split = true;
+        for (FDTreeElementLhsPair elementLhsPair : splitLevel) {
+            task.setElementLhsPair(elementLhsPair);
+            validationResult.add(task.call());
+        }
+
+        return validationResult;
+    }
+
+    private boolean refines(PositionListIndex pli, int rhsAttr) throws AlgorithmExecutionException {
+        ParallelRefinement refinement = new ParallelRefinement(this.plis.size(), rhsAttr);
+        List<Boolean> results = ParallelRefinement.invokeRanges(this.executor, this.numThreads, pli.getClusters(),
+                clusters -> pli.refines(this.compressedRecords, rhsAttr, clusters, refinement));
+        return !results.contains(false);
+    }
+
+    private OpenBitSet refines(PositionListIndex pli, OpenBitSet lhs, OpenBitSet rhs, List<IntegerPair> comparisonSuggestions) throws AlgorithmExecutionException {
+        ParallelRefinement refinement = new ParallelRefinement(rhs);
+        List<RangeResult> results = ParallelRefinement.invokeRanges(this.executor, this.numThreads, pli.getClusters(), clusters -> {
+            RangeResult result = new RangeResult();
+            result.refinedRhs = pli.refines(this.compressedRecords, lhs, rhs, result.comparisonSuggestions, clusters, refinement);
+            return result;
+        });
+
+        OpenBitSet refinedRhs = rhs.clone();
+        for (RangeResult result : results) {
+            refinedRhs.and(result.refinedRhs);
+            comparisonSuggestions.addAll(result.comparisonSuggestions);
+        }
+        return refinedRhs;
+    }
+
     public List<IntegerPair> validatePositiveCover() throws AlgorithmExecutionException {
         lastValidationCount = 0;
         int numAttributes = this.plis.size();
@@ -135,17 +190,10 @@ public class Validator {
                 FDTreeElement element = elementLhsPair.getElement();
                 OpenBitSet lhs = elementLhsPair.getLhs();
 
-                if (element.getChildren() == null)
-                    continue;
-
-                for (int childAttr = 0; childAttr < numAttributes; childAttr++) {
-                    FDTreeElement child = element.getChildren()[childAttr];
-
-                    if (child != null) {
-                        OpenBitSet childLhs = lhs.clone();
-                        childLhs.set(childAttr);
-                        nextLevel.add(new FDTreeElementLhsPair(child, childLhs));
-                    }
+                for (int i = 0; i < element.getNumChildren(); i++) {
+                    OpenBitSet childLhs = lhs.clone();
+                    childLhs.set(element.getChildAttribute(i));
+                    nextLevel.add(new FDTreeElementLhsPair(element.getChildAt(i), childLhs));
                 }
             }
 
@@ -202,7 +250,7 @@ public class Validator {
         if (lhs.get(extensionAttr) ||                                            // Triviality: AA->C cannot be valid, because A->C is invalid
                 (rhs == extensionAttr) ||                                            // Triviality: AC->C cannot be valid, because A->C is invalid
                 this.posCover.containsFdOrGeneralization(lhs, extensionAttr) ||        // Pruning: If A->B, then AB->C cannot be minimal // TODO: this pruning is not used in the Inductor when inverting the negCover; so either it is useless here or it is useful in the Inductor?
-                ((this.posCover.getChildren() != null) && (this.posCover.getChildren()[extensionAttr] != null) && this.posCover.getChildren()[extensionAttr].isFd(rhs)))
+                ((this.posCover.getChild(extensionAttr) != null) && this.posCover.getChild(extensionAttr).isFd(rhs)))
             // Pruning: If B->C, then AB->C cannot be minimal
             return null;
 
@@ -233,8 +281,14 @@ public class Validator {
         }
     }
 
+    private static class RangeResult {
+        private OpenBitSet refinedRhs;
+        private final List<IntegerPair> comparisonSuggestions = new ArrayList<>();
+    }
+
     private class ValidationTask implements Callable<ValidationResult> {
         private FDTreeElementLhsPair elementLhsPair;
+        private boolean split = false;
 
         public ValidationTask(FDTreeElementLhsPair elementLhsPair) {
             this.elementLhsPair = elementLhsPair;
@@ -244,7 +298,7 @@ public class Validator {
             this.elementLhsPair = elementLhsPair;
         }
 
-        public ValidationResult call() throws Exception {
+        public ValidationResult call() throws AlgorithmExecutionException {
             ValidationResult result = new ValidationResult();
 
             FDTreeElement element = this.elementLhsPair.getElement();
@@ -270,7 +324,9 @@ public class Validator {
                 // Check if lhs from plis refines rhs
                 int lhsAttribute = lhs.nextSetBit(0);
                 for (int rhsAttr = rhs.nextSetBit(0); rhsAttr >= 0; rhsAttr = rhs.nextSetBit(rhsAttr + 1)) {
-                    if (!Validator.this.plis.get(lhsAttribute).refines(Validator.this.compressedRecords, rhsAttr)) {
+                    PositionListIndex pli = Validator.this.plis.get(lhsAttribute);
+                    boolean refines = this.split ? Validator.this.refines(pli, rhsAttr) : pli.refines(Validator.this.compressedRecords, rhsAttr);
+                    if (!refines) {
                         element.removeFd(rhsAttr);
 //                        PrintUtils.print(BitSetUtils.toString(lhs));
 
@@ -284,7 +340,10 @@ public class Validator {
                 int firstLhsAttr = lhs.nextSetBit(0);
 
                 lhs.clear(firstLhsAttr);
-                OpenBitSet validRhs = Validator.this.plis.get(firstLhsAttr).refines(Validator.this.compressedRecords, lhs, rhs, result.comparisonSuggestions);
+                PositionListIndex pli = Validator.this.plis.get(firstLhsAttr);
+                OpenBitSet validRhs = this.split
+                        ? Validator.this.refines(pli, lhs, rhs, result.comparisonSuggestions)
+                        : pli.refines(Validator.this.compressedRecords, lhs, rhs, result.comparisonSuggestions);
                 lhs.set(firstLhsAttr);
 
                 result.intersections++;
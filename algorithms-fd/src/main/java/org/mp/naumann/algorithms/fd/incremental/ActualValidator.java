@@ -1,11 +1,15 @@
 package org.mp.naumann.algorithms.fd.incremental;
 
 import org.apache.lucene.util.OpenBitSet;
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
 import org.mp.naumann.algorithms.fd.incremental.IncrementalValidator.ValidationResult;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.PositionListIndex;
+import org.mp.naumann.algorithms.fd.incremental.structures.ComparisonSuggestions;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
+import org.mp.naumann.algorithms.fd.structures.ParallelRefinement;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 class ActualValidator {
 
@@ -15,6 +19,8 @@ class ActualValidator {
     private final ValidationCallback invalidCallback;
     private final CompressedRecords compressedRecords;
     private final boolean validateAll;
+    private ExecutorService splitExecutor;
+    private int numThreads = 1;
 
     ActualValidator(List<? extends PositionListIndex> plis,
                     CompressedRecords compressedRecords, int numRecords,
@@ -27,13 +33,22 @@ class ActualValidator {
         this.validateAll = validateAll;
     }
 
-    ValidationResult validate(OpenBitSet lhs, int rhs) {
+    /**
+     * Lets the clusters of large plis be checked in parallel ranges on the given executor, which must not be the
+     * executor this validator runs on.
+     */
+    void setSplitExecutor(ExecutorService splitExecutor, int numThreads) {
+        this.splitExecutor = splitExecutor;
+        this.numThreads = numThreads;
+    }
+
+    ValidationResult validate(OpenBitSet lhs, int rhs) throws AlgorithmExecutionException {
         OpenBitSet rhsBits = new OpenBitSet(compressedRecords.getNumAttributes());
         rhsBits.fastSet(rhs);
         return validate(lhs, rhsBits);
     }
 
-    ValidationResult validate(OpenBitSet lhs, OpenBitSet rhs) {
+    ValidationResult validate(OpenBitSet lhs, OpenBitSet rhs) throws AlgorithmExecutionException {
         ValidationResult result = new ValidationResult();
         int rhsSize = (int) rhs.cardinality();
         if (rhsSize == 0) {
@@ -55,7 +70,7 @@ class ActualValidator {
             // Check if lhs from plis refines rhs
             int lhsAttribute = lhs.nextSetBit(0);
             for (int rhsAttr = rhs.nextSetBit(0); rhsAttr >= 0; rhsAttr = rhs.nextSetBit(rhsAttr + 1)) {
-                if (!plis.get(lhsAttribute).refines(compressedRecords, rhsAttr, !validateAll)) {
+                if (!refines(plis.get(lhsAttribute), rhsAttr)) {
                     invalidCallback.callback(lhs, rhsAttr, result.collectedFDs);
                 } else {
                     validCallback.callback(lhs, rhsAttr, result.collectedFDs);
@@ -67,7 +82,7 @@ class ActualValidator {
             int firstLhsAttr = lhs.nextSetBit(0);
 
             lhs.fastClear(firstLhsAttr);
-            OpenBitSet validRhs = plis.get(firstLhsAttr).refines(compressedRecords, lhs, rhs, result.comparisonSuggestions, !validateAll);
+            OpenBitSet validRhs = refines(plis.get(firstLhsAttr), lhs, rhs, result.comparisonSuggestions);
             lhs.fastSet(firstLhsAttr);
 
             OpenBitSet invalidRhs = rhs.clone();
@@ -86,6 +101,40 @@ class ActualValidator {
         return result;
     }
 
+    private boolean refines(PositionListIndex pli, int rhsAttr) throws AlgorithmExecutionException {
+        if (splitExecutor == null) {
+            return pli.refines(compressedRecords, rhsAttr, !validateAll);
+        }
+        ParallelRefinement refinement = new ParallelRefinement(compressedRecords.getNumAttributes(), rhsAttr);
+        List<Boolean> results = ParallelRefinement.invokeRanges(splitExecutor, numThreads, pli.getClusterListToCheck(!validateAll),
+                clusters -> pli.refines(compressedRecords, rhsAttr, clusters.iterator(), refinement));
+        return !results.contains(false);
+    }
+
+    private OpenBitSet refines(PositionListIndex pli, OpenBitSet lhs, OpenBitSet rhs, ComparisonSuggestions comparisonSuggestions) throws AlgorithmExecutionException {
+        if (splitExecutor == null) {
+            return pli.refines(compressedRecords, lhs, rhs, comparisonSuggestions, !validateAll);
+        }
+        ParallelRefinement refinement = new ParallelRefinement(rhs);
+        List<RangeResult> results = ParallelRefinement.invokeRanges(splitExecutor, numThreads, pli.getClusterListToCheck(!validateAll), clusters -> {
+            RangeResult result = new RangeResult();
+            result.refinedRhs = pli.refines(compressedRecords, lhs, rhs, result.comparisonSuggestions, !validateAll, clusters.iterator(), refinement);
+            return result;
+        });
+
+        OpenBitSet refinedRhs = rhs.clone();
+        for (RangeResult result : results) {
+            refinedRhs.and(result.refinedRhs);
+            comparisonSuggestions.addAll(result.comparisonSuggestions);
+        }
+        return refinedRhs;
+    }
+
+    private static class RangeResult {
+        private OpenBitSet refinedRhs;
+        private final ComparisonSuggestions comparisonSuggestions = new ComparisonSuggestions();
+    }
+
     public interface ValidationCallback {
         void callback(OpenBitSet lhs, int rhs, List<OpenBitSetFD> collectedFDs);
     }
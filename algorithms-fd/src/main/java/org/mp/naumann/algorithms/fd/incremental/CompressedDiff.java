@@ -1,5 +1,6 @@
 package org.mp.naumann.algorithms.fd.incremental;
 
+import java.util.Collections;
 import java.util.Map;
 
 public class CompressedDiff {
@@ -8,13 +9,23 @@ public class CompressedDiff {
     private final Map<Integer, int[]> deletedRecords;
     private final Map<Integer, int[]> oldUpdatedRecords;
     private final Map<Integer, int[]> newUpdatedRecords;
+    private final Map<Integer, Map<String, String>> insertedValues;
+    private final Map<Integer, Map<String, String>> deletedValues;
 
     public CompressedDiff(Map<Integer, int[]> insertedRecords, Map<Integer, int[]> deletedRecords, Map<Integer, int[]> oldUpdatedRecords,
                           Map<Integer, int[]> newUpdatedRecords) {
+        this(insertedRecords, deletedRecords, oldUpdatedRecords, newUpdatedRecords, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    public CompressedDiff(Map<Integer, int[]> insertedRecords, Map<Integer, int[]> deletedRecords, Map<Integer, int[]> oldUpdatedRecords,
+                          Map<Integer, int[]> newUpdatedRecords, Map<Integer, Map<String, String>> insertedValues,
+                          Map<Integer, Map<String, String>> deletedValues) {
         this.insertedRecords = insertedRecords;
         this.deletedRecords = deletedRecords;
         this.oldUpdatedRecords = oldUpdatedRecords;
         this.newUpdatedRecords = newUpdatedRecords;
+        this.insertedValues = insertedValues;
+        this.deletedValues = deletedValues;
     }
 
     boolean hasInserts() {
@@ -41,4 +52,19 @@ public class CompressedDiff {
         return newUpdatedRecords;
     }
 
+    /**
+     * Returns the uncompressed values of the inserted records, by record id. Records that were inserted and deleted
+     * within the same batch are neither here nor in {@link #getDeletedValues()}.
+     */
+    public Map<Integer, Map<String, String>> getInsertedValues() {
+        return insertedValues;
+    }
+
+    /**
+     * Returns the uncompressed values of the deleted records, including the old side of updates, by record id.
+     */
+    public Map<Integer, Map<String, String>> getDeletedValues() {
+        return deletedValues;
+    }
+
 }
@@ -43,4 +43,8 @@ class FDInductor {
         return newFds;
     }
 
+    int updatePositiveCover(OpenBitSet lhs, int rhs) {
+        return inductor.deduceDependencies(lhs, rhs);
+    }
+
 }
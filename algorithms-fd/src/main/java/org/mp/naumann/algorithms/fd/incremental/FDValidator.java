@@ -1,31 +1,39 @@
 package org.mp.naumann.algorithms.fd.incremental;
 
+import it.unimi.dsi.fastutil.longs.LongIterator;
+
 import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.PositionListIndex;
-import org.mp.naumann.algorithms.fd.structures.IntegerPair;
+import org.mp.naumann.algorithms.fd.incremental.structures.ComparisonSuggestions;
 import org.mp.naumann.algorithms.fd.incremental.structures.Lattice;
 import org.mp.naumann.algorithms.fd.incremental.structures.LatticeElement;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class FDValidator extends IncrementalValidator<List<IntegerPair>> {
+public class FDValidator extends IncrementalValidator<ComparisonSuggestions> {
 
     private final Lattice fds;
     private final Lattice nonFds;
     private final IncrementalMatcher matcher;
-    private List<IntegerPair> comparisonSuggestions = new ArrayList<>();
+    // all pairs suggested during this validation, so that no pair is handed out twice
+    private final ComparisonSuggestions suggested;
+    // pairs suggested since the last interrupt
+    private ComparisonSuggestions comparisonSuggestions = new ComparisonSuggestions();
 
-    FDValidator(int numRecords, CompressedRecords compressedRecords, List<? extends PositionListIndex> plis, boolean parallel, Lattice fds, Lattice nonFds, float efficiencyThreshold, IncrementalMatcher matcher) {
+    FDValidator(int numRecords, CompressedRecords compressedRecords, List<? extends PositionListIndex> plis, boolean parallel, Lattice fds, Lattice nonFds, float efficiencyThreshold, IncrementalMatcher matcher, int comparisonSuggestionBudget) {
         super(numRecords, compressedRecords, plis, parallel, efficiencyThreshold);
         this.fds = fds;
         this.nonFds = nonFds;
         this.matcher = matcher;
+        this.suggested = new ComparisonSuggestions(comparisonSuggestionBudget);
+        setComparisonSuggestionBudget(comparisonSuggestionBudget);
     }
 
     @Override
     protected void end() {
-        comparisonSuggestions.forEach(pair -> matcher.match(new OpenBitSet(numAttributes), pair.a(), pair.b()));
+        OpenBitSet equalAttrs = new OpenBitSet(numAttributes);
+        comparisonSuggestions.forEach((recId1, recId2) -> matcher.match(equalAttrs, recId1, recId2));
     }
 
     @Override
@@ -45,19 +53,28 @@ public class FDValidator extends IncrementalValidator<List<IntegerPair>> {
 
     @Override
     protected void receiveResult(ValidationResult result) {
-        this.comparisonSuggestions.addAll(result.comparisonSuggestions);
+        LongIterator it = result.comparisonSuggestions.iterator();
+        while (it.hasNext() && !suggested.isFull()) {
+            long pair = it.nextLong();
+            if (suggested.add(pair)) {
+                comparisonSuggestions.add(pair);
+            }
+        }
     }
 
     @Override
-    protected List<IntegerPair> interrupt() {
-        List<IntegerPair> result = comparisonSuggestions;
-        comparisonSuggestions = new ArrayList<>();
+    protected ComparisonSuggestions interrupt() {
+        ComparisonSuggestions result = comparisonSuggestions;
+        comparisonSuggestions = new ComparisonSuggestions();
         return result;
     }
 
     @Override
     protected List<OpenBitSet> generateSpecializations(OpenBitSet lhs, int rhs) {
         List<OpenBitSet> specializations = new ArrayList<>();
+        if ((fds.getMaxDepth() > -1) && (lhs.cardinality() >= fds.getMaxDepth())) {
+            return specializations;
+        }
         for (int extensionAttribute = 0; extensionAttribute < numAttributes; extensionAttribute++) {
             if (rhs == extensionAttribute // AB -> B is trivial
                     || lhs.fastGet(extensionAttribute) // AA -> B is trivial
@@ -73,12 +90,12 @@ public class FDValidator extends IncrementalValidator<List<IntegerPair>> {
     }
 
     @Override
-    protected void validRhs(LatticeElement elem, int rhs) {
+    protected void validRhs(LatticeElement elem, OpenBitSet lhs, int rhs) {
         // No-op
     }
 
     @Override
-    protected void invalidRhs(LatticeElement elem, int rhs) {
-        elem.removeFd(rhs);
+    protected void invalidRhs(LatticeElement elem, OpenBitSet lhs, int rhs) {
+        fds.removeFunctionalDependency(elem, lhs, rhs);
     }
 }
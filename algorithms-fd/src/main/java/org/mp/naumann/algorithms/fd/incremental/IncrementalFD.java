@@ -4,10 +4,16 @@ import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import org.apache.lucene.util.OpenBitSet;
@@ -33,19 +39,24 @@ import org.mp.naumann.algorithms.fd.incremental.pruning.bloom.AllCombinationsBlo
 import org.mp.naumann.algorithms.fd.incremental.pruning.bloom.BloomPruningStrategy;
 import org.mp.naumann.algorithms.fd.incremental.pruning.bloom.CurrentFDBloomGenerator;
 import org.mp.naumann.algorithms.fd.incremental.pruning.simple.ExistingValuesPruningStrategy;
+import org.mp.naumann.algorithms.fd.incremental.structures.ComparisonSuggestions;
 import org.mp.naumann.algorithms.fd.incremental.structures.Lattice;
 import org.mp.naumann.algorithms.fd.incremental.structures.LatticeBuilder;
-import org.mp.naumann.algorithms.fd.structures.IntegerPair;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
 import org.mp.naumann.algorithms.fd.utils.ValueComparator;
 import org.mp.naumann.algorithms.result.ResultListener;
 import org.mp.naumann.database.data.ColumnCombination;
 import org.mp.naumann.database.data.ColumnIdentifier;
+import org.mp.naumann.database.statement.UpdateStatement;
 import org.mp.naumann.processor.batch.Batch;
 
-public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult, FDIntermediateDatastructure> {
+public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult, FDIntermediateDatastructure>, AutoCloseable {
+
+    // Names of the pruning strategies, under which the pruning controller keeps the statistics of their pruners
+    private static final String BLOOM_PRUNER = "bloom";
+    private static final String SIMPLE_PRUNER = "existing values";
+    private static final String DELETE_PRUNER = "delete annotations";
 
-    private static final boolean USE_EXACT_PRUNER = false;
     private final List<ResultListener<IncrementalFDResult>> resultListeners = new ArrayList<>();
     private final String tableName;
     private boolean validateParallel = true;
@@ -60,6 +71,10 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
     private ExistingValuesPruningStrategy simplePruning;
     private BloomPruningStrategy bloomPruning;
     private AgreeSetCollection agreeSets;
+    private IncrementalMemoryGuardian memoryGuardian;
+    private PruningController pruningController;
+    private PairwiseValidator pairwiseValidator;
+    private ExecutorService inductionExecutor;
 
     public IncrementalFD(String tableName, IncrementalFDConfiguration version) {
         this(tableName);
@@ -97,25 +112,37 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
         this.valueComparator = intermediateDatastructure.getValueComparator();
 
         PLIBuilder pliBuilder = intermediateDatastructure.getPliBuilder();
-        this.pliOrder = pliBuilder.getPliOrder();
+        this.pliOrder = intermediateDatastructure.getPliOrder();
 
         List<OpenBitSetFD> functionalDependencies = intermediateDatastructure.getFunctionalDependencies();
         LatticeBuilder builder = LatticeBuilder.build(columns.size(), functionalDependencies);
         this.fds = builder.getFds();
         this.nonFds = builder.getNonFds();
+        if (version.getMaxLhsSize() > -1) {
+            fds.trim(version.getMaxLhsSize());
+        }
 
-        Factory<Collection<Integer>> clusterFactory = pliBuilder.getNumLastRecords() > 1_000_000? IntOpenHashSet::new : IntArrayList::new;
+        boolean hashClusters = pliBuilder.getNumLastRecords() > 1_000_000;
+        Factory<Collection<Integer>> clusterFactory = hashClusters ? IntOpenHashSet::new : IntArrayList::new;
+        // HyFD's clusters are IntArrayLists as well, so they are shared instead of copied unless hash sets are used.
+        // The batches update them in place, so HyFD's cluster maps are only read until the pruning is initialized.
+        boolean adoptClusters = !hashClusters;
 
         if (version.recomputesDataStructures()) {
-            dataStructureBuilder = new RecomputeDataStructureBuilder(pliBuilder, this.version,
-                    this.columns, clusterFactory);
+            dataStructureBuilder = new RecomputeDataStructureBuilder(intermediateDatastructure, this.version,
+                    this.columns, clusterFactory, adoptClusters);
         } else {
             dataStructureBuilder = new IncrementalDataStructureBuilder(pliBuilder, this.version,
-                    this.columns, clusterFactory);
+                    this.columns, clusterFactory, adoptClusters);
         }
 
         this.agreeSets = intermediateDatastructure.getPruner();
         initializePruningStrategies(pliBuilder);
+        this.memoryGuardian = new IncrementalMemoryGuardian(version.usesMemoryGuardian(), fds);
+        memoryGuardian.setAgreeSets(agreeSets);
+        memoryGuardian.setBloomPruning(bloomPruning);
+        this.pruningController = new PruningController(version.usesAdaptivePruning());
+        this.pairwiseValidator = new PairwiseValidator(version.getPairwiseValidationThreshold());
         FDLogger.log(Level.INFO, "Finished initializing IncrementalFD");
     }
 
@@ -124,7 +151,7 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
             List<String> orderedColumns = pliOrder.stream().map(columns::get)
                     .collect(Collectors.toList());
             List<HashMap<String, IntArrayList>> clusterMaps = pliBuilder.getClusterMaps();
-            bloomPruning = new BloomPruningStrategy(orderedColumns);
+            bloomPruning = new BloomPruningStrategy(orderedColumns, validateParallel);
             if (version.usesPruningStrategy(IncrementalFDConfiguration.PruningStrategy.BLOOM)) {
                 bloomPruning.addGenerator(new AllCombinationsBloomGenerator(3));
             }
@@ -162,6 +189,14 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
         List<? extends PositionListIndex> plis = dataStructureBuilder.getPlis();
         CompressedRecords compressedRecords = dataStructureBuilder.getCompressedRecords();
 
+        ValidationPruner bloomPruner = null;
+        if (usesBloomPruning() && !memoryGuardian.hasDegraded(MemoryDegradation.BLOOM_FILTER)) {
+            long start = System.nanoTime();
+            bloomPruner = bloomPruning.analyzeDiff(diff);
+            pruningController.maintained(BLOOM_PRUNER, System.nanoTime() - start);
+            benchmark.finishSubtask("Update bloom filter");
+        }
+
         int validations = 0;
         int pruned = 0;
 
@@ -176,45 +211,66 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
         }
 
         if (diff.hasInserts()) {
-            ValidatorResult result = validateFDs(plis, compressedRecords, batch, diff);
+            ValidatorResult result = validateFDs(plis, compressedRecords, diff, bloomPruner);
             validations += result.getValidations();
             pruned += result.getPruned();
             benchmark.finishSubtask("Validate FDs");
         }
 
+        pruningController.nextBatch();
+        pairwiseValidator.nextBatch();
         List<OpenBitSetFD> fds = this.fds.getFunctionalDependencies();
         List<FunctionalDependency> result = getFunctionalDependencies(fds);
         benchmark.finish();
 
-        return new IncrementalFDResult(result, validations, pruned);
+        return new IncrementalFDResult(result, validations, pruned, memoryGuardian.getDegradations());
     }
 
     private ValidatorResult validateFDs(List<? extends PositionListIndex> plis,
-                                        CompressedRecords compressedRecords, Batch batch, CompressedDiff diff)
+                                        CompressedRecords compressedRecords, CompressedDiff diff, ValidationPruner bloomPruner)
             throws AlgorithmExecutionException {
         FDLogger.log(Level.FINE, "Started validating FDs");
         Benchmark benchmark = Benchmark.start("Validate FDs", Benchmark.DEFAULT_LEVEL + 1);
+        long start = System.nanoTime();
 
         IncrementalMatcher matcher = new IncrementalMatcher(compressedRecords, valueComparator,
-            agreeSets, version);
+            memoryGuardian::getAgreeSets, version);
+        Set<Integer> newRecords = new HashSet<>(diff.getInsertedRecords().keySet());
+        newRecords.addAll(diff.getNewUpdatedRecords().keySet());
+        int numRecords = dataStructureBuilder.getNumRecords();
+        long numPairs = pairwiseValidator.countPairs(newRecords, plis, compressedRecords, numRecords);
+        if (pairwiseValidator.shouldValidate(newRecords, numPairs, numRecords)) {
+            FDLogger.log(Level.FINER, "Comparing " + newRecords.size() + " new records with " + numPairs + " records sharing a cluster");
+            FDInductor inductor = new FDInductor(fds, nonFds, compressedRecords.getNumAttributes());
+            int newFds = pairwiseValidator.validate(newRecords, plis, compressedRecords, numRecords,
+                    matcher, valueComparator, fds, inductor);
+            memoryGuardian.memoryChanged(newFds);
+            memoryGuardian.match();
+            benchmark.finish();
+            FDLogger.log(Level.FINE, "Finished validating FDs pairwise");
+            return pairwiseValidator.getValidatorResult();
+        }
         IncrementalSampler sampler = new IncrementalSampler(compressedRecords, plis,
                 efficiencyThreshold, matcher);
         FDInductor inductor = new FDInductor(fds, nonFds,
                 compressedRecords.getNumAttributes());
         FDValidator validator = new FDValidator(dataStructureBuilder.getNumRecords(),
-                compressedRecords, plis, validateParallel, fds, nonFds, efficiencyThreshold, matcher);
+                compressedRecords, plis, validateParallel, fds, nonFds, efficiencyThreshold, matcher,
+                memoryGuardian.getComparisonSuggestionBudget(version.getComparisonSuggestionBudget()));
+        validator.setMemoryGuardian(memoryGuardian);
+        validator.setPruningController(pruningController);
 
-        if (usesBloomPruning()) {
-            validator.addValidationPruner(bloomPruning.analyzeBatch(batch));
+        if (bloomPruner != null) {
+            validator.addValidationPruner(BLOOM_PRUNER, bloomPruner);
         }
         if (version.usesPruningStrategy(IncrementalFDConfiguration.PruningStrategy.SIMPLE)) {
-            validator.addValidationPruner(simplePruning.analyzeDiff(diff));
+            validator.addValidationPruner(SIMPLE_PRUNER, simplePruning.analyzeDiff(diff));
         }
         if (version.usesImprovedSampling()) {
             sampler.setNewRecords(diff.getInsertedRecords().keySet());
         }
 
-        List<IntegerPair> comparisonSuggestions;
+        ComparisonSuggestions comparisonSuggestions;
         int i = 1;
         do {
             Benchmark innerBenchmark = Benchmark
@@ -230,11 +286,14 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
                 FDLogger.log(Level.FINER, "Updating positive cover");
                 int newFds = inductor.updatePositiveCover(agreeSets);
                 innerBenchmark.finishSubtask("Inducted " + newFds + " new FDs");
+                memoryGuardian.memoryChanged(agreeSets.size() + newFds);
+                memoryGuardian.match();
             }
             innerBenchmark.finish();
             FDLogger.log(Level.FINER, "Finished round " + i++);
         } while (comparisonSuggestions != null);
 
+        pairwiseValidator.latticeValidated(System.nanoTime() - start);
         benchmark.finish();
         FDLogger.log(Level.FINE, "Finished validating FDs");
         return validator.getValidatorResult();
@@ -246,18 +305,22 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
         FDLogger.log(Level.FINE, "Started validating non-FDs");
         Benchmark benchmark = Benchmark.start("Validating non-FDs", Benchmark.DEFAULT_LEVEL + 1);
         NonFDInductor fdFinder = new NonFDInductor(fds, nonFds, plis,
-                compressedRecords, dataStructureBuilder.getNumRecords(), efficiencyThreshold);
+                compressedRecords, dataStructureBuilder.getNumRecords(), efficiencyThreshold,
+                validateParallel && version.usesDepthFirst() ? getInductionExecutor() : null);
         NonFDValidator validator = new NonFDValidator(dataStructureBuilder.getNumRecords(),
                 compressedRecords, plis, validateParallel, fds, nonFds, efficiencyThreshold);
-        if (version.usesPruningStrategy(PruningStrategy.DELETE_ANNOTATIONS)) {
+        validator.setMemoryGuardian(memoryGuardian);
+        validator.setPruningController(pruningController);
+        if (version.usesPruningStrategy(PruningStrategy.DELETE_ANNOTATIONS)
+                && !memoryGuardian.hasDegraded(MemoryDegradation.AGREE_SETS)) {
             Set<OpenBitSet> agreeSets = this.agreeSets.analyzeDiff(diff);
             final ValidationPruner pruner;
-            if (USE_EXACT_PRUNER) {
+            if (version.usesExactDeletePruning()) {
                 pruner = new ExactDeleteValidationPruner(agreeSets, columns.size());
             } else{
                 pruner = new SimpleDeleteValidationPruner(agreeSets);
             }
-            validator.addValidationPruner(pruner);
+            validator.addValidationPruner(DELETE_PRUNER, pruner);
             benchmark.finishSubtask("Pruning");
         }
         List<OpenBitSetFD> validFDs;
@@ -273,6 +336,73 @@ public class IncrementalFD implements IncrementalAlgorithm<IncrementalFDResult,
         return validator.getValidatorResult();
     }
 
+    private ExecutorService getInductionExecutor() {
+        if (inductionExecutor == null) {
+            // daemon threads, so an algorithm that is never closed does not keep the JVM alive
+            inductionExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return inductionExecutor;
+    }
+
+    /**
+     * Shuts down the threads that are shared by the batches for the depth-first search of FDs and for the bloom
+     * filter.
+     */
+    @Override
+    public void close() {
+        if (inductionExecutor != null) {
+            inductionExecutor.shutdown();
+            inductionExecutor = null;
+        }
+        if (bloomPruning != null) {
+            bloomPruning.close();
+        }
+    }
+
+    /**
+     * Returns the current FDs that use any of the given columns in their lhs or as their rhs.
+     */
+    public List<FunctionalDependency> getFunctionalDependenciesMentioning(String... columnNames) {
+        return getFunctionalDependenciesMentioning(Arrays.asList(columnNames));
+    }
+
+    public List<FunctionalDependency> getFunctionalDependenciesMentioning(Collection<String> columnNames) {
+        OpenBitSet attributes = new OpenBitSet(columns.size());
+        for (String columnName : columnNames) {
+            int column = columns.indexOf(columnName);
+            if (column < 0) {
+                throw new IllegalArgumentException("Unknown column " + columnName);
+            }
+            attributes.fastSet(pliOrder.indexOf(column));
+        }
+        return getFunctionalDependencies(new ArrayList<>(fds.getFunctionalDependenciesMentioning(attributes)));
+    }
+
+    /**
+     * Returns the current FDs that may change when the given batch is processed. Inserts and deletes can affect
+     * every FD, while updates only affect FDs that mention one of the changed columns.
+     */
+    public List<FunctionalDependency> getAffectedFunctionalDependencies(Batch batch) {
+        if (!batch.getInsertStatements().isEmpty() || !batch.getDeleteStatements().isEmpty()) {
+            return getFunctionalDependencies(fds.getFunctionalDependencies());
+        }
+        Set<String> changedColumns = new HashSet<>();
+        for (UpdateStatement update : batch.getUpdateStatements()) {
+            Map<String, String> oldValues = update.getOldValueMap();
+            Map<String, String> newValues = update.getNewValueMap();
+            for (String column : columns) {
+                if (!Objects.equals(oldValues.get(column), newValues.get(column))) {
+                    changedColumns.add(column);
+                }
+            }
+        }
+        return getFunctionalDependenciesMentioning(changedColumns);
+    }
+
     private List<FunctionalDependency> getFunctionalDependencies(List<OpenBitSetFD> fds) {
         List<FunctionalDependency> result = new ArrayList<>(fds.size());
         ObjectArrayList<ColumnIdentifier> columnIdentifiers = buildColumnIdentifiers();
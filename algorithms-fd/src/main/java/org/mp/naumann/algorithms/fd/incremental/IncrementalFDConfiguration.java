@@ -29,6 +29,14 @@ public class IncrementalFDConfiguration {
     private boolean storeEqual = true;
     private boolean improvedSampling = true;
     private boolean depthFirst = false;
+    private int comparisonSuggestionBudget = 1_000_000;
+    private int violationCollectionSize = 1000;
+    private boolean exactDeletePruning = false;
+    private boolean adaptivePruning = true;
+    private boolean parallelPliConstruction = true;
+    private boolean memoryGuardian = true;
+    private int pairwiseValidationThreshold = 100;
+    private int maxLhsSize = -1;
 
     public IncrementalFDConfiguration(char versionCode, String versionName) {
         this.versionCode = versionCode;
@@ -206,7 +214,111 @@ public class IncrementalFDConfiguration {
         return this;
     }
 
+    public int getViolationCollectionSize() {
+        return violationCollectionSize;
+    }
+
+    /**
+     * Limits the number of record pairs kept per agree set for delete annotation pruning. When the limit is reached,
+     * the oldest pair is evicted. Use 0 to keep all pairs.
+     */
     public IncrementalFDConfiguration setViolationCollectionSize(int violationCollectionSize) {
+        this.violationCollectionSize = violationCollectionSize;
+        return this;
+    }
+
+    public boolean usesExactDeletePruning() {
+        return exactDeletePruning;
+    }
+
+    /**
+     * Chooses how delete annotations prune non-FD candidates. The exact pruner skips every candidate that a
+     * remaining pair of records still violates, while the simple one only skips candidates whose lhs equals a
+     * remaining agree set. The simple one is the default.
+     */
+    public IncrementalFDConfiguration setExactDeletePruning(boolean exactDeletePruning) {
+        this.exactDeletePruning = exactDeletePruning;
+        return this;
+    }
+
+    public boolean usesAdaptivePruning() {
+        return adaptivePruning;
+    }
+
+    /**
+     * Lets IncrementalFD measure the cost and benefit of each pruning strategy while processing batches, ask the
+     * pruners in the order that pays off best, and skip pruners that cost more validation time than they save.
+     */
+    public IncrementalFDConfiguration setAdaptivePruning(boolean adaptivePruning) {
+        this.adaptivePruning = adaptivePruning;
+        return this;
+    }
+
+    public boolean usesParallelPliConstruction() {
+        return parallelPliConstruction;
+    }
+
+    /**
+     * Builds the cluster maps and plis of the initial records with one worker per group of columns. The record ids
+     * and plis are the same as when building them sequentially.
+     */
+    public IncrementalFDConfiguration setParallelPliConstruction(boolean parallelPliConstruction) {
+        this.parallelPliConstruction = parallelPliConstruction;
+        return this;
+    }
+
+    public int getComparisonSuggestionBudget() {
+        return comparisonSuggestionBudget;
+    }
+
+    /**
+     * Limits the number of distinct record pairs that the validation of a batch suggests to the sampler for
+     * comparison. Further suggestions are dropped. 0 or a negative value disables comparison suggestions, and
+     * {@link org.mp.naumann.algorithms.fd.incremental.structures.ComparisonSuggestions#UNBOUNDED} keeps all of them.
+     */
+    public IncrementalFDConfiguration setComparisonSuggestionBudget(int comparisonSuggestionBudget) {
+        this.comparisonSuggestionBudget = comparisonSuggestionBudget;
+        return this;
+    }
+
+    public int getMaxLhsSize() {
+        return maxLhsSize;
+    }
+
+    /**
+     * Restricts the discovered FDs to those with at most the given number of lhs attributes. Larger candidates
+     * are neither generated nor validated. -1 means unbounded.
+     */
+    public IncrementalFDConfiguration setMaxLhsSize(int maxLhsSize) {
+        this.maxLhsSize = maxLhsSize;
+        return this;
+    }
+
+    public int getPairwiseValidationThreshold() {
+        return pairwiseValidationThreshold;
+    }
+
+    /**
+     * Lets IncrementalFD handle insert batches of at most the given number of records by comparing the new records
+     * with the records they share a cluster with, instead of validating the lattice, as long as the measured cost
+     * of the comparisons stays below that of a lattice validation. 0 disables it.
+     */
+    public IncrementalFDConfiguration setPairwiseValidationThreshold(int pairwiseValidationThreshold) {
+        this.pairwiseValidationThreshold = pairwiseValidationThreshold;
+        return this;
+    }
+
+    public boolean usesMemoryGuardian() {
+        return memoryGuardian;
+    }
+
+    /**
+     * Lets IncrementalFD watch the heap while processing batches. When memory runs low, it drops the agree sets,
+     * the bloom filter and the comparison suggestions, in this order, and only then bounds the lhs size of the FDs.
+     * Without the guardian, nothing is dropped and running out of memory fails the batch. On by default.
+     */
+    public IncrementalFDConfiguration setMemoryGuardian(boolean memoryGuardian) {
+        this.memoryGuardian = memoryGuardian;
         return this;
     }
 
@@ -2,17 +2,25 @@ package org.mp.naumann.algorithms.fd.incremental;
 
 import org.mp.naumann.algorithms.fd.FunctionalDependency;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 public class IncrementalFDResult {
 
     private final int validationCount, prunedCount;
     private final List<FunctionalDependency> fds;
+    private final Set<MemoryDegradation> degradations;
 
     public IncrementalFDResult(List<FunctionalDependency> fds, int validationCount, int prunedCount) {
+        this(fds, validationCount, prunedCount, Collections.emptySet());
+    }
+
+    public IncrementalFDResult(List<FunctionalDependency> fds, int validationCount, int prunedCount, Set<MemoryDegradation> degradations) {
         this.fds = fds;
         this.validationCount = validationCount;
         this.prunedCount = prunedCount;
+        this.degradations = degradations;
     }
 
     public int getValidationCount() {
@@ -27,4 +35,12 @@ public class IncrementalFDResult {
         return fds;
     }
 
+    /**
+     * Structures the memory guardian had to give up so far. If it contains {@link MemoryDegradation#LHS_DEPTH},
+     * FDs with large lhs may be missing from the result.
+     */
+    public Set<MemoryDegradation> getDegradations() {
+        return degradations;
+    }
+
 }
@@ -32,6 +32,10 @@ class IncrementalInductor {
             for (OpenBitSet specLhs : specLhss) {
                 this.lattice.removeFunctionalDependency(specLhs, rhs);
 
+                if ((lattice.getMaxDepth() > -1) && (specLhs.cardinality() >= lattice.getMaxDepth())) {
+                    continue;
+                }
+
                 for (int attr = numAttributes - 1; attr >= 0; attr--) { // TODO: Is iterating backwards a good or bad idea?
                     if (!lhs.get(attr) && (attr != rhs)) {
                         specLhs.fastSet(attr);
@@ -5,14 +5,20 @@ import org.mp.naumann.algorithms.fd.incremental.IncrementalFDConfiguration.Pruni
 import org.mp.naumann.algorithms.fd.incremental.agreesets.AgreeSetCollection;
 import org.mp.naumann.algorithms.fd.utils.ValueComparator;
 
+import java.util.function.Supplier;
+
 class IncrementalMatcher {
 
     private final CompressedRecords compressedRecords;
     private final ValueComparator valueComparator;
-    private final AgreeSetCollection agreeSets;
+    private final Supplier<AgreeSetCollection> agreeSets;
     private final IncrementalFDConfiguration configuration;
 
-    IncrementalMatcher(CompressedRecords compressedRecords, ValueComparator valueComparator, AgreeSetCollection agreeSets, IncrementalFDConfiguration configuration) {
+    /**
+     * @param agreeSets Supplies the collection to add the agree sets to, or null once they are no longer collected.
+     *                  It is asked on every match, so the collection can be dropped while a batch is processed.
+     */
+    IncrementalMatcher(CompressedRecords compressedRecords, ValueComparator valueComparator, Supplier<AgreeSetCollection> agreeSets, IncrementalFDConfiguration configuration) {
         this.compressedRecords = compressedRecords;
         this.valueComparator = valueComparator;
         this.agreeSets = agreeSets;
@@ -22,7 +28,10 @@ class IncrementalMatcher {
     void match(OpenBitSet equalAttrs, int recId1, int recId2) {
         match(equalAttrs, compressedRecords.get(recId1), this.compressedRecords.get(recId2));
         if (configuration.usesPruningStrategy(PruningStrategy.DELETE_ANNOTATIONS)) {
-            agreeSets.addAgreeSet(equalAttrs.clone(), recId1, recId2);
+            AgreeSetCollection agreeSets = this.agreeSets.get();
+            if (agreeSets != null) {
+                agreeSets.addAgreeSet(equalAttrs, recId1, recId2);
+            }
         }
     }
 
@@ -0,0 +1,120 @@
+package org.mp.naumann.algorithms.fd.incremental;
+
+import org.mp.naumann.algorithms.fd.FDLogger;
+import org.mp.naumann.algorithms.fd.incremental.agreesets.AgreeSetCollection;
+import org.mp.naumann.algorithms.fd.incremental.pruning.bloom.BloomPruningStrategy;
+import org.mp.naumann.algorithms.fd.incremental.structures.Lattice;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Watches the heap while {@link IncrementalFD} processes batches. When memory runs low, it first drops the
+ * structures that only serve pruning (agree sets, bloom filter, comparison suggestions) and only then bounds the
+ * lhs size of the positive cover, like the {@code MemoryGuardian} of HyFD does.
+ */
+class IncrementalMemoryGuardian {
+
+    private final boolean active;
+    private final Lattice fds;
+    private final EnumSet<MemoryDegradation> degradations = EnumSet.noneOf(MemoryDegradation.class);
+    private final long memoryCheckFrequency;                  // Number of allocation events that cause a memory check
+    private final long maxMemoryUsage;
+    private final long trimMemoryUsage;
+    private int allocationEventsSinceLastCheck = 0;
+    private volatile AgreeSetCollection agreeSets;
+    private BloomPruningStrategy bloomPruning;
+
+    IncrementalMemoryGuardian(boolean active, Lattice fds) {
+        this.active = active;
+        this.fds = fds;
+        long availableMemory = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        float maxMemoryUsagePercentage = 0.8f;
+        this.maxMemoryUsage = (long) (availableMemory * maxMemoryUsagePercentage);
+        float trimMemoryUsagePercentage = 0.7f;
+        this.trimMemoryUsage = (long) (availableMemory * trimMemoryUsagePercentage);
+        this.memoryCheckFrequency = (long) Math.max(Math.ceil((float) availableMemory / 10000000), 10);
+    }
+
+    void setAgreeSets(AgreeSetCollection agreeSets) {
+        this.agreeSets = agreeSets;
+    }
+
+    /**
+     * Returns the agree sets, or null if they were never collected or have been dropped.
+     */
+    AgreeSetCollection getAgreeSets() {
+        return agreeSets;
+    }
+
+    void setBloomPruning(BloomPruningStrategy bloomPruning) {
+        this.bloomPruning = bloomPruning;
+    }
+
+    void memoryChanged(int allocationEvents) {
+        this.allocationEventsSinceLastCheck += allocationEvents;
+    }
+
+    boolean hasDegraded(MemoryDegradation degradation) {
+        return degradations.contains(degradation);
+    }
+
+    Set<MemoryDegradation> getDegradations() {
+        return degradations.clone();
+    }
+
+    int getComparisonSuggestionBudget(int configuredBudget) {
+        return hasDegraded(MemoryDegradation.COMPARISON_SUGGESTIONS) ? 0 : configuredBudget;
+    }
+
+    private boolean memoryExhausted(long memory) {
+        long memoryUsage = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return memoryUsage > memory;
+    }
+
+    void match() {
+        if ((!this.active) || (this.allocationEventsSinceLastCheck < this.memoryCheckFrequency))
+            return;
+
+        if (this.memoryExhausted(this.maxMemoryUsage)) {
+            Runtime.getRuntime().gc();
+
+            while (this.memoryExhausted(this.trimMemoryUsage)) {
+                degrade();
+                Runtime.getRuntime().gc();
+            }
+        }
+
+        this.allocationEventsSinceLastCheck = 0;
+    }
+
+    private void degrade() {
+        if (agreeSets != null && degradations.add(MemoryDegradation.AGREE_SETS)) {
+            FDLogger.log(Level.WARNING, "Memory exhausted, dropping agree sets");
+            AgreeSetCollection dropped = agreeSets;
+            // unset first, so matchers that ask for the agree sets from now on no longer add to them
+            agreeSets = null;
+            dropped.clear();
+            return;
+        }
+        if (bloomPruning != null && degradations.add(MemoryDegradation.BLOOM_FILTER)) {
+            FDLogger.log(Level.WARNING, "Memory exhausted, dropping bloom filter");
+            bloomPruning.release();
+            bloomPruning = null;
+            return;
+        }
+        if (degradations.add(MemoryDegradation.COMPARISON_SUGGESTIONS)) {
+            FDLogger.log(Level.WARNING, "Memory exhausted, disabling comparison suggestions");
+            return;
+        }
+        int depth = fds.getDepth() - 1;
+        if (depth < 1)
+            throw new RuntimeException("Insufficient memory to calculate any result!");
+
+        FDLogger.log(Level.WARNING, "Memory exhausted, trimming FDs to lhs size " + depth);
+        degradations.add(MemoryDegradation.LHS_DEPTH);
+        fds.trim(depth);
+    }
+}
@@ -7,8 +7,8 @@ import org.mp.naumann.algorithms.benchmark.speed.Benchmark;
 import org.mp.naumann.algorithms.fd.FDLogger;
 import org.mp.naumann.algorithms.fd.hyfd.FDList;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.PositionListIndex;
+import org.mp.naumann.algorithms.fd.incremental.structures.ComparisonSuggestions;
 import org.mp.naumann.algorithms.fd.structures.FDSet;
-import org.mp.naumann.algorithms.fd.structures.IntegerPair;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -50,22 +50,22 @@ class IncrementalSampler {
         return newRecords != null && !newRecords.contains(recordId);
     }
 
-    FDList enrichNegativeCover(List<IntegerPair> comparisonSuggestions) {
+    FDList enrichNegativeCover(ComparisonSuggestions comparisonSuggestions) {
         Benchmark benchmark = Benchmark.start("Sampling", Benchmark.DEFAULT_LEVEL + 3);
         int numAttributes = this.compressedRecords.getNumAttributes();
 
         FDLogger.log(Level.FINEST, "Investigating comparison suggestions ... ");
         FDList newNonFds = new FDList(numAttributes, this.agreeSets.getMaxDepth());
         OpenBitSet equalAttrs = new OpenBitSet(this.compressedRecords.getNumAttributes());
-        for (IntegerPair comparisonSuggestion : comparisonSuggestions) {
-            this.matcher.match(equalAttrs, comparisonSuggestion.a(), comparisonSuggestion.b());
+        comparisonSuggestions.forEach((recId1, recId2) -> {
+            this.matcher.match(equalAttrs, recId1, recId2);
 
             if (!this.agreeSets.contains(equalAttrs)) {
                 OpenBitSet equalAttrsCopy = equalAttrs.clone();
                 this.agreeSets.add(equalAttrsCopy);
                 newNonFds.add(equalAttrsCopy);
             }
-        }
+        });
 
         benchmark.finishSubtask("Processed comparison suggestions");
         if (this.attributeRepresentants == null) { // if this is the first call of this method
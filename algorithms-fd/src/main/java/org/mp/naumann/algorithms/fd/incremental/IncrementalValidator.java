@@ -7,16 +7,19 @@ import org.mp.naumann.algorithms.fd.FDLogger;
 import org.mp.naumann.algorithms.fd.incremental.ActualValidator.ValidationCallback;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.PositionListIndex;
 import org.mp.naumann.algorithms.fd.incremental.pruning.ValidationPruner;
-import org.mp.naumann.algorithms.fd.structures.IntegerPair;
+import org.mp.naumann.algorithms.fd.incremental.structures.ComparisonSuggestions;
 import org.mp.naumann.algorithms.fd.incremental.structures.Lattice;
 import org.mp.naumann.algorithms.fd.incremental.structures.LatticeElement;
 import org.mp.naumann.algorithms.fd.incremental.structures.LatticeElementLhsPair;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
+import org.mp.naumann.algorithms.fd.structures.ParallelRefinement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -24,18 +27,25 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 public abstract class IncrementalValidator<T> {
 
     final int numAttributes;
     private final ValidatorResult validatorResult = new ValidatorResult();
-    private final List<ValidationPruner> validationPruners = new ArrayList<>();
+    private final Map<String, ValidationPruner> validationPruners = new LinkedHashMap<>();
     private final int numRecords;
     private final List<? extends PositionListIndex> plis;
     private final CompressedRecords compressedRecords;
     private final float efficiencyThreshold;
+    private int comparisonSuggestionBudget = ComparisonSuggestions.UNBOUNDED;
     private int level = 0;
+    // Number of records to check per pivot pli, counted once per validation round
+    private long[] pivotRecords;
     private ExecutorService executor;
+    private int numThreads = 1;
+    private IncrementalMemoryGuardian memoryGuardian;
+    private PruningController pruningController = new PruningController(false);
 
     IncrementalValidator(int numRecords, CompressedRecords compressedRecords,
                          List<? extends PositionListIndex> plis, boolean parallel, float efficiencyThreshold) {
@@ -46,13 +56,29 @@ public abstract class IncrementalValidator<T> {
         this.efficiencyThreshold = efficiencyThreshold;
 
         if (parallel) {
-            int numThreads = Runtime.getRuntime().availableProcessors();
+            this.numThreads = Runtime.getRuntime().availableProcessors();
             this.executor = Executors.newFixedThreadPool(numThreads);
         }
     }
 
-    void addValidationPruner(ValidationPruner ValidationPruner) {
-        validationPruners.add(ValidationPruner);
+    /**
+     * @param name the name of the pruning strategy, which tells its pruners of different batches apart from those
+     *             of other strategies
+     */
+    void addValidationPruner(String name, ValidationPruner validationPruner) {
+        validationPruners.put(name, validationPruner);
+    }
+
+    void setComparisonSuggestionBudget(int comparisonSuggestionBudget) {
+        this.comparisonSuggestionBudget = comparisonSuggestionBudget;
+    }
+
+    void setMemoryGuardian(IncrementalMemoryGuardian memoryGuardian) {
+        this.memoryGuardian = memoryGuardian;
+    }
+
+    void setPruningController(PruningController pruningController) {
+        this.pruningController = pruningController;
     }
 
     ValidatorResult getValidatorResult() {
@@ -60,7 +86,7 @@ public abstract class IncrementalValidator<T> {
     }
 
     private ValidationResult validateSequential(Collection<LatticeElementLhsPair> currentLevel) throws AlgorithmExecutionException {
-        ValidationResult validationResult = new ValidationResult();
+        ValidationResult validationResult = new ValidationResult(comparisonSuggestionBudget);
 
         ValidationTask task = new ValidationTask(null);
         for (LatticeElementLhsPair elementLhsPair : currentLevel) {
@@ -77,12 +103,23 @@ public abstract class IncrementalValidator<T> {
     }
 
     private ValidationResult validateParallel(Collection<LatticeElementLhsPair> currentLevel) throws AlgorithmExecutionException {
-        ValidationResult validationResult = new ValidationResult();
+        ValidationResult validationResult = new ValidationResult(comparisonSuggestionBudget);
 
+        // only a level with fewer candidates than threads may be split, so the pivot plis are not counted otherwise
+        boolean maySplit = currentLevel.size() < numThreads;
+        List<LatticeElementLhsPair> splitLevel = new ArrayList<>();
         List<Future<ValidationResult>> futures = new ArrayList<>();
         for (LatticeElementLhsPair elementLhsPair : currentLevel) {
-            ValidationTask task = new ValidationTask(elementLhsPair);
-            futures.add(this.executor.submit(task));
+            if (maySplit && ParallelRefinement.shouldSplit(currentLevel.size(), numThreads, countPivotRecords(elementLhsPair))) {
+                splitLevel.add(elementLhsPair);
+            } else {
+                ValidationTask task = new ValidationTask(elementLhsPair);
+                futures.add(this.executor.submit(task));
+            }
+        }
+
+        if (!splitLevel.isEmpty()) {
+            validationResult.add(validateSplit(splitLevel));
         }
 
         for (Future<ValidationResult> future : futures) {
@@ -98,9 +135,36 @@ public abstract class IncrementalValidator<T> {
         return validationResult;
     }
 
+    private long countPivotRecords(LatticeElementLhsPair elementLhsPair) {
+        OpenBitSet lhs = elementLhsPair.getLhs();
+        if (lhs.isEmpty()) {
+            return 0;
+        }
+        int pivot = lhs.nextSetBit(0);
+        if (pivotRecords[pivot] < 0) {
+            pivotRecords[pivot] = plis.get(pivot).countRecordsToCheck(isTopDown());
+        }
+        return pivotRecords[pivot];
+    }
+
+    private ValidationResult validateSplit(Collection<LatticeElementLhsPair> splitLevel) throws AlgorithmExecutionException {
+        ValidationResult validationResult = new ValidationResult(comparisonSuggestionBudget);
+
+        ValidationTask task = new ValidationTask(null);
+        task.split = true;
+        for (LatticeElementLhsPair elementLhsPair : splitLevel) {
+            task.setElementLhsPair(elementLhsPair);
+            validationResult.add(task.call());
+        }
+
+        return validationResult;
+    }
+
     protected abstract boolean isTopDown();
 
     T validate() throws AlgorithmExecutionException {
+        pivotRecords = new long[numAttributes];
+        Arrays.fill(pivotRecords, -1);
         return validateLattice(getLattice(), getInverseLattice());
     }
 
@@ -109,18 +173,7 @@ public abstract class IncrementalValidator<T> {
     protected abstract Lattice getInverseLattice();
 
     private void pruneLevel(Collection<LatticeElementLhsPair> lvl) {
-        Iterator<LatticeElementLhsPair> it = lvl.iterator();
-        while (it.hasNext()) {
-            LatticeElementLhsPair fd = it.next();
-            if (pruneElement(fd)) {
-                validatorResult.pruned += fd.getElement().getRhsFds().cardinality();
-                it.remove();
-            }
-        }
-    }
-
-    private boolean pruneElement(LatticeElementLhsPair fd) {
-        return validationPruners.stream().anyMatch(ps -> ps.doesNotNeedValidation(fd.getLhs(), fd.getElement().getRhsFds()));
+        validatorResult.pruned += pruningController.prune(lvl, validationPruners);
     }
 
     private T validateLattice(Lattice lattice, Lattice inverseLattice) throws AlgorithmExecutionException {
@@ -138,33 +191,18 @@ public abstract class IncrementalValidator<T> {
                 pruneLevel(currentLevel);
                 benchmark.finishSubtask("Pruning");
             }
+            long validationStart = System.nanoTime();
             ValidationResult result = validate(currentLevel);
+            pruningController.validated(System.nanoTime() - validationStart, result.validations);
             receiveResult(result);
             validatorResult.validations += result.validations;
-            int candidates = 0;
             benchmark.finishSubtask("Validation of " + currentLevel.size() + " fds");
-            for (OpenBitSetFD fd : result.collectedFDs) {
-                OpenBitSet lhs = fd.getLhs();
-                if (!isTopDown()) {
-                    // flip lhs back if lattice is negCover
-                    lhs.flip(0, numAttributes);
-                }
-                // fd changed its state, thus add it to inverse lattice
-                OpenBitSet flipped = flip(lhs);
-                int rhs = fd.getRhs();
-                inverseLattice.addFunctionalDependency(flipped, rhs);
-                // there might be generalizations in the inverse lattice
-                // (specializations here because everything is flipped)
-                inverseLattice.removeSpecializations(flipped, rhs);
-                List<OpenBitSet> specializations = generateSpecializations(lhs, rhs);
-                for (OpenBitSet specialization : specializations) {
-                    if (!lattice.containsFdOrGeneralization(specialization, rhs)) {
-                        candidates++;
-                        lattice.addFunctionalDependency(specialization, rhs);
-                    }
-                }
-            }
+            int candidates = induce(result.collectedFDs, lattice, inverseLattice);
             benchmark.finishSubtask("Inducted " + candidates + " candidates from " + result.collectedFDs.size() + " fds");
+            if (memoryGuardian != null) {
+                memoryGuardian.memoryChanged(candidates + result.collectedFDs.size());
+                memoryGuardian.match();
+            }
             int numInvalidFds = result.collectedFDs.size();
             int numValidFds = result.validations - numInvalidFds;
             FDLogger.log(Level.FINER, result.intersections + " intersections; " + result.validations + " validations; " + numInvalidFds + " invalid; " + candidates + " new candidates; --> " + numValidFds + " FDs");
@@ -193,6 +231,60 @@ public abstract class IncrementalValidator<T> {
         return null;
     }
 
+    private int induce(List<OpenBitSetFD> collectedFDs, Lattice lattice, Lattice inverseLattice) throws AlgorithmExecutionException {
+        if (this.executor == null) {
+            return induceSequential(collectedFDs, lattice, inverseLattice);
+        }
+        // The lattices may be updated concurrently for different rhs attributes, so each rhs gets its own task
+        Map<Integer, List<OpenBitSetFD>> fdsByRhs = collectedFDs.stream().collect(Collectors.groupingBy(OpenBitSetFD::getRhs));
+        if (fdsByRhs.size() < 2) {
+            return induceSequential(collectedFDs, lattice, inverseLattice);
+        }
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (List<OpenBitSetFD> fds : fdsByRhs.values()) {
+            futures.add(this.executor.submit(() -> induceSequential(fds, lattice, inverseLattice)));
+        }
+
+        int candidates = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                candidates += future.get();
+            } catch (ExecutionException | InterruptedException e) {
+                this.executor.shutdownNow();
+                e.printStackTrace();
+                throw new AlgorithmExecutionException(e.getMessage());
+            }
+        }
+        return candidates;
+    }
+
+    private int induceSequential(List<OpenBitSetFD> collectedFDs, Lattice lattice, Lattice inverseLattice) {
+        int candidates = 0;
+        for (OpenBitSetFD fd : collectedFDs) {
+            OpenBitSet lhs = fd.getLhs();
+            if (!isTopDown()) {
+                // flip lhs back if lattice is negCover
+                lhs.flip(0, numAttributes);
+            }
+            // fd changed its state, thus add it to inverse lattice
+            OpenBitSet flipped = flip(lhs);
+            int rhs = fd.getRhs();
+            inverseLattice.addFunctionalDependency(flipped, rhs);
+            // there might be generalizations in the inverse lattice
+            // (specializations here because everything is flipped)
+            inverseLattice.removeSpecializations(flipped, rhs);
+            List<OpenBitSet> specializations = generateSpecializations(lhs, rhs);
+            for (OpenBitSet specialization : specializations) {
+                if (!lattice.containsFdOrGeneralization(specialization, rhs)) {
+                    candidates++;
+                    lattice.addFunctionalDependency(specialization, rhs);
+                }
+            }
+        }
+        return candidates;
+    }
+
     protected abstract void receiveResult(ValidationResult result);
 
     protected abstract T interrupt();
@@ -208,7 +300,7 @@ public abstract class IncrementalValidator<T> {
 
     protected abstract List<OpenBitSet> generateSpecializations(OpenBitSet lhs, int rhs);
 
-    private OpenBitSet flip(OpenBitSet lhs) {
+    protected OpenBitSet flip(OpenBitSet lhs) {
         OpenBitSet flipped = lhs.clone();
         flipped.flip(0, numAttributes);
         return flipped;
@@ -218,14 +310,22 @@ public abstract class IncrementalValidator<T> {
         return (this.executor == null) ? this.validateSequential(currentLevel) : this.validateParallel(currentLevel);
     }
 
-    protected abstract void validRhs(LatticeElement elem, int rhs);
+    protected abstract void validRhs(LatticeElement elem, OpenBitSet lhs, int rhs);
 
-    protected abstract void invalidRhs(LatticeElement elem, int rhs);
+    protected abstract void invalidRhs(LatticeElement elem, OpenBitSet lhs, int rhs);
 
     static class ValidatorResult {
         private int validations = 0;
         private int pruned = 0;
 
+        ValidatorResult() {
+        }
+
+        ValidatorResult(int validations, int pruned) {
+            this.validations = validations;
+            this.pruned = pruned;
+        }
+
         int getValidations() {
             return validations;
         }
@@ -236,11 +336,19 @@ public abstract class IncrementalValidator<T> {
     }
 
     protected static class ValidationResult {
-        public final List<IntegerPair> comparisonSuggestions = new ArrayList<>();
+        public final ComparisonSuggestions comparisonSuggestions;
         final List<OpenBitSetFD> collectedFDs = new ArrayList<>();
         int validations = 0;
         int intersections = 0;
 
+        ValidationResult() {
+            this(ComparisonSuggestions.UNBOUNDED);
+        }
+
+        ValidationResult(int comparisonSuggestionBudget) {
+            this.comparisonSuggestions = new ComparisonSuggestions(comparisonSuggestionBudget);
+        }
+
         public void add(ValidationResult other) {
             this.validations += other.validations;
             this.intersections += other.intersections;
@@ -251,6 +359,7 @@ public abstract class IncrementalValidator<T> {
 
     private class ValidationTask implements Callable<ValidationResult> {
         private LatticeElementLhsPair elementLhsPair;
+        private boolean split = false;
 
         ValidationTask(LatticeElementLhsPair elementLhsPair) {
             this.elementLhsPair = elementLhsPair;
@@ -260,7 +369,7 @@ public abstract class IncrementalValidator<T> {
             this.elementLhsPair = elementLhsPair;
         }
 
-        public ValidationResult call() throws Exception {
+        public ValidationResult call() throws AlgorithmExecutionException {
 
             LatticeElement element = this.elementLhsPair.getElement();
             OpenBitSet lhs = this.elementLhsPair.getLhs();
@@ -269,19 +378,22 @@ public abstract class IncrementalValidator<T> {
             ValidationCallback valid = (_lhs, rhsAttr, collectedFDs) -> handleValidRhs(element, lhs, rhsAttr, collectedFDs);
             ValidationCallback invalid = (_lhs, rhsAttr, collectedFDs) -> handleInvalidRhs(element, lhs, rhsAttr, collectedFDs);
             ActualValidator validator = new ActualValidator(plis, compressedRecords, numRecords, valid, invalid, !isTopDown());
+            if (split) {
+                validator.setSplitExecutor(executor, numThreads);
+            }
 
             return validator.validate(lhs, rhs);
         }
 
         private void handleValidRhs(LatticeElement element, OpenBitSet lhs, int rhsAttr, List<OpenBitSetFD> collectedFDs) {
-            validRhs(element, rhsAttr);
+            validRhs(element, lhs, rhsAttr);
             if (!isTopDown()) {
                 collectedFDs.add(new OpenBitSetFD(lhs.clone(), rhsAttr));
             }
         }
 
         private void handleInvalidRhs(LatticeElement element, OpenBitSet lhs, int rhsAttr, List<OpenBitSetFD> collectedFDs) {
-            invalidRhs(element, rhsAttr);
+            invalidRhs(element, lhs, rhsAttr);
             if (isTopDown()) {
                 collectedFDs.add(new OpenBitSetFD(lhs.clone(), rhsAttr));
             }
@@ -0,0 +1,8 @@
+package org.mp.naumann.algorithms.fd.incremental;
+
+/**
+ * Structures that the memory guardian of {@link IncrementalFD} gives up, in the order they are dropped.
+ */
+public enum MemoryDegradation {
+    AGREE_SETS, BLOOM_FILTER, COMPARISON_SUGGESTIONS, LHS_DEPTH
+}
@@ -2,13 +2,21 @@ package org.mp.naumann.algorithms.fd.incremental;
 
 import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.benchmark.speed.Benchmark;
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
 import org.mp.naumann.algorithms.fd.incremental.ActualValidator.ValidationCallback;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.PositionListIndex;
 import org.mp.naumann.algorithms.fd.incremental.structures.Lattice;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 class NonFDInductor {
 
@@ -19,10 +27,16 @@ class NonFDInductor {
     private final Lattice posCover;
     private final int numAttributes;
     private final float efficiencyThreshold;
+    private final Map<OpenBitSetFD, Boolean> validationOutcomes = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
 
+    /**
+     * @param executor The executor to walk the FDs of different rhs attributes on, or null to walk them
+     *                 sequentially. It is owned by the caller and not shut down by the inductor.
+     */
     NonFDInductor(Lattice posCover, Lattice negCover,
                   List<? extends PositionListIndex> plis, CompressedRecords compressedRecords,
-                  int numRecords, float efficiencyThreshold) {
+                  int numRecords, float efficiencyThreshold, ExecutorService executor) {
         this.numAttributes = compressedRecords.getNumAttributes();
         this.plis = plis;
         this.compressedRecords = compressedRecords;
@@ -30,10 +44,40 @@ class NonFDInductor {
         this.posCover = posCover;
         this.inductor = new IncrementalInductor(negCover, posCover, numAttributes);
         this.efficiencyThreshold = efficiencyThreshold;
+        this.executor = executor;
     }
 
-    void findFDs(List<OpenBitSetFD> fds) {
+    void findFDs(List<OpenBitSetFD> fds) throws AlgorithmExecutionException {
         Benchmark benchmark = Benchmark.start("Depth first for " + fds.size() + " FDs", Benchmark.DEFAULT_LEVEL + 7);
+        if (this.executor == null) {
+            findFDsSequential(fds);
+        } else {
+            findFDsParallel(fds);
+        }
+        benchmark.finish();
+    }
+
+    private void findFDsParallel(List<OpenBitSetFD> fds) throws AlgorithmExecutionException {
+        Map<Integer, List<OpenBitSetFD>> fdsByRhs = fds.stream().collect(Collectors.groupingBy(OpenBitSetFD::getRhs));
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<OpenBitSetFD> rhsFds : fdsByRhs.values()) {
+            futures.add(this.executor.submit(() -> findFDsSequential(rhsFds)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new AlgorithmExecutionException(e.getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new AlgorithmExecutionException(e.getMessage(), e);
+        }
+    }
+
+    private void findFDsSequential(List<OpenBitSetFD> fds) {
         int i = 0;
         int total = 0;
         int belowExpectation = 0;
@@ -51,29 +95,43 @@ class NonFDInductor {
                 break;
             }
         }
-        benchmark.finish();
     }
 
     private int generalize(OpenBitSet lhs, int rhs, int nextLhsAttr) {
         for (int lhsAttr = lhs.nextSetBit(nextLhsAttr); lhsAttr >= 0;
              lhsAttr = lhs.nextSetBit(lhsAttr + 1)) {
-            AtomicBoolean wasValid = new AtomicBoolean();
             OpenBitSet genLhs = lhs.clone();
             genLhs.fastClear(lhsAttr);
-            if (!posCover.containsFdOrGeneralization(genLhs, rhs)) {
-                ValidationCallback valid = (_lhs, rhsAttr, collectedFDs) -> wasValid.set(true);
-                ValidationCallback invalid = (_lhs, rhsAttr, collectedFDs) -> wasValid.set(false);
-                ActualValidator validator = new ActualValidator(plis, compressedRecords, numRecords,
-                        valid, invalid, true);
-                validator.validate(genLhs, rhs);
-                if (wasValid.get()) {
-                    return generalize(genLhs, rhs, lhsAttr + 1);
-                }
+            if (!posCover.containsFdOrGeneralization(genLhs, rhs) && isValid(genLhs, rhs)) {
+                return generalize(genLhs, rhs, lhsAttr + 1);
             }
         }
         return deduceDependencies(lhs, rhs);
     }
 
+    private boolean isValid(OpenBitSet lhs, int rhs) {
+        // The data does not change within a batch, so outcomes can be shared between overlapping walks.
+        // Validating outside of the map keeps other walks from blocking on it, at the risk of validating twice.
+        OpenBitSetFD fd = new OpenBitSetFD(lhs, rhs);
+        Boolean outcome = validationOutcomes.get(fd);
+        if (outcome != null) {
+            return outcome;
+        }
+        AtomicBoolean wasValid = new AtomicBoolean();
+        ValidationCallback valid = (_lhs, rhsAttr, collectedFDs) -> wasValid.set(true);
+        ValidationCallback invalid = (_lhs, rhsAttr, collectedFDs) -> wasValid.set(false);
+        ActualValidator validator = new ActualValidator(plis, compressedRecords, numRecords,
+                valid, invalid, true);
+        try {
+            validator.validate(lhs, rhs);
+        } catch (AlgorithmExecutionException e) {
+            e.printStackTrace();
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        validationOutcomes.putIfAbsent(fd, wasValid.get());
+        return wasValid.get();
+    }
+
     private int deduceDependencies(OpenBitSet lhs, int rhs) {
         OpenBitSet flipped = lhs.clone();
         flipped.flip(0, numAttributes);
@@ -62,12 +62,13 @@ public class NonFDValidator extends IncrementalValidator<List<OpenBitSetFD>> {
     }
 
     @Override
-    protected void validRhs(LatticeElement elem, int rhs) {
-        elem.removeFd(rhs);
+    protected void validRhs(LatticeElement elem, OpenBitSet lhs, int rhs) {
+        // the lattice holds the flipped lhs, which only its index would read
+        nonFds.removeFunctionalDependency(elem, nonFds.isIndexed() ? flip(lhs) : lhs, rhs);
     }
 
     @Override
-    protected void invalidRhs(LatticeElement elem, int rhs) {
+    protected void invalidRhs(LatticeElement elem, OpenBitSet lhs, int rhs) {
         // No-op
     }
 }
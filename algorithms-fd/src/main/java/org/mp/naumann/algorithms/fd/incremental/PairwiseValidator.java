@@ -0,0 +1,192 @@
+package org.mp.naumann.algorithms.fd.incremental;
+
+import org.apache.lucene.util.OpenBitSet;
+import org.mp.naumann.algorithms.fd.FDLogger;
+import org.mp.naumann.algorithms.fd.hyfd.FDList;
+import org.mp.naumann.algorithms.fd.incremental.IncrementalValidator.ValidatorResult;
+import org.mp.naumann.algorithms.fd.incremental.datastructures.PositionListIndex;
+import org.mp.naumann.algorithms.fd.incremental.structures.Lattice;
+import org.mp.naumann.algorithms.fd.utils.ValueComparator;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Validates the FDs after a small insert batch by comparing each inserted record with the records it shares a
+ * cluster with, instead of validating the lattice. An FD with a non-empty lhs can only be invalidated by such a pair,
+ * and an FD with an empty lhs only if its rhs is no longer constant. The agree sets of the pairs are induced into the
+ * positive cover as non-FDs. Whether this is cheaper than validating the lattice is decided per batch from the
+ * measured time per compared pair and per lattice validation. Both are measured before the first decision, and the
+ * lattice is validated again every {@link #SAMPLE_INTERVAL} batches, so the decision can always switch back.
+ */
+class PairwiseValidator {
+
+    // Weight of the measurements of previous batches
+    private static final double DECAY = 0.5;
+    // Number of pairs per record above which the lattice is validated. Each candidate of a level may touch all
+    // records, so this is about the cost of validating a few candidates.
+    private static final int MAX_PAIRS_PER_RECORD = 8;
+    // Number of consecutive pairwise batches after which the lattice is validated to measure it again
+    private static final int SAMPLE_INTERVAL = 8;
+
+    private final int maxInserts;
+    private double pairNanos = 0;
+    private double pairs = 0;
+    private double latticeNanos = 0;
+    private double latticeBatches = 0;
+    private int pairwiseBatches = 0;
+    private ValidatorResult validatorResult = new ValidatorResult();
+
+    /**
+     * @param maxInserts the number of inserted records above which the lattice is always validated
+     */
+    PairwiseValidator(int maxInserts) {
+        this.maxInserts = maxInserts;
+    }
+
+    /**
+     * Returns the number of pairs of an inserted record and a record sharing one of its clusters, counting pairs
+     * that share several clusters once per cluster. Counting stops as soon as there are more pairs than
+     * {@link #shouldValidate} accepts for the given number of records.
+     */
+    long countPairs(Collection<Integer> newRecords, List<? extends PositionListIndex> plis, CompressedRecords compressedRecords,
+                    int numRecords) {
+        long maxPairs = getMaxPairs(numRecords);
+        long numPairs = 0;
+        for (int recordId : newRecords) {
+            int[] record = compressedRecords.get(recordId);
+            for (int attr = 0; attr < record.length; attr++) {
+                if (record[attr] >= 0) {
+                    numPairs += plis.get(attr).getCluster(record[attr]).size() - 1;
+                }
+            }
+            if (numPairs > maxPairs) {
+                break;
+            }
+        }
+        return numPairs;
+    }
+
+    boolean shouldValidate(Collection<Integer> newRecords, long numPairs, int numRecords) {
+        if (newRecords.size() > maxInserts || numPairs > getMaxPairs(numRecords)) {
+            return false;
+        }
+        if (pairs == 0) {
+            // measure the pairs first
+            return pairwise();
+        }
+        if (latticeBatches == 0 || pairwiseBatches >= SAMPLE_INTERVAL) {
+            // measure the lattice, which is otherwise never validated again once the pairs are cheaper
+            return false;
+        }
+        double estimate = numPairs * pairNanos / pairs;
+        if (estimate > latticeNanos / latticeBatches) {
+            return false;
+        }
+        return pairwise();
+    }
+
+    private boolean pairwise() {
+        pairwiseBatches++;
+        return true;
+    }
+
+    private static long getMaxPairs(int numRecords) {
+        return (long) numRecords * MAX_PAIRS_PER_RECORD;
+    }
+
+    /**
+     * Updates the positive cover with the non-FDs introduced by the new records and returns the number of new FDs.
+     */
+    int validate(Collection<Integer> newRecords, List<? extends PositionListIndex> plis, CompressedRecords compressedRecords,
+                 int numRecords, IncrementalMatcher matcher, ValueComparator valueComparator, Lattice fds, FDInductor inductor) {
+        long start = System.nanoTime();
+        int numAttributes = compressedRecords.getNumAttributes();
+        Set<Integer> newRecordSet = new HashSet<>(newRecords);
+        Set<OpenBitSet> seen = new HashSet<>();
+        FDList agreeSets = new FDList(numAttributes, -1);
+        OpenBitSet equalAttrs = new OpenBitSet(numAttributes);
+        long numPairs = 0;
+        for (int recordId : newRecords) {
+            int[] record = compressedRecords.get(recordId);
+            for (int attr = 0; attr < numAttributes; attr++) {
+                if (record[attr] < 0) {
+                    continue;
+                }
+                for (int otherId : plis.get(attr).getCluster(record[attr])) {
+                    // pairs of two new records are compared from the side of the smaller id
+                    if (otherId == recordId || (otherId < recordId && newRecordSet.contains(otherId))) {
+                        continue;
+                    }
+                    // pairs that share several clusters are compared in the first one
+                    if (agreeBefore(record, compressedRecords.get(otherId), attr, valueComparator)) {
+                        continue;
+                    }
+                    numPairs++;
+                    matcher.match(equalAttrs, recordId, otherId);
+                    if (!seen.contains(equalAttrs)) {
+                        OpenBitSet equalAttrsCopy = equalAttrs.clone();
+                        seen.add(equalAttrsCopy);
+                        agreeSets.add(equalAttrsCopy);
+                    }
+                }
+            }
+        }
+
+        int newFds = inductor.updatePositiveCover(agreeSets);
+        // All remaining pairs agree on nothing, which only matters for the rhs that were constant so far
+        OpenBitSet emptyLhs = new OpenBitSet(numAttributes);
+        for (int rhs = 0; rhs < numAttributes; rhs++) {
+            if (fds.containsFdOrGeneralization(emptyLhs, rhs) && !plis.get(rhs).isConstant(numRecords)) {
+                newFds += inductor.updatePositiveCover(emptyLhs, rhs);
+            }
+        }
+
+        long nanos = System.nanoTime() - start;
+        pairsValidated(nanos, numPairs);
+        validatorResult = new ValidatorResult((int) Math.min(numPairs, Integer.MAX_VALUE), 0);
+        FDLogger.log(Level.FINER, String.format("Compared %s pairs with %s distinct agree sets in %.2f ms, %s new FDs",
+                numPairs, seen.size(), nanos / 1e6, newFds));
+        return newFds;
+    }
+
+    private static boolean agreeBefore(int[] t1, int[] t2, int attr, ValueComparator valueComparator) {
+        for (int i = 0; i < attr; i++) {
+            if (valueComparator.isEqual(t1[i], t2[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of compared pairs of the last batch that was validated pairwise.
+     */
+    ValidatorResult getValidatorResult() {
+        return validatorResult;
+    }
+
+    void pairsValidated(long nanos, long numPairs) {
+        pairNanos += nanos;
+        pairs += Math.max(numPairs, 1);
+    }
+
+    void latticeValidated(long nanos) {
+        latticeNanos += nanos;
+        latticeBatches++;
+        pairwiseBatches = 0;
+    }
+
+    /**
+     * Lets older batches count less towards future decisions.
+     */
+    void nextBatch() {
+        pairNanos *= DECAY;
+        pairs *= DECAY;
+        latticeNanos *= DECAY;
+        latticeBatches *= DECAY;
+    }
+}
@@ -0,0 +1,198 @@
+package org.mp.naumann.algorithms.fd.incremental;
+
+import org.mp.naumann.algorithms.fd.FDLogger;
+import org.mp.naumann.algorithms.fd.incremental.pruning.ValidationPruner;
+import org.mp.naumann.algorithms.fd.incremental.structures.LatticeElementLhsPair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Decides which {@link ValidationPruner}s are asked about a candidate, and in which order. For each pruner, it keeps
+ * the time spent in the pruner, the candidates it pruned and the validation time these would have cost. Pruners are
+ * asked in ascending order of time spent per pruned candidate. A pruner whose saved validation time drops below its
+ * cost is disabled, but still probed on every {@link #PROBE_INTERVAL}th candidate so that it can be re-enabled.
+ * Costs and savings are compared per checked candidate, so a few probes weigh as much as the checks of an enabled
+ * pruner, and the maintenance of a pruner is only charged while it is enabled.
+ * Strategies create a new pruner for every batch, so the statistics are kept per name of the strategy, which each
+ * strategy supplies along with its pruner.
+ * Skipping a pruner only means less pruning, so none of these decisions can change the result.
+ */
+class PruningController {
+
+    private static final int PROBE_INTERVAL = 16;
+    // Number of checks before a pruner is judged, low enough to be reached by the probes of a disabled pruner
+    private static final double MIN_CHECKS = 64;
+    // Weight of the statistics of previous batches
+    private static final double DECAY = 0.5;
+
+    private final boolean adaptive;
+    private final Map<String, PrunerStats> stats = new HashMap<>();
+    private double validationNanos = 0;
+    private double validations = 0;
+
+    PruningController(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Removes the candidates of the level that do not need validation and returns the number of pruned rhs.
+     */
+    int prune(Collection<LatticeElementLhsPair> level, Map<String, ValidationPruner> pruners) {
+        if (!adaptive) {
+            return pruneAll(level, pruners.values());
+        }
+        List<PrunerStats> ordered = new ArrayList<>(pruners.size());
+        for (Map.Entry<String, ValidationPruner> pruner : pruners.entrySet()) {
+            PrunerStats prunerStats = getStats(pruner.getKey());
+            prunerStats.pruner = pruner.getValue();
+            prunerStats.judge(getValidationNanosPerRhs());
+            ordered.add(prunerStats);
+        }
+        ordered.sort(Comparator.comparingDouble(PrunerStats::getNanosPerPrune));
+
+        int pruned = 0;
+        int candidate = 0;
+        Iterator<LatticeElementLhsPair> it = level.iterator();
+        while (it.hasNext()) {
+            LatticeElementLhsPair fd = it.next();
+            boolean probe = candidate++ % PROBE_INTERVAL == 0;
+            for (PrunerStats prunerStats : ordered) {
+                if (!prunerStats.enabled && !probe) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                boolean prune = prunerStats.pruner.doesNotNeedValidation(fd.getLhs(), fd.getElement().getRhsFds());
+                long rhs = prune ? fd.getElement().getRhsFds().cardinality() : 0;
+                prunerStats.checked(System.nanoTime() - start, rhs);
+                if (prune) {
+                    pruned += rhs;
+                    it.remove();
+                    break;
+                }
+            }
+        }
+        return pruned;
+    }
+
+    private int pruneAll(Collection<LatticeElementLhsPair> level, Collection<ValidationPruner> pruners) {
+        int pruned = 0;
+        Iterator<LatticeElementLhsPair> it = level.iterator();
+        while (it.hasNext()) {
+            LatticeElementLhsPair fd = it.next();
+            if (pruners.stream().anyMatch(ps -> ps.doesNotNeedValidation(fd.getLhs(), fd.getElement().getRhsFds()))) {
+                pruned += fd.getElement().getRhsFds().cardinality();
+                it.remove();
+            }
+        }
+        return pruned;
+    }
+
+    void validated(long nanos, int validations) {
+        this.validationNanos += nanos;
+        this.validations += validations;
+    }
+
+    /**
+     * Adds time that was spent to keep the named pruner up to date, e.g. to maintain a bloom filter, to its cost
+     * while it is enabled.
+     */
+    void maintained(String name, long nanos) {
+        if (adaptive) {
+            PrunerStats prunerStats = getStats(name);
+            if (prunerStats.enabled) {
+                prunerStats.maintenanceNanos += nanos;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the named pruner is asked about every candidate, or only probed.
+     */
+    boolean isEnabled(String name) {
+        PrunerStats prunerStats = stats.get(name);
+        return prunerStats == null || prunerStats.enabled;
+    }
+
+    /**
+     * Logs the statistics of the finished batch and lets older batches count less towards future decisions.
+     */
+    void nextBatch() {
+        if (!adaptive) {
+            return;
+        }
+        double validationNanosPerRhs = getValidationNanosPerRhs();
+        for (Map.Entry<String, PrunerStats> entry : stats.entrySet()) {
+            PrunerStats prunerStats = entry.getValue();
+            FDLogger.log(Level.FINER, String.format("%s: %.0f checks, %.0f pruned, %.2f ms spent, %.2f ms saved, %s",
+                    entry.getKey(), prunerStats.checks, prunerStats.prunedRhs, (prunerStats.nanos + prunerStats.maintenanceNanos) / 1e6,
+                    prunerStats.prunedRhs * validationNanosPerRhs / 1e6, prunerStats.enabled ? "enabled" : "disabled"));
+            prunerStats.decay();
+            prunerStats.pruner = null;
+        }
+        validationNanos *= DECAY;
+        validations *= DECAY;
+    }
+
+    private double getValidationNanosPerRhs() {
+        return validations > 0 ? validationNanos / validations : 0;
+    }
+
+    private PrunerStats getStats(String name) {
+        return stats.computeIfAbsent(name, k -> new PrunerStats());
+    }
+
+    private static class PrunerStats {
+
+        private ValidationPruner pruner;
+        private boolean enabled = true;
+        private double checks = 0;
+        private double nanos = 0;
+        private double maintenanceNanos = 0;
+        private double prunedCandidates = 0;
+        private double prunedRhs = 0;
+
+        void checked(long nanos, long rhs) {
+            this.checks++;
+            this.nanos += nanos;
+            if (rhs > 0) {
+                this.prunedCandidates++;
+                this.prunedRhs += rhs;
+            }
+        }
+
+        void judge(double validationNanosPerRhs) {
+            if (checks >= MIN_CHECKS && validationNanosPerRhs > 0) {
+                double savedPerCheck = prunedRhs * validationNanosPerRhs / checks;
+                double costPerCheck = (nanos + maintenanceNanos) / checks;
+                enabled = savedPerCheck >= costPerCheck;
+                if (!enabled) {
+                    // the maintenance of a disabled pruner is not charged, so it starts over once re-enabled
+                    maintenanceNanos = 0;
+                }
+            }
+        }
+
+        double getNanosPerPrune() {
+            if (checks == 0) {
+                // measure new pruners first
+                return 0;
+            }
+            return prunedCandidates > 0 ? nanos / prunedCandidates : Double.MAX_VALUE;
+        }
+
+        void decay() {
+            checks *= DECAY;
+            nanos *= DECAY;
+            maintenanceNanos *= DECAY;
+            prunedCandidates *= DECAY;
+            prunedRhs *= DECAY;
+        }
+    }
+}
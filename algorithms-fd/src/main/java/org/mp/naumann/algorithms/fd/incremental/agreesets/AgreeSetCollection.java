@@ -1,64 +1,160 @@
 package org.mp.naumann.algorithms.fd.incremental.agreesets;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.util.Collections;
 import java.util.Set;
 import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.fd.incremental.CompressedDiff;
-import org.mp.naumann.algorithms.fd.incremental.Factory;
 
+/**
+ * Collects the agree sets of compared record pairs together with the pairs that produced them. Agree sets are
+ * interned to int ids, and each pair is packed into a long. The pairs of an agree set can be capped, in which case the
+ * oldest pair is evicted for a new one. Losing pairs only makes agree sets disappear earlier, which reduces pruning
+ * but never makes it wrong.
+ */
 public class AgreeSetCollection {
 
-    private final Map<OpenBitSet, ViolationSet> violations = new HashMap<>();
-    private final Multimap<Integer, OpenBitSet> index = HashMultimap.create();
-    private final Factory<ViolationSet> factory;
+    private static final int NO_ID = -1;
 
-    public AgreeSetCollection(Factory<ViolationSet> factory) {
-        this.factory = factory;
+    private final int violationCollectionSize;
+    private final Object2IntOpenHashMap<OpenBitSet> ids = new Object2IntOpenHashMap<>();
+    private final ObjectArrayList<OpenBitSet> agreeSets = new ObjectArrayList<>();
+    private final ObjectArrayList<LongLinkedOpenHashSet> violations = new ObjectArrayList<>();
+    private final IntArrayList freeIds = new IntArrayList();
+    // Agree set ids by record. Entries may outlive the pairs they were added for, which only costs a lookup.
+    private final Int2ObjectOpenHashMap<IntArrayList> index = new Int2ObjectOpenHashMap<>();
+    private final Set<OpenBitSet> activeAgreeSets = new ObjectOpenHashSet<>();
+
+    public AgreeSetCollection() {
+        this(0);
+    }
+
+    /**
+     * @param violationCollectionSize maximum number of pairs kept per agree set, or 0 to keep all pairs
+     */
+    public AgreeSetCollection(int violationCollectionSize) {
+        this.violationCollectionSize = violationCollectionSize;
+        this.ids.defaultReturnValue(NO_ID);
     }
 
+    /**
+     * Records that the two records agree exactly on the given attributes. The agree set is copied if it has not been
+     * seen before, so callers may reuse it.
+     */
     public void addAgreeSet(OpenBitSet agreeSet, int rec1, int rec2) {
-        ViolationSet set = violations.computeIfAbsent(agreeSet, k -> factory.create());
-        set.add(rec1, rec2);
-        index.put(rec1, agreeSet);
-        index.put(rec2, agreeSet);
+        int id = ids.getInt(agreeSet);
+        if (id == NO_ID) {
+            id = intern(agreeSet.clone());
+        }
+        LongLinkedOpenHashSet pairs = violations.get(id);
+        long pair = pack(rec1, rec2);
+        if (pairs.contains(pair)) {
+            return;
+        }
+        if (violationCollectionSize > 0 && pairs.size() >= violationCollectionSize) {
+            pairs.removeFirstLong();
+        }
+        pairs.add(pair);
+        addToIndex(rec1, id);
+        addToIndex(rec2, id);
     }
 
+    private int intern(OpenBitSet agreeSet) {
+        int id;
+        if (freeIds.isEmpty()) {
+            id = agreeSets.size();
+            agreeSets.add(agreeSet);
+            violations.add(new LongLinkedOpenHashSet());
+        } else {
+            id = freeIds.popInt();
+            agreeSets.set(id, agreeSet);
+            violations.set(id, new LongLinkedOpenHashSet());
+        }
+        ids.put(agreeSet, id);
+        activeAgreeSets.add(agreeSet);
+        return id;
+    }
+
+    private void addToIndex(int record, int id) {
+        IntArrayList agreeSetIds = index.get(record);
+        if (agreeSetIds == null) {
+            agreeSetIds = new IntArrayList(2);
+            index.put(record, agreeSetIds);
+        }
+        if (!agreeSetIds.contains(id)) {
+            agreeSetIds.add(id);
+        }
+    }
+
+    /**
+     * Removes the pairs with deleted records and returns the agree sets that still have pairs.
+     */
     public Set<OpenBitSet> analyzeDiff(CompressedDiff diff) {
-        Set<OpenBitSet> agreeSets = new HashSet<>(violations.size());
-        Set<Integer> deleted = diff.getDeletedRecords().keySet();
+        IntSet deleted = new IntOpenHashSet(diff.getDeletedRecords().keySet());
+        IntSet affected = new IntOpenHashSet();
         for (int delete : deleted) {
-            Collection<OpenBitSet> removed = index.removeAll(delete);
-            agreeSets.addAll(removed);
+            IntArrayList agreeSetIds = index.remove(delete);
+            if (agreeSetIds != null) {
+                affected.addAll(agreeSetIds);
+            }
         }
-        for (OpenBitSet agreeSet : agreeSets) {
-            ViolationSet set = violations.get(agreeSet);
-            if (set != null) {
-                Iterator<ViolatingPair> it = set.iterator();
-                while (it.hasNext()) {
-                    ViolatingPair pair = it.next();
-                    if (pair.intersects(deleted)) {
-                        it.remove();
-                    }
-                }
-                if (set.isEmpty()) {
-                    violations.remove(agreeSet);
+        for (int id : affected) {
+            LongLinkedOpenHashSet pairs = violations.get(id);
+            if (pairs == null) {
+                continue;
+            }
+            LongIterator it = pairs.iterator();
+            while (it.hasNext()) {
+                long pair = it.nextLong();
+                if (deleted.contains(first(pair)) || deleted.contains(second(pair))) {
+                    it.remove();
                 }
             }
+            if (pairs.isEmpty()) {
+                release(id);
+            }
         }
-        return violations.keySet();
+        return Collections.unmodifiableSet(activeAgreeSets);
     }
 
-    public interface ViolationSet extends Iterable<ViolatingPair> {
+    private void release(int id) {
+        OpenBitSet agreeSet = agreeSets.get(id);
+        ids.removeInt(agreeSet);
+        activeAgreeSets.remove(agreeSet);
+        agreeSets.set(id, null);
+        violations.set(id, null);
+        freeIds.add(id);
+    }
 
-        void add(int a, int b);
+    public void clear() {
+        ids.clear();
+        agreeSets.clear();
+        violations.clear();
+        freeIds.clear();
+        index.clear();
+        activeAgreeSets.clear();
+    }
+
+    private static long pack(int a, int b) {
+        int first = Math.min(a, b);
+        int second = Math.max(a, b);
+        return (long) first << 32 | second & 0xFFFFFFFFL;
+    }
+
+    private static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
 
-        boolean isEmpty();
+    private static int second(long pair) {
+        return (int) pair;
     }
 
 }
@@ -1,6 +1,7 @@
 package org.mp.naumann.algorithms.fd.incremental.datastructures;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -14,6 +15,7 @@ public abstract class AbstractStatementApplier implements StatementVisitor {
 
 	private final Set<Integer> inserted = new HashSet<>();
 	private final Set<Integer> deleted = new HashSet<>();
+	private final Map<Integer, Map<String, String>> values = new HashMap<>();
 
 	@Override
 	public void visit(DeleteStatement delete) {
@@ -33,12 +35,14 @@ public abstract class AbstractStatementApplier implements StatementVisitor {
 	private Collection<Integer> delete(Map<String, String> oldValueMap) {
 		Collection<Integer> removed = removeRecord(oldValueMap);
 		deleted.addAll(removed);
+		removed.forEach(id -> values.put(id, oldValueMap));
 		return removed;
 	}
 
 	private void insert(Map<String, String> newValueMap) {
 		int insertedRecord = addRecord(newValueMap);
 		inserted.add(insertedRecord);
+		values.put(insertedRecord, newValueMap);
 	}
 
 	@Override
@@ -56,6 +60,12 @@ public abstract class AbstractStatementApplier implements StatementVisitor {
 		return deleted;
 	}
 
+	public Map<Integer, Map<String, String>> getValues(Collection<Integer> records) {
+		Map<Integer, Map<String, String>> result = new HashMap<>(records.size());
+		records.forEach(id -> result.put(id, values.get(id)));
+		return result;
+	}
+
 	protected abstract int addRecord(Map<String, String> valueMap);
 
 	protected abstract Collection<Integer> removeRecord(Map<String, String> valueMap);
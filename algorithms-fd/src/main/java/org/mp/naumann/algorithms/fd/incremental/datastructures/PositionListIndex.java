@@ -27,12 +27,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.fd.incremental.CompressedRecords;
+import org.mp.naumann.algorithms.fd.incremental.structures.ComparisonSuggestions;
 import org.mp.naumann.algorithms.fd.structures.ClusterIdentifier;
 import org.mp.naumann.algorithms.fd.structures.ClusterIdentifierWithRecord;
-import org.mp.naumann.algorithms.fd.structures.IntegerPair;
 import org.mp.naumann.algorithms.fd.structures.PLIBuilder;
+import org.mp.naumann.algorithms.fd.structures.ParallelRefinement;
 import org.mp.naumann.algorithms.fd.utils.CollectionUtils;
 import org.mp.naumann.algorithms.fd.utils.PliUtils;
 
@@ -79,10 +81,24 @@ public abstract class PositionListIndex {
 
 
     public boolean refines(CompressedRecords compressedRecords, int rhsAttr, boolean topDown) {
-        Iterator<? extends Collection<Integer>> it = getClustersToCheck(topDown);
-        while (it.hasNext()) {
-            Collection<Integer> cluster = it.next();
+        return refines(compressedRecords, rhsAttr, getClustersToCheck(topDown), null);
+    }
+
+    /**
+     * Checks whether the given clusters of this PLI refine the rhs attribute. If a refinement is given, the check
+     * stops as soon as another range of clusters refuted the rhs and reports its own refutation.
+     */
+    public boolean refines(CompressedRecords compressedRecords, int rhsAttr, Iterator<? extends Collection<Integer>> clusters,
+                           ParallelRefinement refinement) {
+        while (clusters.hasNext()) {
+            if (refinement != null && refinement.isRefuted()) {
+                return false;
+            }
+            Collection<Integer> cluster = clusters.next();
             if (!this.probe(compressedRecords, rhsAttr, cluster)) {
+                if (refinement != null) {
+                    refinement.refute(rhsAttr);
+                }
                 return false;
             }
         }
@@ -108,7 +124,17 @@ public abstract class PositionListIndex {
     }
 
 
-    public OpenBitSet refines(CompressedRecords compressedRecords, OpenBitSet lhs, OpenBitSet rhs, List<IntegerPair> comparisonSuggestions, boolean topDown) {
+    public OpenBitSet refines(CompressedRecords compressedRecords, OpenBitSet lhs, OpenBitSet rhs, ComparisonSuggestions comparisonSuggestions, boolean topDown) {
+        return refines(compressedRecords, lhs, rhs, comparisonSuggestions, topDown, getClustersToCheck(topDown), null);
+    }
+
+    /**
+     * Returns the rhs attributes that are refined by the lhs within the given clusters of this PLI. If a refinement
+     * is given, rhs attributes refuted by other ranges of clusters are skipped and the check stops as soon as all of
+     * them are refuted.
+     */
+    public OpenBitSet refines(CompressedRecords compressedRecords, OpenBitSet lhs, OpenBitSet rhs, ComparisonSuggestions comparisonSuggestions,
+                              boolean topDown, Iterator<? extends Collection<Integer>> clusters, ParallelRefinement refinement) {
         int rhsSize = (int) rhs.cardinality();
         int lhsSize = (int) lhs.cardinality();
 
@@ -127,9 +153,17 @@ public abstract class PositionListIndex {
         }
 
         boolean useInnerClusterPruning = useInnerClusterPruning(topDown);
-        Iterator<? extends Collection<Integer>> it = getClustersToCheck(topDown);
-        while (it.hasNext()) {
-            Collection<Integer> cluster = it.next();
+        int refutations = 0;
+        while (clusters.hasNext()) {
+            if (refinement != null && refinement.getRefutations() != refutations) {
+                if (refinement.isRefuted()) {
+                    refinedRhs.clear(0, refinedRhs.size());
+                    return refinedRhs;
+                }
+                refutations = refinement.getRefutations();
+                refinement.retainRemaining(refinedRhs);
+            }
+            Collection<Integer> cluster = clusters.next();
             Object2ObjectOpenHashMap<ClusterIdentifier, ClusterIdentifierWithRecord> subClusters = new Object2ObjectOpenHashMap<>(cluster.size());
             ObjectOpenHashSet<ClusterIdentifier> haveOldRecord = null;
             if (useInnerClusterPruning) {
@@ -158,9 +192,12 @@ public abstract class PositionListIndex {
                     for (int rhsAttr = refinedRhs.nextSetBit(0); rhsAttr >= 0; rhsAttr = refinedRhs.nextSetBit(rhsAttr + 1)) {
                         int rhsCluster = compressedRecords.get(recordId)[rhsAttr];
                         if ((rhsCluster == PliUtils.UNIQUE_VALUE) || (rhsCluster != rhsClusters.get(rhsAttrId2Index[rhsAttr]))) {
-                            comparisonSuggestions.add(new IntegerPair(recordId, rhsClusters.getRecord()));
+                            comparisonSuggestions.add(recordId, rhsClusters.getRecord());
 
                             refinedRhs.fastClear(rhsAttr);
+                            if (refinement != null) {
+                                refinement.refute(rhsAttr);
+                            }
                             if (refinedRhs.isEmpty()) {
                                 return refinedRhs;
                             }
@@ -202,13 +239,28 @@ public abstract class PositionListIndex {
     }
 
     public Iterator<? extends Collection<Integer>> getClustersToCheck(boolean topDown) {
+        return getClustersToCheckStream(topDown).iterator();
+    }
+
+    public List<Collection<Integer>> getClusterListToCheck(boolean topDown) {
+        return getClustersToCheckStream(topDown).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of records in the clusters returned by {@link #getClusterListToCheck(boolean)}.
+     */
+    public long countRecordsToCheck(boolean topDown) {
+        return getClustersToCheckStream(topDown).mapToLong(Collection::size).sum();
+    }
+
+    private Stream<Collection<Integer>> getClustersToCheckStream(boolean topDown) {
         final Collection<? extends Collection<Integer>> toCheck;
         if (topDown) {
             toCheck = clustersWithNewRecords == null ? getClusters() : clustersWithNewRecords;
         } else {
             toCheck = getClusters();
         }
-        return toCheck.stream().filter(c -> c.size() > 1).iterator();
+        return toCheck.stream().filter(c -> c.size() > 1).<Collection<Integer>>map(c -> c);
     }
 
     private ClusterIdentifier buildClusterIdentifier(OpenBitSet lhs, int lhsSize, int[] record,
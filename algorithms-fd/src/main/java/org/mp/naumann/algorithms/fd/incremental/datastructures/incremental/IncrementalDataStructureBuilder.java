@@ -2,6 +2,7 @@ package org.mp.naumann.algorithms.fd.incremental.datastructures.incremental;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -11,7 +12,6 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.mp.naumann.algorithms.fd.FDLogger;
 import org.mp.naumann.algorithms.fd.incremental.Factory;
 import org.mp.naumann.algorithms.fd.structures.PLIBuilder;
@@ -39,7 +39,13 @@ public class IncrementalDataStructureBuilder implements DataStructureBuilder {
     private final MapCompressedRecords compressedRecords;
     private List<? extends PositionListIndex> plis;
 
-    public IncrementalDataStructureBuilder(PLIBuilder pliBuilder, IncrementalFDConfiguration version, List<String> columns, Factory<Collection<Integer>> clusterFactory) {
+    /**
+     * @param adoptClusters  whether the IntArrayList clusters of HyFD's cluster maps are shared instead of copied
+     *                       into collections of the cluster factory. Shared clusters are updated in place by the
+     *                       batches, so HyFD's cluster maps must not be used afterwards.
+     */
+    public IncrementalDataStructureBuilder(PLIBuilder pliBuilder, IncrementalFDConfiguration version, List<String> columns,
+                                           Factory<Collection<Integer>> clusterFactory, boolean adoptClusters) {
         this.pliOrder = pliBuilder.getPliOrder();
         this.pliBuilder = new IncrementalPLIBuilder(pliOrder);
         this.version = version;
@@ -49,32 +55,47 @@ public class IncrementalDataStructureBuilder implements DataStructureBuilder {
         this.compressedRecords = new MapCompressedRecords(nextRecordId, pliOrder.size());
         this.clusterMapBuilder = new IncrementalClusterMapBuilder(columns.size(), nextRecordId, dictionary,
             clusterFactory);
-        initialize(pliBuilder.getClusterMaps(), nextRecordId, clusterFactory);
+        initialize(pliBuilder.getClusterMaps(), nextRecordId, clusterFactory, adoptClusters);
     }
 
     public IncrementalDataStructureBuilder(PLIBuilder pliBuilder,
         IncrementalFDConfiguration incrementalFDConfiguration, List<String> columns) {
-        this(pliBuilder, incrementalFDConfiguration, columns, IntArrayList::new);
+        this(pliBuilder, incrementalFDConfiguration, columns, IntArrayList::new, false);
     }
 
     private void initialize(List<HashMap<String, IntArrayList>> oldClusterMaps, int nextRecordId,
-        Factory<Collection<Integer>> clusterFactory) {
-        List<Integer> inserted = IntStream.range(0, nextRecordId).boxed().collect(Collectors.toList());
+        Factory<Collection<Integer>> clusterFactory, boolean adoptClusters) {
+        int[] pliPositions = new int[oldClusterMaps.size()];
+        for (int i = 0; i < pliOrder.size(); i++) {
+            pliPositions[pliOrder.get(i)] = i;
+        }
+        // Records without a cluster have a null value that is not equal to other nulls
+        int[][] records = new int[nextRecordId][pliOrder.size()];
+        for (int[] record : records) {
+            Arrays.fill(record, PliUtils.UNIQUE_VALUE);
+        }
         List<Map<Integer, Collection<Integer>>> clusterMaps = new ArrayList<>(oldClusterMaps.size());
-        for (HashMap<String, IntArrayList> oldClusterMap : oldClusterMaps) {
-            Map<Integer, Collection<Integer>> clusterMap = new HashMap<>();
+        for (int column = 0; column < oldClusterMaps.size(); column++) {
+            HashMap<String, IntArrayList> oldClusterMap = oldClusterMaps.get(column);
+            int pliPosition = pliPositions[column];
+            Map<Integer, Collection<Integer>> clusterMap = new HashMap<>(oldClusterMap.size() * 4 / 3 + 1);
             for (Entry<String, IntArrayList> cluster : oldClusterMap.entrySet()) {
                 int dictValue = dictionary.getOrAdd(cluster.getKey());
-                Collection<Integer> newCluster = clusterFactory.create();
-                newCluster.addAll(cluster.getValue());
+                for (int recordId : cluster.getValue()) {
+                    records[recordId][pliPosition] = dictValue;
+                }
+                Collection<Integer> newCluster = cluster.getValue();
+                if (!adoptClusters) {
+                    newCluster = clusterFactory.create();
+                    newCluster.addAll(cluster.getValue());
+                }
                 clusterMap.put(dictValue, newCluster);
             }
             clusterMaps.add(clusterMap);
         }
         plis = pliBuilder.fetchPositionListIndexes(clusterMaps);
-        List<Map<Integer, Integer>> invertedPlis = invertPlis(clusterMaps);
-        for (int recordId : inserted) {
-            compressedRecords.put(recordId, fetchRecordFrom(recordId, invertedPlis));
+        for (int recordId = 0; recordId < nextRecordId; recordId++) {
+            compressedRecords.put(recordId, records[recordId]);
         }
     }
 
@@ -99,7 +120,8 @@ public class IncrementalDataStructureBuilder implements DataStructureBuilder {
         Map<Integer, int[]> insertedDiff = new HashMap<>(inserted.size());
         inserted.forEach(i -> insertedDiff.put(i, getCompressedRecord(i)));
 
-        return new CompressedDiff(insertedDiff, deletedDiff, new HashMap<>(0), new HashMap<>(0));
+        return new CompressedDiff(insertedDiff, deletedDiff, new HashMap<>(0), new HashMap<>(0),
+                applier.getValues(inserted), applier.getValues(deleted));
     }
 
     private void updateDataStructures(Collection<Integer> inserted, Collection<Integer> deleted) {
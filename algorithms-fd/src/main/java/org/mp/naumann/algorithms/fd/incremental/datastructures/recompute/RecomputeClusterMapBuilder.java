@@ -39,15 +39,18 @@ class RecomputeClusterMapBuilder {
     private final Factory<Collection<Integer>> clusterFactory;
 
     RecomputeClusterMapBuilder(ClusterMapBuilder clusterMapBuilder,
-        Factory<Collection<Integer>> clusterFactory) {
+        Factory<Collection<Integer>> clusterFactory, boolean adoptClusters) {
         this.clusterFactory = clusterFactory;
         List<HashMap<String, IntArrayList>> oldClusterMaps = clusterMapBuilder.getClusterMaps();
         clusterMaps = new ArrayList<>();
         for (HashMap<String, IntArrayList> oldClusterMap : oldClusterMaps) {
-            Map<String, Collection<Integer>> clusterMap = new HashMap<>();
+            Map<String, Collection<Integer>> clusterMap = new HashMap<>(oldClusterMap.size() * 4 / 3 + 1);
             for (Entry<String, IntArrayList> entry : oldClusterMap.entrySet()) {
-                Collection<Integer> newCluster = this.clusterFactory.create();
-                newCluster.addAll(entry.getValue());
+                Collection<Integer> newCluster = entry.getValue();
+                if (!adoptClusters) {
+                    newCluster = this.clusterFactory.create();
+                    newCluster.addAll(entry.getValue());
+                }
                 clusterMap.put(entry.getKey(), newCluster);
             }
             clusterMaps.add(clusterMap);
@@ -2,6 +2,7 @@ package org.mp.naumann.algorithms.fd.incremental.datastructures.recompute;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.mp.naumann.algorithms.benchmark.speed.Benchmark;
+import org.mp.naumann.algorithms.fd.FDIntermediateDatastructure;
 import org.mp.naumann.algorithms.fd.incremental.Factory;
 import org.mp.naumann.algorithms.fd.structures.PLIBuilder;
 import org.mp.naumann.algorithms.fd.incremental.CompressedDiff;
@@ -9,6 +10,7 @@ import org.mp.naumann.algorithms.fd.incremental.CompressedRecords;
 import org.mp.naumann.algorithms.fd.incremental.IncrementalFDConfiguration;
 import org.mp.naumann.algorithms.fd.incremental.IncrementalFDConfiguration.PruningStrategy;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.AbstractStatementApplier;
+import org.mp.naumann.algorithms.fd.incremental.datastructures.ArrayCompressedRecords;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.DataStructureBuilder;
 import org.mp.naumann.algorithms.fd.incremental.datastructures.PositionListIndex;
 import org.mp.naumann.algorithms.fd.utils.PliUtils;
@@ -34,17 +36,48 @@ public class RecomputeDataStructureBuilder implements DataStructureBuilder {
     private List<? extends PositionListIndex> plis;
     private CompressedRecords compressedRecords;
 
-    public RecomputeDataStructureBuilder(PLIBuilder pliBuilder, IncrementalFDConfiguration version, List<String> columns, Factory<Collection<Integer>> clusterFactory) {
-        this.pliBuilder = new RecomputePLIBuilder(pliBuilder.getClusterMapBuilder(), pliBuilder.isNullEqualNull(), pliBuilder.getPliOrder(), clusterFactory);
+    /**
+     * @param adoptClusters  whether the IntArrayList clusters of HyFD's cluster maps are shared instead of copied
+     *                       into collections of the cluster factory. Shared clusters are updated in place by the
+     *                       batches, so HyFD's cluster maps must not be used afterwards.
+     */
+    public RecomputeDataStructureBuilder(PLIBuilder pliBuilder, IncrementalFDConfiguration version, List<String> columns, Factory<Collection<Integer>> clusterFactory,
+                                         boolean adoptClusters) {
+        this(pliBuilder, null, version, columns, clusterFactory, adoptClusters);
+    }
+
+    /**
+     * Starts from the plis and compressed records of HyFD instead of computing them again.
+     *
+     * @param adoptClusters  whether the IntArrayList clusters of HyFD's cluster maps are shared instead of copied
+     *                       into collections of the cluster factory. Shared clusters are updated in place by the
+     *                       batches, so HyFD's cluster maps must not be used afterwards.
+     */
+    public RecomputeDataStructureBuilder(FDIntermediateDatastructure intermediateDatastructure, IncrementalFDConfiguration version, List<String> columns, Factory<Collection<Integer>> clusterFactory,
+                                         boolean adoptClusters) {
+        this(intermediateDatastructure.getPliBuilder(), intermediateDatastructure.getCompressedRecords(), version, columns, clusterFactory, adoptClusters);
+    }
+
+    private RecomputeDataStructureBuilder(PLIBuilder pliBuilder, int[][] compressedRecords, IncrementalFDConfiguration version, List<String> columns, Factory<Collection<Integer>> clusterFactory,
+                                          boolean adoptClusters) {
+        this.pliBuilder = new RecomputePLIBuilder(pliBuilder.getClusterMapBuilder(), pliBuilder.isNullEqualNull(), pliBuilder.getPliOrder(), clusterFactory, adoptClusters);
         this.version = version;
         this.columns = columns;
         recordIds = IntStream.range(0, pliBuilder.getNumLastRecords()).boxed().collect(Collectors.toSet());
-        updateDataStructures();
+        if (compressedRecords == null) {
+            updateDataStructures();
+        } else {
+            // HyFD encodes records in the same way, so its structures can be taken over
+            plis = pliBuilder.fetchPositionListIndexes().stream()
+                    .map(pli -> new ListPositionListIndex(pli.getAttribute(), pli.getClusters()))
+                    .collect(Collectors.toList());
+            this.compressedRecords = new ArrayCompressedRecords(compressedRecords, plis.size());
+        }
     }
 
     public RecomputeDataStructureBuilder(PLIBuilder pliBuilder,
         IncrementalFDConfiguration incrementalFDConfiguration, List<String> columns) {
-        this(pliBuilder, incrementalFDConfiguration, columns, IntArrayList::new);
+        this(pliBuilder, incrementalFDConfiguration, columns, IntArrayList::new, false);
     }
 
     @Override
@@ -75,7 +108,8 @@ public class RecomputeDataStructureBuilder implements DataStructureBuilder {
         inserted.forEach(i -> insertedDiff.put(i, getCompressedRecord(i)));
 
         benchmark.finish();
-        return new CompressedDiff(insertedDiff, deletedDiff, new HashMap<>(0), new HashMap<>(0));
+        return new CompressedDiff(insertedDiff, deletedDiff, new HashMap<>(0), new HashMap<>(0),
+                applier.getValues(inserted), applier.getValues(deleted));
     }
 
     private int[] getCompressedRecord(int record) {
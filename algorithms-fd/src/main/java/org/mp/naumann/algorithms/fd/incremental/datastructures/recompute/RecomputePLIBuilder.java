@@ -31,8 +31,8 @@ class RecomputePLIBuilder {
 
     RecomputePLIBuilder(ClusterMapBuilder clusterMapBuilder, boolean isNullEqualNull,
         List<Integer> pliOrder,
-        Factory<Collection<Integer>> clusterFactory) {
-        this.clusterMapBuilder = new RecomputeClusterMapBuilder(clusterMapBuilder, clusterFactory);
+        Factory<Collection<Integer>> clusterFactory, boolean adoptClusters) {
+        this.clusterMapBuilder = new RecomputeClusterMapBuilder(clusterMapBuilder, clusterFactory, adoptClusters);
         this.isNullEqualNull = isNullEqualNull;
         this.pliOrder = pliOrder;
     }
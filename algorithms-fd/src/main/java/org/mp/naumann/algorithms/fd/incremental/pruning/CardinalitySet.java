@@ -7,9 +7,17 @@ import org.apache.lucene.util.OpenBitSet;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Set of attribute sets, grouped by their cardinality. Subset and superset queries are answered by a bit-sliced
+ * index that keeps, for each attribute, the ids of the stored sets containing it. A query thus combines one slice per
+ * attribute instead of comparing against every stored set.
+ */
 public class CardinalitySet {
 
     private final List<ObjectOpenHashSet<OpenBitSet>> levels;
+    private final List<OpenBitSet> sets = new ArrayList<>();
+    private final List<OpenBitSet> slices = new ArrayList<>();
+    private final OpenBitSet allSets = new OpenBitSet();
 
     private int depth = 0;
     private int maxDepth;
@@ -32,12 +40,87 @@ public class CardinalitySet {
         if ((this.maxDepth > 0) && (length > this.maxDepth))
             return false;
 
+        if (!this.levels.get(length).add(fd))
+            return false;
+
         this.depth = Math.max(this.depth, length);
-        return this.levels.get(length).add(fd);
+        int id = sets.size();
+        sets.add(fd);
+        allSets.set(id);
+        for (int attribute = fd.nextSetBit(0); attribute >= 0; attribute = fd.nextSetBit(attribute + 1)) {
+            while (slices.size() <= attribute) {
+                slices.add(new OpenBitSet());
+            }
+            slices.get(attribute).set(id);
+        }
+        return true;
     }
 
     public ObjectOpenHashSet<OpenBitSet> getLevel(int level) {
         return levels.get(level);
     }
 
+    /**
+     * Returns whether any stored set contains all attributes of the given set.
+     */
+    public boolean containsSuperset(OpenBitSet set) {
+        return !findSupersets(set).isEmpty();
+    }
+
+    /**
+     * Returns whether each of the given attributes is missing from at least one stored set that contains all
+     * attributes of the given set. Without attributes, it returns whether there is any such set.
+     */
+    public boolean hasSupersetsLackingEach(OpenBitSet set, OpenBitSet attributes) {
+        OpenBitSet ids = findSupersets(set);
+        if (ids.isEmpty()) {
+            return false;
+        }
+        for (int attribute = attributes.nextSetBit(0); attribute >= 0; attribute = attributes.nextSetBit(attribute + 1)) {
+            if (attribute < slices.size() && OpenBitSet.andNotCount(ids, slices.get(attribute)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the stored sets that contain all attributes of the given set, including the set itself.
+     */
+    public List<OpenBitSet> getSupersets(OpenBitSet set) {
+        return collect(findSupersets(set));
+    }
+
+    /**
+     * Returns the stored sets whose attributes are all contained in the given set, including the set itself.
+     */
+    public List<OpenBitSet> getSubsets(OpenBitSet set) {
+        OpenBitSet ids = allSets.clone();
+        for (int attribute = 0; attribute < slices.size() && !ids.isEmpty(); attribute++) {
+            if (!set.get(attribute)) {
+                ids.andNot(slices.get(attribute));
+            }
+        }
+        return collect(ids);
+    }
+
+    private OpenBitSet findSupersets(OpenBitSet set) {
+        OpenBitSet ids = allSets.clone();
+        for (int attribute = set.nextSetBit(0); attribute >= 0 && !ids.isEmpty(); attribute = set.nextSetBit(attribute + 1)) {
+            if (attribute >= slices.size()) {
+                return new OpenBitSet();
+            }
+            ids.and(slices.get(attribute));
+        }
+        return ids;
+    }
+
+    private List<OpenBitSet> collect(OpenBitSet ids) {
+        List<OpenBitSet> result = new ArrayList<>((int) ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            result.add(sets.get(id));
+        }
+        return result;
+    }
+
 }
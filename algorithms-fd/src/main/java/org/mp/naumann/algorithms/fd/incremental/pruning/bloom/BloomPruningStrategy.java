@@ -1,63 +1,61 @@
 package org.mp.naumann.algorithms.fd.incremental.pruning.bloom;
 
-import com.google.common.hash.BloomFilter;
-
 import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.fd.FDLogger;
+import org.mp.naumann.algorithms.fd.incremental.CompressedDiff;
 import org.mp.naumann.algorithms.fd.incremental.pruning.CardinalitySet;
 import org.mp.naumann.algorithms.fd.incremental.pruning.ValidationPruner;
 import org.mp.naumann.algorithms.fd.utils.BitSetUtils;
-import org.mp.naumann.database.statement.InsertStatement;
-import org.mp.naumann.database.statement.UpdateStatement;
-import org.mp.naumann.processor.batch.Batch;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
-public class BloomPruningStrategy {
+public class BloomPruningStrategy implements AutoCloseable {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    // Leave room for the records inserted after initialization
+    private static final int GROWTH_FACTOR = 2;
+    // Number of combination hashes below which distributing the work costs more than it saves
+    private static final long PARALLELISM_THRESHOLD = 100_000;
+    private static final int RECORDS_PER_TASK = 4096;
 
     private final List<String> columns;
+    private final boolean parallel;
     private final Collection<BloomGenerator> generators = new ArrayList<>();
-    private BloomFilter<Collection<ColumnValue>> filter;
-    private int puts = 0;
-    private int requests = 0;
-    private Map<OpenBitSet, List<Integer>> combinations;
-    private int bloomViolations = 0;
-    private int innerViolations = 0;
+    private CountingBloomFilter filter;
+    private long puts = 0;
+    private long removes = 0;
+    private final AtomicInteger requests = new AtomicInteger();
+    private OpenBitSet[] combinations = new OpenBitSet[0];
+    private int[][] combinationColumns = new int[0][];
+    private final AtomicInteger bloomViolations = new AtomicInteger();
+    private final AtomicInteger innerViolations = new AtomicInteger();
+    private ExecutorService executor;
 
     public BloomPruningStrategy(List<String> columns) {
-        this.columns = columns;
+        this(columns, false);
     }
 
-    private List<String[]> invertRecords(int numRecords, List<HashMap<String, IntArrayList>> clusterMaps, List<Integer> pliOrder) {
-        FDLogger.log(Level.FINER, "Inverting records...");
-        List<String[]> invertedRecords = new ArrayList<>(numRecords);
-        for (int i = 0; i < numRecords; i++) {
-            invertedRecords.add(new String[columns.size()]);
-        }
-        int i = 0;
-        for (int columnId : pliOrder) {
-            HashMap<String, IntArrayList> clusterMap = clusterMaps.get(columnId);
-            for (Entry<String, IntArrayList> entry : clusterMap.entrySet()) {
-                for (int id : entry.getValue()) {
-                    invertedRecords.get(id)[i] = entry.getKey();
-                }
-            }
-            i++;
-        }
-        FDLogger.log(Level.FINER, "Finished inverting records");
-        return invertedRecords;
+    public BloomPruningStrategy(List<String> columns, boolean parallel) {
+        this.columns = columns;
+        this.parallel = parallel;
     }
 
     public BloomPruningStrategy addGenerator(BloomGenerator generator) {
@@ -65,109 +63,224 @@ public class BloomPruningStrategy {
         return this;
     }
 
-    public ValidationPruner analyzeBatch(Batch batch) {
-        List<InsertStatement> inserts = batch.getInsertStatements();
-        List<UpdateStatement> updates = batch.getUpdateStatements();
-        int oldRequest = requests;
-        int oldBloomViolations = bloomViolations;
-        int oldInnerViolations = innerViolations;
-        CardinalitySet nonViolations = new CardinalitySet(columns.size());
-        for (Entry<OpenBitSet, List<Integer>> combination : combinations.entrySet()) {
-            boolean isUniqueCombination = isUniqueCombination(inserts, updates, combination.getValue());
-            if (isUniqueCombination) {
-                nonViolations.add(combination.getKey());
-                FDLogger.log(Level.FINEST, "All combinations new for columns " + combination.getValue());
-            }
+    /**
+     * Brings the filter in line with the diff and returns a pruner for the validation of its inserts. Deleted
+     * records, which include the old side of updates, are removed from the filter before the inserted records are
+     * checked against it, and the inserted records are added afterwards.
+     */
+    public ValidationPruner analyzeDiff(CompressedDiff diff) {
+        List<long[]> deletes = diff.getDeletedValues().values().stream()
+                .map(this::encode).collect(Collectors.toList());
+        List<long[]> inserts = diff.getInsertedValues().values().stream()
+                .map(this::encode).collect(Collectors.toList());
+        int oldRequest = requests.get();
+        int oldBloomViolations = bloomViolations.get();
+        int oldInnerViolations = innerViolations.get();
+        // Combinations use disjoint hashes, so each one can be brought up to date on its own. Updates of other
+        // combinations can only add false positives to a check, which never causes wrong pruning.
+        List<Callable<Boolean>> tasks = new ArrayList<>(combinations.length);
+        for (int combination = 0; combination < combinations.length; combination++) {
+            int current = combination;
+            tasks.add(() -> {
+                for (long[] delete : deletes) {
+                    filter.remove(ValueHashing.hashCombination(current, combinationColumns[current], delete));
+                }
+                boolean isUniqueCombination = isUniqueCombination(inserts, current);
+                for (long[] insert : inserts) {
+                    filter.put(ValueHashing.hashCombination(current, combinationColumns[current], insert));
+                }
+                return isUniqueCombination;
+            });
         }
-        int oldPuts = puts;
-        for (List<Integer> fd : combinations.values()) {
-            for (InsertStatement insert : inserts) {
-                updateFilter(fd, toArray(insert.getValueMap()));
+        List<Boolean> unique = run(tasks, (long) (deletes.size() + inserts.size()) * combinations.length);
+        CardinalitySet nonViolations = new CardinalitySet(columns.size());
+        for (int combination = 0; combination < combinations.length; combination++) {
+            if (unique.get(combination)) {
+                nonViolations.add(combinations[combination]);
+                FDLogger.log(Level.FINEST, "All combinations new for columns " + combinations[combination]);
             }
         }
-        FDLogger.log(Level.FINER, "Made " + (requests - oldRequest) + " requests on filter");
-        FDLogger.log(Level.FINER, "Made " + (puts - oldPuts) + " puts on filter");
+        removes += (long) deletes.size() * combinations.length;
+        puts += (long) inserts.size() * combinations.length;
+        FDLogger.log(Level.FINER, "Made " + (requests.get() - oldRequest) + " requests on filter");
+        FDLogger.log(Level.FINER, "Made " + (long) inserts.size() * combinations.length + " puts on filter");
+        FDLogger.log(Level.FINER, "Made " + (long) deletes.size() * combinations.length + " removes on filter");
         FDLogger.log(Level.FINER, "Made " + requests + " total requests on filter");
         FDLogger.log(Level.FINER, "Made " + puts + " total puts on filter");
-        FDLogger.log(Level.FINER, "Found " + (bloomViolations - oldBloomViolations) + " violations in filter");
-        FDLogger.log(Level.FINER, "Found " + (innerViolations - oldInnerViolations) + " inner violations");
+        FDLogger.log(Level.FINER, "Made " + removes + " total removes on filter");
+        FDLogger.log(Level.FINER, "Found " + (bloomViolations.get() - oldBloomViolations) + " violations in filter");
+        FDLogger.log(Level.FINER, "Found " + (innerViolations.get() - oldInnerViolations) + " inner violations");
         FDLogger.log(Level.FINER, "Found " + bloomViolations + " total violations in filter");
         FDLogger.log(Level.FINER, "Found " + innerViolations + " total inner violations");
         return new BloomValidationPruner(nonViolations);
     }
 
-    private boolean isUniqueCombination(List<InsertStatement> inserts, List<UpdateStatement> updates, List<Integer> combination) {
-        boolean isUniqueCombination = true;
-        Set<Collection<ColumnValue>> inner = new HashSet<>();
-        List<Map<String, String>> valueMaps = new ArrayList<>(inserts.size() + updates.size());
-        valueMaps.addAll(inserts.stream().map(InsertStatement::getValueMap).collect(Collectors.toList()));
-        valueMaps.addAll(updates.stream().map(UpdateStatement::getNewValueMap).collect(Collectors.toList()));
-        for (Map<String, String> valueMap : valueMaps) {
-            Collection<ColumnValue> vc = getValues(toArray(valueMap), combination);
-            if (inner.contains(vc)) {
-                innerViolations++;
-                isUniqueCombination = false;
-            } else if (mightContain(vc)) {
-                bloomViolations++;
-                isUniqueCombination = false;
+    private boolean isUniqueCombination(List<long[]> records, int combination) {
+        // Hash collisions can only make a combination look less unique, so they never cause wrong pruning
+        LongSet inner = new LongOpenHashSet(records.size());
+        for (long[] record : records) {
+            long hash = ValueHashing.hashCombination(combination, combinationColumns[combination], record);
+            if (!inner.add(hash)) {
+                innerViolations.incrementAndGet();
+                return false;
             }
-            if (!isUniqueCombination) {
-                break;
+            requests.incrementAndGet();
+            if (filter.mightContain(hash)) {
+                bloomViolations.incrementAndGet();
+                return false;
             }
-            inner.add(vc);
         }
-        return isUniqueCombination;
+        return true;
     }
 
-    private String[] toArray(Map<String, String> record) {
-        return columns.stream().map(record::get).toArray(String[]::new);
+    private long[] encode(Map<String, String> record) {
+        return ValueHashing.encode(columns.stream().map(record::get).toArray(String[]::new));
     }
 
-    private Collection<ColumnValue> getValues(String[] record, List<Integer> combination) {
-        Collection<ColumnValue> list = new ArrayList<>();
-        for (Integer column : combination) {
-            list.add(new ColumnValue(column, record[column]));
+    /**
+     * Fills the filter from the cluster maps of the initial records. Each distinct value is hashed once per column,
+     * and records are only ever materialized as the value hashes of the records currently being added.
+     */
+    public void initialize(List<HashMap<String, IntArrayList>> clusterMaps, int numRecords, List<Integer> pliOrder) {
+        FDLogger.log(Level.FINER, "Encoding columns...");
+        int numColumns = pliOrder.size();
+        int[][] valueIds = new int[numColumns][];
+        long[][] valueHashes = new long[numColumns][];
+        List<Callable<Void>> tasks = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            int column = i;
+            tasks.add(() -> {
+                HashMap<String, IntArrayList> clusterMap = clusterMaps.get(pliOrder.get(column));
+                // Records without an entry have a null value, which keeps the id 0
+                int[] ids = new int[numRecords];
+                long[] hashes = new long[clusterMap.size() + 1];
+                hashes[0] = ValueHashing.hash(null);
+                int id = 1;
+                for (Entry<String, IntArrayList> entry : clusterMap.entrySet()) {
+                    hashes[id] = ValueHashing.hash(entry.getKey());
+                    for (int record : entry.getValue()) {
+                        ids[record] = id;
+                    }
+                    id++;
+                }
+                valueIds[column] = ids;
+                valueHashes[column] = hashes;
+                return null;
+            });
         }
-        return list;
-    }
-
-    private boolean mightContain(Collection<ColumnValue> combination) {
-        requests++;
-        return filter.mightContain(combination);
+        run(tasks, (long) numRecords * numColumns);
+        FDLogger.log(Level.FINER, "Finished encoding columns");
+        initialize(numRecords, (record, encoded) -> {
+            for (int column = 0; column < numColumns; column++) {
+                encoded[column] = valueHashes[column][valueIds[column][record]];
+            }
+        });
     }
 
-    public void initialize(List<HashMap<String, IntArrayList>> clusterMaps, int numRecords, List<Integer> pliOrder) {
-        Collection<String[]> invertedRecords = invertRecords(numRecords, clusterMaps, pliOrder);
-        initialize(invertedRecords);
+    public void initialize(List<String[]> records) {
+        initialize(records.size(), (record, encoded) -> {
+            String[] values = records.get(record);
+            for (int column = 0; column < values.length; column++) {
+                encoded[column] = ValueHashing.hash(values[column]);
+            }
+        });
     }
 
-    public void initialize(Iterable<String[]> invertedRecords) {
-        combinations = toMap(generators.stream().flatMap(g -> g.generateCombinations(columns).stream()).collect(Collectors.toSet()));
-        int numCombinations = combinations.size();
+    private void initialize(int numRecords, RecordEncoder encoder) {
+        Set<OpenBitSet> generated = generators.stream().flatMap(g -> g.generateCombinations(columns).stream()).collect(Collectors.toSet());
+        combinations = generated.toArray(new OpenBitSet[generated.size()]);
+        combinationColumns = new int[combinations.length][];
+        for (int combination = 0; combination < combinations.length; combination++) {
+            combinationColumns[combination] = BitSetUtils.collectSetBits(combinations[combination]).stream().mapToInt(Integer::intValue).toArray();
+        }
+        int numCombinations = combinations.length;
         FDLogger.log(Level.FINER, "Keeping track of " + numCombinations + " column combinations");
         FDLogger.log(Level.FINER, "Initializing bloom filter...");
-        int expectedInsertions = 100_000_000;
-        filter = BloomFilter.create(new ValueCombinationFunnel(), expectedInsertions);
-        for (List<Integer> combination : combinations.values()) {
-            for (String[] record : invertedRecords) {
-                updateFilter(combination, record);
-            }
+        long expectedInsertions = (long) Math.max(numRecords, 1) * numCombinations * GROWTH_FACTOR;
+        filter = new CountingBloomFilter(expectedInsertions, FALSE_POSITIVE_PROBABILITY);
+        FDLogger.log(Level.FINER, "Using " + filter.getNumCounters() + " counters and " + filter.getNumHashFunctions() + " hash functions");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int start = 0; start < numRecords; start += RECORDS_PER_TASK) {
+            int from = start;
+            int to = Math.min(numRecords, start + RECORDS_PER_TASK);
+            tasks.add(() -> {
+                long[] encoded = new long[columns.size()];
+                for (int record = from; record < to; record++) {
+                    encoder.encode(record, encoded);
+                    for (int combination = 0; combination < numCombinations; combination++) {
+                        filter.put(ValueHashing.hashCombination(combination, combinationColumns[combination], encoded));
+                    }
+                }
+                return null;
+            });
         }
-        puts = 0;
+        run(tasks, (long) numRecords * numCombinations);
         FDLogger.log(Level.FINER, "Finished initializing bloom filter");
     }
 
-    private Map<OpenBitSet, List<Integer>> toMap(Set<OpenBitSet> fds) {
-        return fds.stream().map(bits -> Pair.of(bits, BitSetUtils.collectSetBits(bits))).collect(Collectors.toMap(Pair::getKey, Pair::getValue));
+    private <T> List<T> run(List<Callable<T>> tasks, long numHashes) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (!parallel || tasks.size() < 2 || numHashes < PARALLELISM_THRESHOLD) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    throw new RuntimeException(e);
+                }
+            }
+            return results;
+        }
+        try {
+            for (Future<T> future : getExecutor().invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return results;
     }
 
-    private void updateFilter(List<Integer> cols, String[] record) {
-        put(getValues(record, cols));
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            // daemon threads, so a strategy that is never closed does not keep the JVM alive
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
     }
 
-    private void put(Collection<ColumnValue> combination) {
-        filter.put(combination);
-        puts++;
+    /**
+     * Drops the filter and all tracked combinations. Afterwards, batches are still analyzed but nothing is pruned.
+     */
+    public void release() {
+        filter = null;
+        combinations = new OpenBitSet[0];
+        combinationColumns = new int[0][];
+        close();
+    }
+
+    /**
+     * Shuts down the threads that are shared by the batches to update the filter.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private interface RecordEncoder {
+
+        void encode(int record, long[] encoded);
     }
 
     private static class BloomValidationPruner implements ValidationPruner {
@@ -181,15 +294,10 @@ public class BloomPruningStrategy {
         @Override
         public boolean doesNotNeedValidation(OpenBitSet lhs, OpenBitSet rhs) {
             OpenBitSet canBeViolated = lhs.clone();
-            int depth = Math.min(nonViolations.getDepth(), (int) lhs.cardinality());
-            for (int level = depth; level >= 0; level--) {
-                for (OpenBitSet nonViolation : nonViolations.getLevel(level)) {
-                    if (BitSetUtils.isContained(nonViolation, lhs)) {
-                        canBeViolated.andNot(nonViolation);
-                        if (canBeViolated.isEmpty()) {
-                            return true;
-                        }
-                    }
+            for (OpenBitSet nonViolation : nonViolations.getSubsets(lhs)) {
+                canBeViolated.andNot(nonViolation);
+                if (canBeViolated.isEmpty()) {
+                    return true;
                 }
             }
             return false;
@@ -0,0 +1,95 @@
+package org.mp.naumann.algorithms.fd.incremental.pruning.bloom;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting bloom filter over precomputed 64-bit hashes, so that elements can be removed again. Each position holds a
+ * 4-bit counter packed into a plain word array. Counters that reach their maximum stay there and are never
+ * decremented, which can only keep stale elements in the filter but never drops present ones. The number of
+ * counters and hash functions is derived from the expected number of insertions and the desired false positive
+ * probability, capped at {@link #MAX_COUNTERS}. Counters are updated atomically, so elements may be put and removed
+ * concurrently.
+ */
+class CountingBloomFilter {
+
+    static final long MAX_COUNTERS = 1L << 27;
+    private static final int BITS_PER_COUNTER = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / BITS_PER_COUNTER;
+    private static final long MAX_COUNT = (1L << BITS_PER_COUNTER) - 1;
+
+    private final AtomicLongArray words;
+    private final long numCounters;
+    private final int numHashFunctions;
+
+    CountingBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(expectedInsertions, 1);
+        long optimalCounters = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        long counters = Math.max(COUNTERS_PER_WORD, Math.min(MAX_COUNTERS, optimalCounters));
+        this.words = new AtomicLongArray((int) ((counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+        this.numCounters = (long) words.length() * COUNTERS_PER_WORD;
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numCounters / n * Math.log(2)));
+    }
+
+    void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            long counter = index(h1 + (long) i * h2);
+            int word = (int) (counter / COUNTERS_PER_WORD);
+            int shift = shift(counter);
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current >>> shift & MAX_COUNT) < MAX_COUNT
+                    && !words.compareAndSet(word, current, current + (1L << shift)));
+        }
+    }
+
+    /**
+     * Removes an element that has been put before. Removing anything else may drop other elements from the filter.
+     */
+    void remove(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            long counter = index(h1 + (long) i * h2);
+            int word = (int) (counter / COUNTERS_PER_WORD);
+            int shift = shift(counter);
+            long current;
+            long count;
+            do {
+                current = words.get(word);
+                count = current >>> shift & MAX_COUNT;
+            } while (count > 0 && count < MAX_COUNT
+                    && !words.compareAndSet(word, current, current - (1L << shift)));
+        }
+    }
+
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            long counter = index(h1 + (long) i * h2);
+            if ((words.get((int) (counter / COUNTERS_PER_WORD)) >>> shift(counter) & MAX_COUNT) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % numCounters;
+    }
+
+    private static int shift(long counter) {
+        return (int) (counter % COUNTERS_PER_WORD) * BITS_PER_COUNTER;
+    }
+
+    long getNumCounters() {
+        return numCounters;
+    }
+
+    int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+}
@@ -0,0 +1,55 @@
+package org.mp.naumann.algorithms.fd.incremental.pruning.bloom;
+
+/**
+ * 64-bit hashes of single values and of value combinations. A record is encoded once into the hashes of its
+ * values, and every column combination is then hashed from that encoding without touching the strings again.
+ */
+final class ValueHashing {
+
+    private static final long NULL_HASH = 0x9E3779B97F4A7C15L;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private ValueHashing() {
+    }
+
+    static long hash(String value) {
+        if (value == null) {
+            return NULL_HASH;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    static long[] encode(String[] record) {
+        long[] encoded = new long[record.length];
+        for (int i = 0; i < record.length; i++) {
+            encoded[i] = hash(record[i]);
+        }
+        return encoded;
+    }
+
+    static long hashCombination(int combinationId, int[] columns, long[] encodedRecord) {
+        long hash = mix(combinationId + 1L);
+        for (int column : columns) {
+            hash = mix(hash ^ (encodedRecord[column] + column));
+        }
+        return hash;
+    }
+
+    /**
+     * Finalizer of MurmurHash3.
+     */
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85B53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -4,7 +4,6 @@ import org.apache.lucene.util.OpenBitSet;
 import org.mp.naumann.algorithms.fd.incremental.CompressedDiff;
 import org.mp.naumann.algorithms.fd.incremental.pruning.CardinalitySet;
 import org.mp.naumann.algorithms.fd.incremental.pruning.ValidationPruner;
-import org.mp.naumann.algorithms.fd.utils.BitSetUtils;
 
 import java.util.List;
 
@@ -48,14 +47,7 @@ public class ExistingValuesPruningStrategy {
 
         @Override
         public boolean doesNotNeedValidation(OpenBitSet lhs, OpenBitSet rhs) {
-            for (int level = existingValues.getDepth(); level >= lhs.cardinality(); level--) {
-                for (OpenBitSet existingValuesMask : existingValues.getLevel(level)) {
-                    if (BitSetUtils.isContained(lhs, existingValuesMask)) {
-                        return false;
-                    }
-                }
-            }
-            return true;
+            return !existingValues.containsSuperset(lhs);
         }
     }
 }
@@ -0,0 +1,86 @@
+package org.mp.naumann.algorithms.fd.incremental.structures;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Deduplicated set of record pairs that should be compared by the sampler. Each pair is packed into a single
+ * long, with the smaller record id in the upper half, so (a, b) and (b, a) are treated as the same suggestion.
+ * Once the budget is reached, further suggestions are dropped.
+ */
+public class ComparisonSuggestions {
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final LongOpenHashSet pairs = new LongOpenHashSet();
+    private final int budget;
+
+    public ComparisonSuggestions() {
+        this(UNBOUNDED);
+    }
+
+    public ComparisonSuggestions(int budget) {
+        this.budget = budget;
+    }
+
+    public static long pack(int recId1, int recId2) {
+        int a = Math.min(recId1, recId2);
+        int b = Math.max(recId1, recId2);
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    public static int first(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    public static int second(long pair) {
+        return (int) pair;
+    }
+
+    public boolean add(int recId1, int recId2) {
+        return add(pack(recId1, recId2));
+    }
+
+    public boolean add(long pair) {
+        return !isFull() && pairs.add(pair);
+    }
+
+    public void addAll(ComparisonSuggestions other) {
+        LongIterator it = other.pairs.iterator();
+        while (it.hasNext() && !isFull()) {
+            pairs.add(it.nextLong());
+        }
+    }
+
+    public boolean contains(int recId1, int recId2) {
+        return pairs.contains(pack(recId1, recId2));
+    }
+
+    public boolean isFull() {
+        return pairs.size() >= budget;
+    }
+
+    public boolean isEmpty() {
+        return pairs.isEmpty();
+    }
+
+    public int size() {
+        return pairs.size();
+    }
+
+    public void forEach(PairConsumer consumer) {
+        LongIterator it = pairs.iterator();
+        while (it.hasNext()) {
+            long pair = it.nextLong();
+            consumer.accept(first(pair), second(pair));
+        }
+    }
+
+    public LongIterator iterator() {
+        return pairs.iterator();
+    }
+
+    public interface PairConsumer {
+        void accept(int recId1, int recId2);
+    }
+}
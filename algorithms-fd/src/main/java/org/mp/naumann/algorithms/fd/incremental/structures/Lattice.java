@@ -4,47 +4,52 @@ import org.apache.lucene.util.OpenBitSet;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
 
+/**
+ * Lattice of functional dependencies, indexed by lhs. Updates for different rhs attributes may run concurrently.
+ * Updates for the same rhs attribute have to be serialized by the caller.
+ */
 public class Lattice extends LatticeElement {
 
-    private int depth = 0;
+    private final AtomicInteger depth = new AtomicInteger();
+    private volatile int maxDepth = -1;
+    // Index from attributes to the FDs using them, built by the first query and maintained from then on
+    private volatile LatticeIndex index;
 
     Lattice(int numAttributes) {
         super(numAttributes);
     }
 
-    public void addFunctionalDependency(OpenBitSet lhs, int rhs) {
-        LatticeElement node = find(lhs, elem -> elem.mark(rhs));
-        node.addFd(rhs);
-        depth = (int) Math.max(depth, lhs.cardinality());
+    public boolean isIndexed() {
+        return index != null;
     }
 
-    private LatticeElement find(OpenBitSet lhs, Consumer<LatticeElement> visitor) {
+    public void addFunctionalDependency(OpenBitSet lhs, int rhs) {
+        int lhsSize = (int) lhs.cardinality();
+        if ((maxDepth > -1) && (lhsSize > maxDepth)) {
+            return;
+        }
         LatticeElement currentNode = this;
-        visitor.accept(currentNode);
+        currentNode.mark(rhs);
         for (int nextLhsAttribute = lhs.nextSetBit(0); nextLhsAttribute >= 0; nextLhsAttribute = lhs.nextSetBit(nextLhsAttribute + 1)) {
-            LatticeElement[] children = currentNode.getChildren();
-            if (children == null) {
-                children = new LatticeElement[numAttributes];
-                currentNode.setChildren(children);
-            }
-            LatticeElement child = children[nextLhsAttribute];
-            if (child == null) {
-                child = new LatticeElement(numAttributes);
-                children[nextLhsAttribute] = child;
-            }
-            currentNode = child;
-            visitor.accept(currentNode);
+            currentNode = currentNode.getOrAddMarkedChild(nextLhsAttribute, rhs);
         }
-        return currentNode;
+        currentNode.addFd(rhs);
+        LatticeIndex index = this.index;
+        if (index != null) {
+            index.update(currentNode, lhs, rhs);
+        }
+        depth.accumulateAndGet(lhsSize, Math::max);
     }
 
     public void removeSpecializations(OpenBitSet lhs, int rhs) {
         int currentLhsAttr = 0;
-        this.removeSpecializations(lhs, rhs, currentLhsAttr, false);
+        this.removeSpecializations(lhs, rhs, currentLhsAttr, false, new OpenBitSet(numAttributes), index);
     }
 
     public boolean containsFdOrGeneralization(OpenBitSet lhs, int rhs) {
@@ -57,14 +62,97 @@ public class Lattice extends LatticeElement {
         OpenBitSet currentLhs = new OpenBitSet(numAttributes);
         int currentLevel = 0;
         this.getLevel(level, currentLevel, currentLhs, result);
-        if (level == depth && result.isEmpty()) {
-            depth--;
+        if (result.isEmpty()) {
+            depth.compareAndSet(level, level - 1);
         }
         return result;
     }
 
     public int getDepth() {
-        return depth;
+        return depth.get();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Removes all dependencies whose lhs is larger than the given depth and ignores such dependencies from now on.
+     */
+    public void trim(int newDepth) {
+        this.trimTo(newDepth);
+        this.maxDepth = newDepth;
+        this.depth.accumulateAndGet(newDepth, Math::min);
+        LatticeIndex index = this.index;
+        if (index != null) {
+            index.clear();
+            this.addToIndex(index, new OpenBitSet(numAttributes));
+        }
+    }
+
+    /**
+     * Returns all FDs whose lhs contains the given attribute.
+     */
+    public List<OpenBitSetFD> getFunctionalDependenciesWithLhsAttribute(int attribute) {
+        List<OpenBitSetFD> functionalDependencies = new ArrayList<>();
+        LatticeIndex index = getIndex();
+        for (LatticeElement node : index.getNodesWithLhsAttribute(attribute)) {
+            OpenBitSet lhs = index.getLhs(node);
+            if (lhs == null) {
+                continue;
+            }
+            OpenBitSet rhsFds = node.getRhsFds();
+            for (int rhs = rhsFds.nextSetBit(0); rhs >= 0; rhs = rhsFds.nextSetBit(rhs + 1)) {
+                functionalDependencies.add(new OpenBitSetFD(lhs.clone(), rhs));
+            }
+        }
+        return functionalDependencies;
+    }
+
+    /**
+     * Returns all FDs with the given rhs attribute.
+     */
+    public List<OpenBitSetFD> getFunctionalDependenciesWithRhs(int attribute) {
+        List<OpenBitSetFD> functionalDependencies = new ArrayList<>();
+        LatticeIndex index = getIndex();
+        for (LatticeElement node : index.getNodesWithRhs(attribute)) {
+            OpenBitSet lhs = index.getLhs(node);
+            if (lhs != null && node.isFd(attribute)) {
+                functionalDependencies.add(new OpenBitSetFD(lhs.clone(), attribute));
+            }
+        }
+        return functionalDependencies;
+    }
+
+    /**
+     * Returns all FDs that use any of the given attributes in their lhs or as their rhs.
+     */
+    public Set<OpenBitSetFD> getFunctionalDependenciesMentioning(OpenBitSet attributes) {
+        Set<OpenBitSetFD> functionalDependencies = new HashSet<>();
+        for (int attribute = attributes.nextSetBit(0); attribute >= 0; attribute = attributes.nextSetBit(attribute + 1)) {
+            functionalDependencies.addAll(getFunctionalDependenciesWithLhsAttribute(attribute));
+            functionalDependencies.addAll(getFunctionalDependenciesWithRhs(attribute));
+        }
+        return functionalDependencies;
+    }
+
+    /**
+     * Returns the index, building it from the current FDs if this is the first query. Queries must not run
+     * concurrently with updates of the lattice.
+     */
+    private LatticeIndex getIndex() {
+        LatticeIndex index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    index = new LatticeIndex(numAttributes);
+                    this.addToIndex(index, new OpenBitSet(numAttributes));
+                    this.index = index;
+                }
+            }
+        }
+        return index;
     }
 
     public List<OpenBitSetFD> getFunctionalDependencies() {
@@ -75,7 +163,18 @@ public class Lattice extends LatticeElement {
 
     public void removeFunctionalDependency(OpenBitSet lhs, int rhs) {
         int currentLhsAttr = 0;
-        this.removeRecursive(lhs, rhs, currentLhsAttr);
+        this.removeRecursive(lhs, rhs, currentLhsAttr, index);
+    }
+
+    /**
+     * Removes the FD from a node of this lattice that was reached by the given lhs, e.g. through {@link #getLevel}.
+     */
+    public void removeFunctionalDependency(LatticeElement node, OpenBitSet lhs, int rhs) {
+        node.removeFd(rhs);
+        LatticeIndex index = this.index;
+        if (index != null) {
+            index.update(node, lhs, rhs);
+        }
     }
 
     public List<OpenBitSet> getFdAndGeneralizations(OpenBitSet lhs, int rhs) {
@@ -3,120 +3,315 @@ package org.mp.naumann.algorithms.fd.incremental.structures;
 import org.apache.lucene.util.OpenBitSet;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
 
+/**
+ * Node of a {@link Lattice}. To keep large covers small, children are stored sparsely in an array that is sorted
+ * by attribute, and the rhs and marked sets are kept inline as longs for up to 64 attributes. Wider relations fall
+ * back to a single word array holding the rhs words followed by the marked words.
+ * <p>
+ * Bits are updated with compare-and-set and the children array is replaced as a whole on every change, so readers
+ * always see a consistent node. Structural changes, and marking a child, hold the lock of the parent node. This
+ * makes concurrent updates of different rhs attributes safe.
+ */
 public class LatticeElement {
 
+    private static final LatticeElement[] NO_CHILDREN = new LatticeElement[0];
+    private static final AtomicLongFieldUpdater<LatticeElement> RHS_FDS = AtomicLongFieldUpdater.newUpdater(LatticeElement.class, "rhsFds");
+    private static final AtomicLongFieldUpdater<LatticeElement> MARKED_RHS = AtomicLongFieldUpdater.newUpdater(LatticeElement.class, "markedRhs");
+
     final int numAttributes;
-    private final OpenBitSet rhsFds;
-    private final OpenBitSet markedRhs;
-    private LatticeElement[] children;
+    private final int attribute;
+    private volatile long rhsFds;
+    private volatile long markedRhs;
+    private final AtomicLongArray wideBits;
+    private volatile LatticeElement[] children = NO_CHILDREN;
 
     LatticeElement(int numAttributes) {
+        this(numAttributes, -1);
+    }
+
+    private LatticeElement(int numAttributes, int attribute) {
         this.numAttributes = numAttributes;
-        this.rhsFds = new OpenBitSet(numAttributes);
-        this.markedRhs = new OpenBitSet(numAttributes);
+        this.attribute = attribute;
+        this.wideBits = (numAttributes > Long.SIZE) ? new AtomicLongArray(2 * OpenBitSet.bits2words(numAttributes)) : null;
+    }
+
+    // children
+
+    LatticeElement getChild(int attribute) {
+        LatticeElement[] children = this.children;
+        int index = indexOf(children, attribute);
+        return (index < 0) ? null : children[index];
+    }
+
+    private LatticeElement getOrAddChild(int attribute) {
+        LatticeElement[] children = this.children;
+        int index = indexOf(children, attribute);
+        if (index >= 0) {
+            return children[index];
+        }
+        LatticeElement child = new LatticeElement(numAttributes, attribute);
+        int insertionPoint = -(index + 1);
+        LatticeElement[] newChildren = new LatticeElement[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, insertionPoint);
+        newChildren[insertionPoint] = child;
+        System.arraycopy(children, insertionPoint, newChildren, insertionPoint + 1, children.length - insertionPoint);
+        this.children = newChildren;
+        return child;
     }
 
-    LatticeElement[] getChildren() {
-        return children;
+    /**
+     * Returns the child for the given attribute, creating it if necessary, and marks the rhs on it. Both happen
+     * under the lock of this node, so a concurrent removal cannot detach the child in between.
+     */
+    synchronized LatticeElement getOrAddMarkedChild(int attribute, int rhsAttribute) {
+        LatticeElement child = getOrAddChild(attribute);
+        child.mark(rhsAttribute);
+        return child;
     }
 
-    void setChildren(LatticeElement[] children) {
-        this.children = children;
+    int getNumChildren() {
+        return children.length;
     }
 
+    private synchronized void removeChildIfUnmarked(LatticeElement child) {
+        if (!child.hasNoMarked()) {
+            return;
+        }
+        LatticeElement[] children = this.children;
+        int index = indexOf(children, child.attribute);
+        if (index < 0 || children[index] != child) {
+            return;
+        }
+        if (children.length == 1) {
+            this.children = NO_CHILDREN;
+            return;
+        }
+        LatticeElement[] newChildren = new LatticeElement[children.length - 1];
+        System.arraycopy(children, 0, newChildren, 0, index);
+        System.arraycopy(children, index + 1, newChildren, index, newChildren.length - index);
+        this.children = newChildren;
+    }
+
+    private static int indexOf(LatticeElement[] children, int attribute) {
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midAttribute = children[mid].attribute;
+            if (midAttribute < attribute) {
+                low = mid + 1;
+            } else if (midAttribute > attribute) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int firstIndexFrom(LatticeElement[] children, int attribute) {
+        int index = indexOf(children, attribute);
+        return (index < 0) ? -(index + 1) : index;
+    }
+
+    // rhs and marked bits
+
     void addFd(int rhsAttribute) {
-        this.rhsFds.fastSet(rhsAttribute);
+        if (wideBits == null) {
+            setBits(RHS_FDS, 1L << rhsAttribute);
+        } else {
+            setBits(rhsAttribute >>> 6, 1L << rhsAttribute);
+        }
         this.mark(rhsAttribute);
     }
 
-    public void removeFd(int rhsAttribute) {
-        this.rhsFds.fastClear(rhsAttribute);
+    void removeFd(int rhsAttribute) {
+        if (wideBits == null) {
+            clearBits(RHS_FDS, 1L << rhsAttribute);
+        } else {
+            clearBits(rhsAttribute >>> 6, 1L << rhsAttribute);
+        }
         this.unmark(rhsAttribute);
     }
 
     void mark(int rhsAttribute) {
-        this.markedRhs.fastSet(rhsAttribute);
+        if (wideBits == null) {
+            setBits(MARKED_RHS, 1L << rhsAttribute);
+        } else {
+            setBits(markedWord(rhsAttribute), 1L << rhsAttribute);
+        }
     }
 
     private void unmark(int rhsAttribute) {
-        this.markedRhs.fastClear(rhsAttribute);
+        if (wideBits == null) {
+            clearBits(MARKED_RHS, 1L << rhsAttribute);
+        } else {
+            clearBits(markedWord(rhsAttribute), 1L << rhsAttribute);
+        }
     }
 
-    boolean containsFdOrGeneralization(OpenBitSet lhs, int rhs, int currentLhsAttr) {
-        if (this.isFd(rhs)) {
-            return true;
+    private void setBits(AtomicLongFieldUpdater<LatticeElement> word, long mask) {
+        long current;
+        do {
+            current = word.get(this);
+        } while ((current & mask) != mask && !word.compareAndSet(this, current, current | mask));
+    }
+
+    private void clearBits(AtomicLongFieldUpdater<LatticeElement> word, long mask) {
+        long current;
+        do {
+            current = word.get(this);
+        } while ((current & mask) != 0 && !word.compareAndSet(this, current, current & ~mask));
+    }
+
+    private void setBits(int word, long mask) {
+        long current;
+        do {
+            current = wideBits.get(word);
+        } while ((current & mask) != mask && !wideBits.compareAndSet(word, current, current | mask));
+    }
+
+    private void clearBits(int word, long mask) {
+        long current;
+        do {
+            current = wideBits.get(word);
+        } while ((current & mask) != 0 && !wideBits.compareAndSet(word, current, current & ~mask));
+    }
+
+    private boolean isMarked(int rhs) {
+        if (wideBits == null) {
+            return (this.markedRhs & (1L << rhs)) != 0;
         }
+        return (this.wideBits.get(markedWord(rhs)) & (1L << rhs)) != 0;
+    }
 
-        int nextLhsAttr = lhs.nextSetBit(currentLhsAttr);
-        // Is the dependency already read and we have not yet found a generalization?
-        if (nextLhsAttr < 0) {
-            return false;
+    boolean isFd(int rhs) {
+        if (wideBits == null) {
+            return (this.rhsFds & (1L << rhs)) != 0;
         }
+        return (this.wideBits.get(rhs >>> 6) & (1L << rhs)) != 0;
+    }
 
-        if ((this.children != null) && (this.children[nextLhsAttr] != null) && (this.children[nextLhsAttr].isMarked(rhs))) {
-            if (this.children[nextLhsAttr].containsFdOrGeneralization(lhs, rhs, nextLhsAttr + 1)) {
-                return true;
+    private int markedWord(int rhs) {
+        return (wideBits.length() >>> 1) + (rhs >>> 6);
+    }
+
+    private boolean hasNoMarked() {
+        if (wideBits == null) {
+            return markedRhs == 0;
+        }
+        for (int word = wideBits.length() >>> 1; word < wideBits.length(); word++) {
+            if (wideBits.get(word) != 0) {
+                return false;
             }
         }
-
-        return this.containsFdOrGeneralization(lhs, rhs, nextLhsAttr + 1);
+        return true;
     }
 
-    private boolean isMarked(int rhs) {
-        return this.markedRhs.fastGet(rhs);
+    private void markAllOf(LatticeElement child) {
+        if (wideBits == null) {
+            setBits(MARKED_RHS, child.markedRhs);
+        } else {
+            for (int word = wideBits.length() >>> 1; word < wideBits.length(); word++) {
+                setBits(word, child.wideBits.get(word));
+            }
+        }
     }
 
-    private boolean isFd(int rhs) {
-        return this.rhsFds.fastGet(rhs);
+    private void resetMarks() {
+        if (wideBits == null) {
+            this.markedRhs = this.rhsFds;
+        } else {
+            int offset = wideBits.length() >>> 1;
+            for (int word = 0; word < offset; word++) {
+                wideBits.set(offset + word, wideBits.get(word));
+            }
+        }
     }
 
-    private boolean isLastNodeOf(int rhs) {
-        if (this.children == null) {
-            return true;
+    boolean hasNoFds() {
+        if (wideBits == null) {
+            return rhsFds == 0;
         }
-        for (LatticeElement child : this.children) {
-            if ((child != null) && child.isMarked(rhs)) {
+        for (int word = 0; word < wideBits.length() >>> 1; word++) {
+            if (wideBits.get(word) != 0) {
                 return false;
             }
         }
         return true;
     }
 
-    private boolean hasChildren() {
-        for (LatticeElement child : this.children)
-            if (child != null)
+    /**
+     * Returns a copy of the rhs attributes of this node. Changes to the returned set are not reflected in the lattice.
+     */
+    public OpenBitSet getRhsFds() {
+        if (wideBits == null) {
+            return new OpenBitSet(new long[]{rhsFds}, 1);
+        }
+        int numWords = wideBits.length() >>> 1;
+        long[] words = new long[numWords];
+        for (int word = 0; word < numWords; word++) {
+            words[word] = wideBits.get(word);
+        }
+        return new OpenBitSet(words, numWords);
+    }
+
+    // traversal
+
+    boolean containsFdOrGeneralization(OpenBitSet lhs, int rhs, int currentLhsAttr) {
+        if (this.isFd(rhs)) {
+            return true;
+        }
+
+        LatticeElement[] children = this.children;
+        for (int nextLhsAttr = lhs.nextSetBit(currentLhsAttr); nextLhsAttr >= 0 && children.length > 0; nextLhsAttr = lhs.nextSetBit(nextLhsAttr + 1)) {
+            int index = indexOf(children, nextLhsAttr);
+            if (index < 0) {
+                continue;
+            }
+            LatticeElement child = children[index];
+            if (child.isMarked(rhs) && child.containsFdOrGeneralization(lhs, rhs, nextLhsAttr + 1)) {
                 return true;
+            }
+        }
         return false;
     }
 
-    private boolean hasNoMarked() {
-        return markedRhs.isEmpty();
+    private boolean isLastNodeOf(int rhs) {
+        for (LatticeElement child : children) {
+            if (child.isMarked(rhs)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     void getLevel(int level, int currentLevel, OpenBitSet currentLhs, List<LatticeElementLhsPair> result) {
-        if (level == currentLevel && !rhsFds.isEmpty()) {
-            result.add(new LatticeElementLhsPair(currentLhs.clone(), this));
+        if (level == currentLevel) {
+            if (!hasNoFds()) {
+                result.add(new LatticeElementLhsPair(currentLhs.clone(), this));
+            }
         } else {
             currentLevel++;
-            if (this.children == null || this.markedRhs.isEmpty()) {
+            LatticeElement[] children = this.children;
+            if (children.length == 0 || hasNoMarked()) {
                 return;
             }
 
-            for (int child = currentLevel - 1; child < this.numAttributes; child++) {
-                if (this.children[child] == null) {
-                    continue;
-                }
-
-                currentLhs.fastSet(child);
-                this.children[child].getLevel(level, currentLevel, currentLhs, result);
-                currentLhs.fastClear(child);
+            for (LatticeElement child : children) {
+                currentLhs.fastSet(child.attribute);
+                child.getLevel(level, currentLevel, currentLhs, result);
+                currentLhs.fastClear(child.attribute);
             }
         }
     }
 
-    void removeSpecializations(OpenBitSet lhs, int rhs, int currentAttr, boolean isSpecialized) {
+    void removeSpecializations(OpenBitSet lhs, int rhs, int currentAttr, boolean isSpecialized, OpenBitSet currentLhs,
+                               LatticeIndex index) {
         // If rhs is not marked, we cannot reach any specializatioin from here
         if (!isMarked(rhs)) {
             return;
@@ -125,28 +320,30 @@ public class LatticeElement {
         // If the whole lhs was read and the lhs is specialized, we can remove the rhs
         if (isSpecialized && nextLhsAttr < 0 && isFd(rhs)) {
             this.removeFd(rhs);
+            if (index != null) {
+                index.update(this, currentLhs, rhs);
+            }
             return;
         }
 
-        if ((this.children != null)) {
+        LatticeElement[] children = this.children;
+        if (children.length > 0) {
             int limit = nextLhsAttr;
             if (nextLhsAttr < 0) {
                 limit = numAttributes - 1;
             }
-            for (int attr = currentAttr; attr <= limit; attr++) {
-                if (this.children[attr] != null) {
-                    // Move to the next child with the next attribute
-                    // Either it is the next lhs attribute or another so we are specialized
-                    this.children[attr].removeSpecializations(lhs, rhs, attr + 1, isSpecialized || attr != nextLhsAttr);
-
-                    // Delete the child node if it has no rhsFds attributes any more
-                    if (this.children[attr].hasNoMarked()) {
-                        this.children[attr] = null;
-                    }
-                }
+            for (int i = firstIndexFrom(children, currentAttr); i < children.length && children[i].attribute <= limit; i++) {
+                LatticeElement child = children[i];
+                int attr = child.attribute;
+                // Move to the next child with the next attribute
+                // Either it is the next lhs attribute or another so we are specialized
+                currentLhs.fastSet(attr);
+                child.removeSpecializations(lhs, rhs, attr + 1, isSpecialized || attr != nextLhsAttr, currentLhs, index);
+                currentLhs.fastClear(attr);
+
+                // Delete the child node if it has no rhsFds attributes any more
+                removeChildIfUnmarked(child);
             }
-            if (!hasChildren())
-                children = null;
         }
 
         // Check if another child requires the rhsFds and if not, remove it from this node
@@ -155,27 +352,26 @@ public class LatticeElement {
         }
     }
 
-    boolean removeRecursive(OpenBitSet lhs, int rhs, int currentLhsAttr) {
+    boolean removeRecursive(OpenBitSet lhs, int rhs, int currentLhsAttr, LatticeIndex index) {
         int nextLhsAttr = lhs.nextSetBit(currentLhsAttr);
         // If this is the last attribute of lhs, remove the fd-mark from the rhsFds
         if (nextLhsAttr < 0) {
             this.removeFd(rhs);
+            if (index != null) {
+                index.update(this, lhs, rhs);
+            }
             return true;
         }
 
-        if ((this.children != null) && (this.children[nextLhsAttr] != null)) {
+        LatticeElement child = getChild(nextLhsAttr);
+        if (child != null) {
             // Move to the next child with the next lhs attribute
-            if (!this.children[nextLhsAttr].removeRecursive(lhs, rhs, nextLhsAttr + 1)) {
+            if (!child.removeRecursive(lhs, rhs, nextLhsAttr + 1, index)) {
                 return false; // This is a shortcut: if the child was unable to remove the rhsFds, then this node can also not remove it
             }
 
             // Delete the child node if it has no rhsFds attributes any more
-            if (this.children[nextLhsAttr].hasNoMarked()) {
-                this.children[nextLhsAttr] = null;
-            }
-
-            if (!hasChildren())
-                children = null;
+            removeChildIfUnmarked(child);
         }
 
         // Check if another child requires the rhsFds and if not, remove it from this node
@@ -186,28 +382,45 @@ public class LatticeElement {
         return false;
     }
 
-    public OpenBitSet getRhsFds() {
-        return rhsFds;
+    void trimTo(int remainingDepth) {
+        if (remainingDepth == 0) {
+            children = NO_CHILDREN;
+        }
+        resetMarks();
+        for (LatticeElement child : children) {
+            child.trimTo(remainingDepth - 1);
+            removeChildIfUnmarked(child);
+        }
+        for (LatticeElement child : children) {
+            markAllOf(child);
+        }
     }
 
-    void addFunctionalDependenciesInto(List<OpenBitSetFD> functionalDependencies, OpenBitSet lhs) {
-
-        for (int rhs = this.rhsFds.nextSetBit(0); rhs >= 0; rhs = this.rhsFds.nextSetBit(rhs + 1)) {
-            functionalDependencies.add(new OpenBitSetFD(lhs.clone(), rhs));
+    void addToIndex(LatticeIndex index, OpenBitSet currentLhs) {
+        if (!hasNoFds()) {
+            index.add(this, currentLhs);
         }
-
-        if (this.getChildren() == null) {
-            return;
+        for (LatticeElement child : children) {
+            currentLhs.fastSet(child.attribute);
+            child.addToIndex(index, currentLhs);
+            currentLhs.fastClear(child.attribute);
         }
+    }
 
-        for (int childAttr = 0; childAttr < this.numAttributes; childAttr++) {
-            LatticeElement child = this.getChildren()[childAttr];
-            if (child != null) {
-                lhs.fastSet(childAttr);
-                child.addFunctionalDependenciesInto(functionalDependencies, lhs);
-                lhs.fastClear(childAttr);
+    void addFunctionalDependenciesInto(List<OpenBitSetFD> functionalDependencies, OpenBitSet lhs) {
+
+        if (!hasNoFds()) {
+            OpenBitSet rhsFds = getRhsFds();
+            for (int rhs = rhsFds.nextSetBit(0); rhs >= 0; rhs = rhsFds.nextSetBit(rhs + 1)) {
+                functionalDependencies.add(new OpenBitSetFD(lhs.clone(), rhs));
             }
         }
+
+        for (LatticeElement child : children) {
+            lhs.fastSet(child.attribute);
+            child.addFunctionalDependenciesInto(functionalDependencies, lhs);
+            lhs.fastClear(child.attribute);
+        }
     }
 
     void getFdAndGeneralizations(OpenBitSet lhs, int rhs, int currentLhsAttr, OpenBitSet currentLhs,
@@ -217,16 +430,14 @@ public class LatticeElement {
             return;
         }
 
-        if (this.children == null) {
-            return;
-        }
-
+        LatticeElement[] children = this.children;
         int nextLhsAttr = lhs.nextSetBit(currentLhsAttr);
-        while (nextLhsAttr >= 0) {
+        while (nextLhsAttr >= 0 && children.length > 0) {
 
-            if ((this.children[nextLhsAttr] != null) && (this.children[nextLhsAttr].isMarked(rhs))) {
+            int index = indexOf(children, nextLhsAttr);
+            if (index >= 0 && children[index].isMarked(rhs)) {
                 currentLhs.fastSet(nextLhsAttr);
-                this.children[nextLhsAttr].getFdAndGeneralizations(lhs, rhs, nextLhsAttr + 1, currentLhs, foundLhs);
+                children[index].getFdAndGeneralizations(lhs, rhs, nextLhsAttr + 1, currentLhs, foundLhs);
                 currentLhs.fastClear(nextLhsAttr);
             }
 
@@ -0,0 +1,91 @@
+package org.mp.naumann.algorithms.fd.incremental.structures;
+
+import org.apache.lucene.util.OpenBitSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Inverted index from each attribute to the lattice nodes holding FDs that use the attribute in their lhs or as
+ * their rhs. Nodes do not know their lhs, so the lattice passes it in with every update, and the index keeps the
+ * lhs of the nodes it holds.
+ */
+class LatticeIndex {
+
+    private final List<Set<LatticeElement>> lhsIndex;
+    private final List<Set<LatticeElement>> rhsIndex;
+    private final Map<LatticeElement, OpenBitSet> lhsOf = new ConcurrentHashMap<>();
+
+    LatticeIndex(int numAttributes) {
+        lhsIndex = new ArrayList<>(numAttributes);
+        rhsIndex = new ArrayList<>(numAttributes);
+        for (int i = 0; i < numAttributes; i++) {
+            lhsIndex.add(ConcurrentHashMap.newKeySet());
+            rhsIndex.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Brings the entries of the node, which is reached by the given lhs, in line with its current rhs. Updates of
+     * the same node are serialized, and each one reads the latest state, so the index is consistent once all
+     * updates of the node have finished.
+     */
+    void update(LatticeElement node, OpenBitSet lhs, int rhs) {
+        synchronized (node) {
+            if (node.isFd(rhs)) {
+                rhsIndex.get(rhs).add(node);
+            } else {
+                rhsIndex.get(rhs).remove(node);
+            }
+            if (!node.hasNoFds()) {
+                if (!lhsOf.containsKey(node)) {
+                    lhsOf.put(node, lhs.clone());
+                    forEachAttribute(lhs, attribute -> lhsIndex.get(attribute).add(node));
+                }
+            } else if (lhsOf.remove(node) != null) {
+                forEachAttribute(lhs, attribute -> lhsIndex.get(attribute).remove(node));
+            }
+        }
+    }
+
+    void add(LatticeElement node, OpenBitSet lhs) {
+        for (int rhs = 0; rhs < rhsIndex.size(); rhs++) {
+            if (node.isFd(rhs)) {
+                rhsIndex.get(rhs).add(node);
+            }
+        }
+        lhsOf.put(node, lhs.clone());
+        forEachAttribute(lhs, attribute -> lhsIndex.get(attribute).add(node));
+    }
+
+    private static void forEachAttribute(OpenBitSet lhs, IntConsumer action) {
+        for (int attribute = lhs.nextSetBit(0); attribute >= 0; attribute = lhs.nextSetBit(attribute + 1)) {
+            action.accept(attribute);
+        }
+    }
+
+    void clear() {
+        lhsIndex.forEach(Set::clear);
+        rhsIndex.forEach(Set::clear);
+        lhsOf.clear();
+    }
+
+    /**
+     * Returns the lhs of an indexed node, or null if the node holds no FDs any more.
+     */
+    OpenBitSet getLhs(LatticeElement node) {
+        return lhsOf.get(node);
+    }
+
+    Set<LatticeElement> getNodesWithLhsAttribute(int attribute) {
+        return lhsIndex.get(attribute);
+    }
+
+    Set<LatticeElement> getNodesWithRhs(int attribute) {
+        return rhsIndex.get(attribute);
+    }
+}
@@ -17,24 +17,39 @@
 package org.mp.naumann.algorithms.fd.structures;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.mp.naumann.database.TableInput;
-import org.mp.naumann.database.data.Row;
 
 public class ClusterMapBuilder {
 
+    private static final int RECORDS_PER_CHUNK = 4096;
+    // Number of chunks that may be read ahead of the slowest worker
+    private static final int CHUNKS_IN_FLIGHT = 4;
+
     private final List<HashMap<String, IntArrayList>> clusterMaps;
+    private final boolean parallel;
     private int numRecords = 0;
 
-
     public ClusterMapBuilder(int numAttributes) {
+        this(numAttributes, false);
+    }
+
+    public ClusterMapBuilder(int numAttributes, boolean parallel) {
         clusterMaps = new ArrayList<>();
         for (int i = 0; i < numAttributes; i++) {
             clusterMaps.add(new HashMap<>());
         }
+        this.parallel = parallel;
     }
 
     public List<HashMap<String, IntArrayList>> getClusterMaps() {
@@ -53,42 +68,149 @@ public class ClusterMapBuilder {
      * @param tableInput the table/relation used as input, e.g. from a DB
      */
     void addRecords(TableInput tableInput) {
+        if (parallel) {
+            addRecordsParallel(tableInput);
+            return;
+        }
         while (tableInput.hasNext()) {
-            Row record = tableInput.next();
-
-            addRecord(record);
-            if (this.numRecords == Integer.MAX_VALUE - 1)
-                throw new RuntimeException("PLI encoding into integer based PLIs is not possible, because the number of records in the dataset exceeds Integer.MAX_VALUE. Use long based plis instead! (NumRecords = " + this.numRecords + " and Integer.MAX_VALUE = " + Integer.MAX_VALUE);
+            addRecord(tableInput.next());
+            checkNumRecords();
         }
     }
 
+    private void checkNumRecords() {
+        if (this.numRecords == Integer.MAX_VALUE - 1)
+            throw new RuntimeException("PLI encoding into integer based PLIs is not possible, because the number of records in the dataset exceeds Integer.MAX_VALUE. Use long based plis instead! (NumRecords = " + this.numRecords + " and Integer.MAX_VALUE = " + Integer.MAX_VALUE);
+    }
+
     private void addRecord(Iterable<String> record) {
         int recId = this.numRecords;
         int attributeId = 0;
 
         for (String value : record) {
-            HashMap<String, IntArrayList> clusterMap = clusterMaps.get(attributeId);
-            if (clusterMap.containsKey(value)) {
-                clusterMap.get(value).add(recId);
-            } else {
-                IntArrayList newCluster = new IntArrayList();
-                newCluster.add(recId);
-                clusterMap.put(value, newCluster);
-            }
-
+            addValue(clusterMaps.get(attributeId), value, recId);
             attributeId++;
         }
         this.numRecords++;
     }
 
+    private static void addValue(HashMap<String, IntArrayList> clusterMap, String value, int recId) {
+        IntArrayList cluster = clusterMap.get(value);
+        if (cluster == null) {
+            cluster = new IntArrayList();
+            clusterMap.put(value, cluster);
+        }
+        cluster.add(recId);
+    }
+
+    /**
+     * Reads the records in chunks and lets one worker per group of columns add the values of each chunk to the
+     * cluster maps of its columns. A worker processes the chunks in the order they were read, so record ids and
+     * clusters are exactly the same as if the records were added one after another.
+     */
+    private void addRecordsParallel(Iterator<? extends Iterable<String>> records) {
+        int numAttributes = clusterMaps.size();
+        Chunk chunk = readChunk(records);
+        if (!records.hasNext()) {
+            // A single chunk is not worth distributing
+            chunk.addColumns(0, 1);
+            return;
+        }
+        int numThreads = Math.min(numAttributes, Runtime.getRuntime().availableProcessors());
+        List<ExecutorService> workers = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            workers.add(Executors.newSingleThreadExecutor());
+        }
+        Deque<List<Future<?>>> inFlight = new ArrayDeque<>();
+        try {
+            while (chunk != null) {
+                Chunk current = chunk;
+                List<Future<?>> futures = new ArrayList<>(numThreads);
+                for (int worker = 0; worker < numThreads; worker++) {
+                    int firstColumn = worker;
+                    futures.add(workers.get(worker).submit(() -> current.addColumns(firstColumn, numThreads)));
+                }
+                inFlight.add(futures);
+                if (inFlight.size() > CHUNKS_IN_FLIGHT) {
+                    await(inFlight.poll());
+                }
+                chunk = records.hasNext() ? readChunk(records) : null;
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.poll());
+            }
+        } finally {
+            workers.forEach(ExecutorService::shutdownNow);
+        }
+    }
+
+    private Chunk readChunk(Iterator<? extends Iterable<String>> records) {
+        int numAttributes = clusterMaps.size();
+        String[][] values = new String[numAttributes][RECORDS_PER_CHUNK];
+        int size = 0;
+        while (size < RECORDS_PER_CHUNK && records.hasNext()) {
+            int attributeId = 0;
+            for (String value : records.next()) {
+                values[attributeId][size] = value;
+                attributeId++;
+            }
+            size++;
+            this.numRecords++;
+            checkNumRecords();
+        }
+        return new Chunk(this.numRecords - size, size, values);
+    }
+
+    private static void await(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
 
     void addRecords(Collection<? extends Iterable<String>> records) {
         if (records.size() > Integer.MAX_VALUE)
             throw new RuntimeException("PLI encoding into integer based PLIs is not possible, because the number of records in the dataset exceeds Integer.MAX_VALUE. Use long based plis instead! (NumRecords = " + records.size() + " and Integer.MAX_VALUE = " + Integer.MAX_VALUE);
 
+        if (parallel) {
+            addRecordsParallel(records.iterator());
+            return;
+        }
         for (Iterable<String> record : records) {
             addRecord(record);
         }
     }
 
+    private class Chunk {
+
+        private final int firstRecordId;
+        private final int size;
+        // Values by column and position in the chunk
+        private final String[][] values;
+
+        private Chunk(int firstRecordId, int size, String[][] values) {
+            this.firstRecordId = firstRecordId;
+            this.size = size;
+            this.values = values;
+        }
+
+        private void addColumns(int firstColumn, int step) {
+            for (int column = firstColumn; column < values.length; column += step) {
+                HashMap<String, IntArrayList> clusterMap = clusterMaps.get(column);
+                String[] columnValues = values[column];
+                for (int i = 0; i < size; i++) {
+                    addValue(clusterMap, columnValues[i], firstRecordId + i);
+                }
+                // The chunk is not needed by this worker anymore
+                values[column] = null;
+            }
+        }
+    }
+
 }
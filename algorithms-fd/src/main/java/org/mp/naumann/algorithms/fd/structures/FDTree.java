@@ -20,7 +20,6 @@ public class FDTree extends FDTreeElement {
     public FDTree(int numAttributes, int maxDepth) {
         super(numAttributes);
         this.maxDepth = maxDepth;
-        this.children = new FDTreeElement[numAttributes];
     }
 
     public int getDepth() {
@@ -69,16 +68,13 @@ public class FDTree extends FDTreeElement {
         for (int i = lhs.nextSetBit(0); i >= 0; i = lhs.nextSetBit(i + 1)) {
             lhsLength++;
 
-            if (currentNode.getChildren() == null) {
-                currentNode.setChildren(new FDTreeElement[this.numAttributes]);
-                currentNode.getChildren()[i] = new FDTreeElement(this.numAttributes);
-                isNew = true;
-            } else if (currentNode.getChildren()[i] == null) {
-                currentNode.getChildren()[i] = new FDTreeElement(this.numAttributes);
+            FDTreeElement child = currentNode.getChild(i);
+            if (child == null) {
+                child = currentNode.addChild(i);
                 isNew = true;
             }
 
-            currentNode = currentNode.getChildren()[i];
+            currentNode = child;
             addRhsConsumer.accept(currentNode);
         }
         markFdConsumer.accept(currentNode);
@@ -108,9 +104,8 @@ public class FDTree extends FDTreeElement {
     public FDTreeElement findTreeElement(OpenBitSet lhs) {
         FDTreeElement current = this;
         for (int lhsAttr = lhs.nextSetBit(0); lhsAttr >= 0; lhsAttr = lhs.nextSetBit(lhsAttr + 1)) {
-            if (current.children != null && current.children[lhsAttr] != null) {
-                current = current.children[lhsAttr];
-            } else {
+            current = current.getChild(lhsAttr);
+            if (current == null) {
                 return null;
             }
         }
@@ -2,6 +2,7 @@ package org.mp.naumann.algorithms.fd.structures;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import org.apache.lucene.util.OpenBitSet;
@@ -13,7 +14,12 @@ import org.mp.naumann.database.data.ColumnIdentifier;
 
 public class FDTreeElement {
 
-    FDTreeElement[] children;
+    private static final int INITIAL_CHILD_CAPACITY = 2;
+
+    // children are stored sparsely, sorted by their lhs attribute
+    private int[] childAttributes;
+    private FDTreeElement[] children;
+    private int numChildren;
     OpenBitSet rhsAttributes;
     OpenBitSet rhsFds;
     int numAttributes;
@@ -31,12 +37,75 @@ public class FDTreeElement {
 
     // children
 
-    public FDTreeElement[] getChildren() {
-        return this.children;
+    public boolean hasChildren() {
+        return this.numChildren > 0;
+    }
+
+    public int getNumChildren() {
+        return this.numChildren;
+    }
+
+    public int getChildAttribute(int index) {
+        return this.childAttributes[index];
+    }
+
+    public FDTreeElement getChildAt(int index) {
+        return this.children[index];
+    }
+
+    public FDTreeElement getChild(int attribute) {
+        int index = this.childIndex(attribute);
+        return (index < 0) ? null : this.children[index];
+    }
+
+    FDTreeElement addChild(int attribute) {
+        int index = this.childIndex(attribute);
+        if (index >= 0)
+            return null;
+
+        FDTreeElement child = new FDTreeElement(this.numAttributes);
+        index = -(index + 1);
+        if (this.children == null) {
+            this.childAttributes = new int[INITIAL_CHILD_CAPACITY];
+            this.children = new FDTreeElement[INITIAL_CHILD_CAPACITY];
+        } else if (this.numChildren == this.children.length) {
+            int capacity = Math.min(this.numAttributes, 2 * this.numChildren);
+            this.childAttributes = Arrays.copyOf(this.childAttributes, capacity);
+            this.children = Arrays.copyOf(this.children, capacity);
+        }
+        System.arraycopy(this.childAttributes, index, this.childAttributes, index + 1, this.numChildren - index);
+        System.arraycopy(this.children, index, this.children, index + 1, this.numChildren - index);
+        this.childAttributes[index] = attribute;
+        this.children[index] = child;
+        this.numChildren++;
+        return child;
+    }
+
+    private void removeChild(int attribute) {
+        int index = this.childIndex(attribute);
+        if (index < 0)
+            return;
+
+        this.numChildren--;
+        if (this.numChildren == 0) {
+            this.clearChildren();
+            return;
+        }
+        System.arraycopy(this.childAttributes, index + 1, this.childAttributes, index, this.numChildren - index);
+        System.arraycopy(this.children, index + 1, this.children, index, this.numChildren - index);
+        this.children[this.numChildren] = null;
     }
 
-    void setChildren(FDTreeElement[] children) {
-        this.children = children;
+    private void clearChildren() {
+        this.childAttributes = null;
+        this.children = null;
+        this.numChildren = 0;
+    }
+
+    private int childIndex(int attribute) {
+        if (this.numChildren == 0)
+            return -1;
+        return Arrays.binarySearch(this.childAttributes, 0, this.numChildren, attribute);
     }
 
     // rhsAttributes
@@ -105,15 +174,13 @@ public class FDTreeElement {
 
     void trimRecursive(int currentDepth, int newDepth) {
         if (currentDepth == newDepth) {
-            this.children = null;
+            this.clearChildren();
             this.rhsAttributes.and(this.rhsFds);
             return;
         }
 
-        if (this.children != null)
-            for (FDTreeElement child : this.children)
-                if (child != null)
-                    child.trimRecursive(currentDepth + 1, newDepth);
+        for (int i = 0; i < this.numChildren; i++)
+            this.children[i].trimRecursive(currentDepth + 1, newDepth);
     }
 
     boolean containsFdOrGeneralization(OpenBitSet lhs, int rhs, int currentLhsAttr) {
@@ -126,8 +193,12 @@ public class FDTreeElement {
 
         int nextLhsAttr = lhs.nextSetBit(currentLhsAttr + 1);
 
-        if ((this.children != null) && (this.children[currentLhsAttr] != null) && (this.children[currentLhsAttr].hasRhsAttribute(rhs)))
-            if (this.children[currentLhsAttr].containsFdOrGeneralization(lhs, rhs, nextLhsAttr))
+        if (this.numChildren == 0)
+            return false;
+
+        FDTreeElement child = this.getChild(currentLhsAttr);
+        if ((child != null) && (child.hasRhsAttribute(rhs)))
+            if (child.containsFdOrGeneralization(lhs, rhs, nextLhsAttr))
                 return true;
 
         return this.containsFdOrGeneralization(lhs, rhs, nextLhsAttr);
@@ -138,15 +209,16 @@ public class FDTreeElement {
         if (this.isFd(rhs))
             foundLhs.add(currentLhs.clone());
 
-        if (this.children == null)
+        if (this.numChildren == 0)
             return;
 
         while (currentLhsAttr >= 0) {
             int nextLhsAttr = lhs.nextSetBit(currentLhsAttr + 1);
 
-            if ((this.children[currentLhsAttr] != null) && (this.children[currentLhsAttr].hasRhsAttribute(rhs))) {
+            FDTreeElement child = this.getChild(currentLhsAttr);
+            if ((child != null) && (child.hasRhsAttribute(rhs))) {
                 currentLhs.set(currentLhsAttr);
-                this.children[currentLhsAttr].getFdAndGeneralizations(lhs, rhs, nextLhsAttr, currentLhs, foundLhs);
+                child.getFdAndGeneralizations(lhs, rhs, nextLhsAttr, currentLhs, foundLhs);
                 currentLhs.clear(currentLhsAttr);
             }
 
@@ -160,15 +232,16 @@ public class FDTreeElement {
             this.removeFd(rhs);
             removed++;
         }
-        if (this.children == null)
+        if (this.numChildren == 0)
             return removed;
 
         while (currentLhsAttr >= 0) {
             int nextLhsAttr = lhs.nextSetBit(currentLhsAttr + 1);
 
-            if ((this.children[currentLhsAttr] != null) && (this.children[currentLhsAttr].hasRhsAttribute(rhs))) {
+            FDTreeElement child = this.getChild(currentLhsAttr);
+            if ((child != null) && (child.hasRhsAttribute(rhs))) {
                 currentLhs.set(currentLhsAttr);
-                removed += this.children[currentLhsAttr].removeFdFromGeneralizations(lhs, rhs, nextLhsAttr, currentLhs);
+                removed += child.removeFdFromGeneralizations(lhs, rhs, nextLhsAttr, currentLhs);
                 currentLhs.clear(currentLhsAttr);
             }
 
@@ -182,15 +255,10 @@ public class FDTreeElement {
             result.add(new FDTreeElementLhsPair(this, currentLhs.clone()));
         } else {
             currentLevel++;
-            if (this.children == null)
-                return;
-
-            for (int child = 0; child < this.numAttributes; child++) {
-                if (this.children[child] == null)
-                    continue;
-
+            for (int i = 0; i < this.numChildren; i++) {
+                int child = this.childAttributes[i];
                 currentLhs.set(child);
-                this.children[child].getLevel(level, currentLevel, currentLhs, result);
+                this.children[i].getLevel(level, currentLevel, currentLhs, result);
                 currentLhs.clear(child);
             }
         }
@@ -204,14 +272,15 @@ public class FDTreeElement {
             return true;
         }
 
-        if ((this.children != null) && (this.children[currentLhsAttr] != null)) {
+        FDTreeElement child = this.getChild(currentLhsAttr);
+        if (child != null) {
             // Move to the next child with the next lhs attribute
-            if (!this.children[currentLhsAttr].removeRecursive(lhs, rhs, lhs.nextSetBit(currentLhsAttr + 1)))
+            if (!child.removeRecursive(lhs, rhs, lhs.nextSetBit(currentLhsAttr + 1)))
                 return false; // This is a shortcut: if the child was unable to remove the rhs, then this node can also not remove it
 
             // Delete the child node if it has no rhs attributes any more
-            if (this.children[currentLhsAttr].getRhsAttributes().cardinality() == 0)
-                this.children[currentLhsAttr] = null;
+            if (child.getRhsAttributes().isEmpty())
+                this.removeChild(currentLhsAttr);
         }
 
         // Check if another child requires the rhs and if not, remove it from this node
@@ -223,20 +292,16 @@ public class FDTreeElement {
     }
 
     public void removeChildren(int rhs) {
-        if (this.children == null) return;
-
-        for (int i = 0; i < numAttributes; i++) {
-            if (this.children[i] != null && this.children[i].isFd(rhs)) {
+        for (int i = 0; i < this.numChildren; i++) {
+            if (this.children[i].isFd(rhs)) {
                 this.children[i].removeRhsAttribute(rhs);
             }
         }
     }
 
     private boolean isLastNodeOf(int rhs) {
-        if (this.children == null)
-            return true;
-        for (FDTreeElement child : this.children)
-            if ((child != null) && child.hasRhsAttribute(rhs))
+        for (int i = 0; i < this.numChildren; i++)
+            if (this.children[i].hasRhsAttribute(rhs))
                 return false;
         return true;
     }
@@ -249,16 +314,11 @@ public class FDTreeElement {
             functionalDependencies.add(fdResult);
         }
 
-        if (this.getChildren() == null)
-            return;
-
-        for (int childAttr = 0; childAttr < this.numAttributes; childAttr++) {
-            FDTreeElement element = this.getChildren()[childAttr];
-            if (element != null) {
-                lhs.set(childAttr);
-                element.addFunctionalDependenciesInto(functionalDependencies, lhs, columnIdentifiers, plis);
-                lhs.clear(childAttr);
-            }
+        for (int i = 0; i < this.numChildren; i++) {
+            int childAttr = this.childAttributes[i];
+            lhs.set(childAttr);
+            this.children[i].addFunctionalDependenciesInto(functionalDependencies, lhs, columnIdentifiers, plis);
+            lhs.clear(childAttr);
         }
     }
 
@@ -268,16 +328,11 @@ public class FDTreeElement {
             functionalDependencies.add(new OpenBitSetFD(lhs.clone(), rhs));
         }
 
-        if (this.getChildren() == null)
-            return;
-
-        for (int childAttr = 0; childAttr < this.numAttributes; childAttr++) {
-            FDTreeElement element = this.getChildren()[childAttr];
-            if (element != null) {
-                lhs.set(childAttr);
-                element.addFunctionalDependenciesInto(functionalDependencies, lhs);
-                lhs.clear(childAttr);
-            }
+        for (int i = 0; i < this.numChildren; i++) {
+            int childAttr = this.childAttributes[i];
+            lhs.set(childAttr);
+            this.children[i].addFunctionalDependenciesInto(functionalDependencies, lhs);
+            lhs.clear(childAttr);
         }
     }
 
@@ -290,17 +345,11 @@ public class FDTreeElement {
             numFDs++;
         }
 
-        if (this.getChildren() == null)
-            return numFDs;
-
-        for (int childAttr = 0; childAttr < this.numAttributes; childAttr++) {
-            FDTreeElement element = this.getChildren()[childAttr];
-            if (element != null) {
-
-                lhs.set(childAttr);
-                numFDs += element.addFunctionalDependenciesInto(resultReceiver, lhs, columnIdentifiers, plis);
-                lhs.clear(childAttr);
-            }
+        for (int i = 0; i < this.numChildren; i++) {
+            int childAttr = this.childAttributes[i];
+            lhs.set(childAttr);
+            numFDs += this.children[i].addFunctionalDependenciesInto(resultReceiver, lhs, columnIdentifiers, plis);
+            lhs.clear(childAttr);
         }
 
         return numFDs;
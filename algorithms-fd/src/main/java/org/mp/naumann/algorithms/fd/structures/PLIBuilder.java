@@ -19,10 +19,12 @@ package org.mp.naumann.algorithms.fd.structures;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.mp.naumann.algorithms.fd.FDLogger;
 import org.mp.naumann.algorithms.fd.hyfd.PositionListIndex;
 import org.mp.naumann.database.TableInput;
@@ -31,10 +33,21 @@ public class PLIBuilder {
 
     private final ClusterMapBuilder clusterMapBuilder;
     private final boolean isNullEqualNull;
+    private final boolean parallel;
+    private List<PositionListIndex> plis;
+    private List<Integer> pliOrder;
 
     public PLIBuilder(int numAttributes, boolean isNullEqualNull) {
-        this.clusterMapBuilder = new ClusterMapBuilder(numAttributes);
+        this(numAttributes, isNullEqualNull, false);
+    }
+
+    /**
+     * @param parallel whether the columns are processed concurrently, which results in the same plis
+     */
+    public PLIBuilder(int numAttributes, boolean isNullEqualNull, boolean parallel) {
+        this.clusterMapBuilder = new ClusterMapBuilder(numAttributes, parallel);
         this.isNullEqualNull = isNullEqualNull;
+        this.parallel = parallel;
     }
 
     public List<HashMap<String, IntArrayList>> getClusterMaps() {
@@ -47,30 +60,30 @@ public class PLIBuilder {
 
     public void addRecords(TableInput tableInput) {
         clusterMapBuilder.addRecords(tableInput);
+        invalidate();
+    }
+
+    private void invalidate() {
+        plis = null;
+        pliOrder = null;
     }
 
     /**
      * Creates the actual positionListIndices based on the clusterMaps calculated beforehand.
      * Clusters of size 1 are being discarded in the process.
+     * The plis are cached until further records are added.
      *
      * @return clustersPerAttribute,
      */
     public List<PositionListIndex> fetchPositionListIndexes() {
-        List<HashMap<String, IntArrayList>> clusterMaps = clusterMapBuilder.getClusterMaps();
-        List<PositionListIndex> clustersPerAttribute = new ArrayList<>();
-        for (int columnId = 0; columnId < clusterMaps.size(); columnId++) {
-            List<IntArrayList> clusters = new ArrayList<>();
-            HashMap<String, IntArrayList> clusterMap = clusterMaps.get(columnId);
-
-            if (!isNullEqualNull)
-                clusterMap.remove(null);
-
-            for (IntArrayList cluster : clusterMap.values())
-                if (cluster.size() > 1)
-                    clusters.add(cluster);
-
-            clustersPerAttribute.add(new PositionListIndex(columnId, clusters));
-        }
+        if (plis != null)
+            return plis;
+        IntStream columnIds = IntStream.range(0, clusterMapBuilder.getClusterMaps().size());
+        if (parallel)
+            columnIds = columnIds.parallel();
+        List<PositionListIndex> clustersPerAttribute = columnIds
+                .mapToObj(this::fetchPositionListIndex)
+                .collect(Collectors.toList());
         // Sort plis by number of clusters: For searching in the covers and for
         // validation, it is good to have attributes with few non-unique values
         // and many clusters left in the prefix tree
@@ -81,15 +94,31 @@ public class PLIBuilder {
             return numClustersInO2 - numClustersInO1;
         });
 
+        plis = clustersPerAttribute;
         return clustersPerAttribute;
     }
 
+    private PositionListIndex fetchPositionListIndex(int columnId) {
+        List<IntArrayList> clusters = new ArrayList<>();
+        HashMap<String, IntArrayList> clusterMap = clusterMapBuilder.getClusterMaps().get(columnId);
+
+        if (!isNullEqualNull)
+            clusterMap.remove(null);
+
+        for (IntArrayList cluster : clusterMap.values())
+            if (cluster.size() > 1)
+                clusters.add(cluster);
+
+        return new PositionListIndex(columnId, clusters);
+    }
+
     private int numClusters(PositionListIndex idx) {
         return getNumLastRecords() - idx.getNumNonUniqueValues() + idx.getClusters().size();
     }
 
     public void addRecords(Collection<? extends Iterable<String>> records) {
         clusterMapBuilder.addRecords(records);
+        invalidate();
     }
 
     public boolean isNullEqualNull() {
@@ -101,7 +130,10 @@ public class PLIBuilder {
     }
 
     public List<Integer> getPliOrder() {
-        return fetchPositionListIndexes().stream().map(PositionListIndex::getAttribute).collect(Collectors.toList());
+        if (pliOrder == null)
+            pliOrder = Collections.unmodifiableList(fetchPositionListIndexes().stream()
+                    .map(PositionListIndex::getAttribute).collect(Collectors.toList()));
+        return pliOrder;
     }
 
 }
@@ -0,0 +1,143 @@
+package org.mp.naumann.algorithms.fd.structures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.apache.lucene.util.OpenBitSet;
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
+
+/**
+ * Shared state of a refinement check whose clusters are split into ranges that are checked by different threads.
+ * A range that refutes a rhs attribute reports it here, so that the other ranges can stop checking it, and all
+ * ranges stop as soon as every rhs attribute is refuted. The rhs attributes that are refined by the lhs are the
+ * ones that are refined in every range.
+ */
+public class ParallelRefinement {
+
+    // Minimum number of records in the clusters to check before splitting pays off
+    public static final int MIN_RECORDS = 1 << 16;
+    private static final int MIN_RANGE_RECORDS = 1 << 12;
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final OpenBitSet remainingRhs;
+    private volatile int refutations = 0;
+    private volatile boolean refuted;
+
+    public ParallelRefinement(OpenBitSet rhs) {
+        this.remainingRhs = rhs.clone();
+        this.refuted = remainingRhs.isEmpty();
+    }
+
+    public ParallelRefinement(int numAttributes, int rhsAttr) {
+        this.remainingRhs = new OpenBitSet(numAttributes);
+        this.remainingRhs.fastSet(rhsAttr);
+        this.refuted = false;
+    }
+
+    /**
+     * @return true if every rhs attribute has been refuted by one of the ranges
+     */
+    public boolean isRefuted() {
+        return refuted;
+    }
+
+    public synchronized void refute(int rhsAttr) {
+        if (remainingRhs.get(rhsAttr)) {
+            remainingRhs.fastClear(rhsAttr);
+            refutations++;
+            refuted = remainingRhs.isEmpty();
+        }
+    }
+
+    /**
+     * @return the number of rhs attributes refuted so far, which tells a range whether its own rhs is outdated
+     */
+    public int getRefutations() {
+        return refutations;
+    }
+
+    /**
+     * Removes the rhs attributes that other ranges have refuted from the given rhs.
+     */
+    public synchronized void retainRemaining(OpenBitSet rhs) {
+        rhs.and(remainingRhs);
+    }
+
+    /**
+     * Decides whether a candidate of a level is validated by splitting the clusters of its pivot pli across the
+     * threads instead of validating it as a whole on one thread. This only pays off if the level has too few
+     * candidates to keep all threads busy and the pivot pli is large enough to be split at all.
+     *
+     * @param levelSize    the number of candidates in the level
+     * @param pivotRecords the number of records in the clusters of the candidate's pivot pli
+     */
+    public static boolean shouldSplit(int levelSize, int numThreads, long pivotRecords) {
+        return levelSize < numThreads && pivotRecords >= MIN_RECORDS;
+    }
+
+    /**
+     * Checks the given clusters with one task per range on the executor, or with a single call on the calling
+     * thread if they are too small to be split. Must not be called from a thread of the executor, as it waits for
+     * the ranges to finish.
+     *
+     * @return the results of the ranges
+     */
+    public static <C extends Collection<?>, R> List<R> invokeRanges(ExecutorService executor, int numThreads, List<C> clusters,
+                                                                   Function<List<C>, R> range) throws AlgorithmExecutionException {
+        List<List<C>> ranges = split(clusters, numThreads * RANGES_PER_THREAD);
+        if (ranges.size() < 2) {
+            return Collections.singletonList(range.apply(clusters));
+        }
+
+        List<Future<R>> futures = new ArrayList<>(ranges.size());
+        for (List<C> clusterRange : ranges) {
+            futures.add(executor.submit(() -> range.apply(clusterRange)));
+        }
+        List<R> results = new ArrayList<>(ranges.size());
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException | InterruptedException e) {
+                e.printStackTrace();
+                throw new AlgorithmExecutionException(e.getMessage());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Splits the clusters into at most numRanges consecutive ranges with about the same number of records each.
+     * Clusters with fewer than {@link #MIN_RECORDS} records in total are not split.
+     */
+    static <C extends Collection<?>> List<List<C>> split(List<C> clusters, int numRanges) {
+        long numRecords = 0;
+        for (C cluster : clusters) {
+            numRecords += cluster.size();
+        }
+        if (numRecords < MIN_RECORDS || numRanges < 2) {
+            return Collections.singletonList(clusters);
+        }
+
+        long recordsPerRange = Math.max(MIN_RANGE_RECORDS, (numRecords + numRanges - 1) / numRanges);
+        List<List<C>> ranges = new ArrayList<>(numRanges);
+        int from = 0;
+        long recordsInRange = 0;
+        for (int i = 0; i < clusters.size(); i++) {
+            recordsInRange += clusters.get(i).size();
+            if (recordsInRange >= recordsPerRange) {
+                ranges.add(clusters.subList(from, i + 1));
+                from = i + 1;
+                recordsInRange = 0;
+            }
+        }
+        if (from < clusters.size()) {
+            ranges.add(clusters.subList(from, clusters.size()));
+        }
+        return ranges;
+    }
+}
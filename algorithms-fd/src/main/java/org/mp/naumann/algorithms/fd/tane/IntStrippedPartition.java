@@ -0,0 +1,130 @@
+package org.mp.naumann.algorithms.fd.tane;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongBigArrayBigList;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+/**
+ * A {@link StrippedPartition} with its equivalence classes stored as int arrays, which needs a fraction of the memory
+ * of a {@link LongStrippedPartition} and can be multiplied without boxing or big list indirection.
+ */
+public class IntStrippedPartition extends StrippedPartition {
+
+    private final int[][] strippedPartition;
+
+    /**
+     * Create a StrippedPartition with only one equivalence class with the definied number of
+     * elements. <br/> Tuple ids start with 0 to numberOfElements-1
+     */
+    public IntStrippedPartition(int numberTuples) {
+        this(singleClass(numberTuples), numberTuples);
+    }
+
+    /**
+     * Create a StrippedPartition from a HashMap mapping the values to the tuple ids.
+     */
+    public IntStrippedPartition(Object2ObjectOpenHashMap<Object, LongBigArrayBigList> partition) {
+        this(strip(partition));
+    }
+
+    private IntStrippedPartition(int[][] strippedPartition) {
+        this(strippedPartition, countElements(strippedPartition));
+    }
+
+    private IntStrippedPartition(int[][] strippedPartition, long elementCount) {
+        super(elementCount, strippedPartition.length);
+        this.strippedPartition = strippedPartition;
+    }
+
+    public int[][] getStrippedPartition() {
+        return strippedPartition;
+    }
+
+    /**
+     * Calculate the product of this and another stripped partition and return the result as
+     * a new stripped partition.
+     *
+     * @param other:  Second StrippedPartition
+     * @param tTable: Table with an entry of -1 for each tuple, which is restored before returning
+     * @return A new StrippedPartition as the product of the two given StrippedPartitions.
+     */
+    public IntStrippedPartition multiply(IntStrippedPartition other, int[] tTable) {
+        int[][] pt1 = this.strippedPartition;
+        ObjectArrayList<int[]> result = new ObjectArrayList<>();
+        IntArrayList[] partition = new IntArrayList[pt1.length];
+        long noOfElements = 0;
+        // iterate over first stripped partition and fill tTable.
+        for (int i = 0; i < pt1.length; i++) {
+            for (int tId : pt1[i]) {
+                tTable[tId] = i;
+            }
+        }
+        // iterate over second stripped partition.
+        for (int[] eqClass : other.strippedPartition) {
+            for (int tId : eqClass) {
+                // tuple is also in an equivalence class of pt1
+                int index = tTable[tId];
+                if (index != -1) {
+                    if (partition[index] == null) {
+                        partition[index] = new IntArrayList();
+                    }
+                    partition[index].add(tId);
+                }
+            }
+            for (int tId : eqClass) {
+                int index = tTable[tId];
+                if (index != -1 && partition[index] != null) {
+                    if (partition[index].size() > 1) {
+                        result.add(partition[index].toIntArray());
+                        noOfElements += partition[index].size();
+                    }
+                    partition[index] = null;
+                }
+            }
+        }
+        // cleanup tTable to reuse it in the next multiplication.
+        for (int[] eqClass : pt1) {
+            for (int tId : eqClass) {
+                tTable[tId] = -1;
+            }
+        }
+        return new IntStrippedPartition(result.toArray(new int[result.size()][]), noOfElements);
+    }
+
+    private static int[][] singleClass(int numberTuples) {
+        // StrippedPartition only contains partition with more than one elements.
+        if (numberTuples <= 1) {
+            return new int[0][];
+        }
+        int[] eqClass = new int[numberTuples];
+        for (int i = 0; i < numberTuples; i++) {
+            eqClass[i] = i;
+        }
+        return new int[][]{eqClass};
+    }
+
+    private static int[][] strip(Object2ObjectOpenHashMap<Object, LongBigArrayBigList> partition) {
+        ObjectArrayList<int[]> strippedPartition = new ObjectArrayList<>();
+        //create stripped partitions -> only use equivalence classes with size > 1.
+        for (LongBigArrayBigList eqClass : partition.values()) {
+            if (eqClass.size64() > 1) {
+                int[] tIds = new int[(int) eqClass.size64()];
+                for (int i = 0; i < tIds.length; i++) {
+                    tIds[i] = (int) eqClass.getLong(i);
+                }
+                strippedPartition.add(tIds);
+            }
+        }
+        return strippedPartition.toArray(new int[strippedPartition.size()][]);
+    }
+
+    private static long countElements(int[][] strippedPartition) {
+        long elementCount = 0;
+        for (int[] eqClass : strippedPartition) {
+            elementCount += eqClass.length;
+        }
+        return elementCount;
+    }
+
+}
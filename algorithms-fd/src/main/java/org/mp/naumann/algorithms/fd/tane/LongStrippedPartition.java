@@ -0,0 +1,120 @@
+package org.mp.naumann.algorithms.fd.tane;
+
+import it.unimi.dsi.fastutil.longs.LongBigArrayBigList;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectBigArrayBigList;
+
+public class LongStrippedPartition extends StrippedPartition {
+    private ObjectBigArrayBigList<LongBigArrayBigList> strippedPartition = null;
+
+    /**
+     * Create a StrippedPartition with only one equivalence class with the definied number of
+     * elements. <br/> Tuple ids start with 0 to numberOfElements-1
+     */
+    public LongStrippedPartition(long numberTuples) {
+        this(singleClass(numberTuples), numberTuples);
+    }
+
+    /**
+     * Create a StrippedPartition from a HashMap mapping the values to the tuple ids.
+     */
+    public LongStrippedPartition(Object2ObjectOpenHashMap<Object, LongBigArrayBigList> partition) {
+        this(strip(partition));
+    }
+
+    public LongStrippedPartition(ObjectBigArrayBigList<LongBigArrayBigList> sp, long elementCount) {
+        super(elementCount, sp.size64());
+        this.strippedPartition = sp;
+    }
+
+    private LongStrippedPartition(ObjectBigArrayBigList<LongBigArrayBigList> sp) {
+        this(sp, countElements(sp));
+    }
+
+    public ObjectBigArrayBigList<LongBigArrayBigList> getStrippedPartition() {
+        return this.strippedPartition;
+    }
+
+    /**
+     * Calculate the product of this and another stripped partition and return the result as
+     * a new stripped partition.
+     *
+     * @param other:  Second StrippedPartition
+     * @param tTable: Table with an entry of -1 for each tuple, which is restored before returning
+     * @return A new StrippedPartition as the product of the two given StrippedPartitions.
+     */
+    public LongStrippedPartition multiply(LongStrippedPartition other, LongBigArrayBigList tTable) {
+        ObjectBigArrayBigList<LongBigArrayBigList> result = new ObjectBigArrayBigList<>();
+        ObjectBigArrayBigList<LongBigArrayBigList> pt1List = this.strippedPartition;
+        ObjectBigArrayBigList<LongBigArrayBigList> pt2List = other.strippedPartition;
+        ObjectBigArrayBigList<LongBigArrayBigList> partition = new ObjectBigArrayBigList<>();
+        long noOfElements = 0;
+        // iterate over first stripped partition and fill tTable.
+        for (long i = 0; i < pt1List.size64(); i++) {
+            for (long tId : pt1List.get(i)) {
+                tTable.set(tId, i);
+            }
+            partition.add(new LongBigArrayBigList());
+        }
+        // iterate over second stripped partition.
+        for (long i = 0; i < pt2List.size64(); i++) {
+            for (long t_id : pt2List.get(i)) {
+                // tuple is also in an equivalence class of pt1
+                if (tTable.get(t_id) != -1) {
+                    partition.get(tTable.get(t_id)).add(t_id);
+                }
+            }
+            for (long tId : pt2List.get(i)) {
+                // if condition not in the paper;
+                if (tTable.get(tId) != -1) {
+                    if (partition.get(tTable.get(tId)).size64() > 1) {
+                        LongBigArrayBigList eqClass = partition.get(tTable.get(tId));
+                        result.add(eqClass);
+                        noOfElements += eqClass.size64();
+                    }
+                    partition.set(tTable.get(tId), new LongBigArrayBigList());
+                }
+            }
+        }
+        // cleanup tTable to reuse it in the next multiplication.
+        for (long i = 0; i < pt1List.size64(); i++) {
+            for (long tId : pt1List.get(i)) {
+                tTable.set(tId, -1);
+            }
+        }
+        return new LongStrippedPartition(result, noOfElements);
+    }
+
+    private static ObjectBigArrayBigList<LongBigArrayBigList> singleClass(long numberTuples) {
+        ObjectBigArrayBigList<LongBigArrayBigList> strippedPartition = new ObjectBigArrayBigList<>();
+        // StrippedPartition only contains partition with more than one elements.
+        if (numberTuples > 1) {
+            LongBigArrayBigList newEqClass = new LongBigArrayBigList();
+            for (long i = 0; i < numberTuples; i++) {
+                newEqClass.add(i);
+            }
+            strippedPartition.add(newEqClass);
+        }
+        return strippedPartition;
+    }
+
+    private static ObjectBigArrayBigList<LongBigArrayBigList> strip(Object2ObjectOpenHashMap<Object, LongBigArrayBigList> partition) {
+        ObjectBigArrayBigList<LongBigArrayBigList> strippedPartition = new ObjectBigArrayBigList<>();
+        //create stripped partitions -> only use equivalence classes with size > 1.
+        for (LongBigArrayBigList eqClass : partition.values()) {
+            if (eqClass.size64() > 1) {
+                strippedPartition.add(eqClass);
+            }
+        }
+        return strippedPartition;
+    }
+
+    private static long countElements(ObjectBigArrayBigList<LongBigArrayBigList> strippedPartition) {
+        long elementCount = 0;
+        for (LongBigArrayBigList eqClass : strippedPartition) {
+            elementCount += eqClass.size64();
+        }
+        return elementCount;
+    }
+
+}
@@ -3,9 +3,9 @@ package org.mp.naumann.algorithms.fd.tane;
 import it.unimi.dsi.fastutil.longs.LongBigArrayBigList;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import it.unimi.dsi.fastutil.objects.ObjectBigArrayBigList;
 
 import org.apache.lucene.util.OpenBitSet;
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
 import org.mp.naumann.algorithms.fd.FunctionalDependency;
 import org.mp.naumann.algorithms.fd.FunctionalDependencyAlgorithm;
 import org.mp.naumann.algorithms.fd.FunctionalDependencyResultReceiver;
@@ -16,7 +16,13 @@ import org.mp.naumann.database.data.ColumnCombination;
 import org.mp.naumann.database.data.ColumnIdentifier;
 import org.mp.naumann.database.data.Row;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
 
@@ -31,14 +37,31 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
     private Object2ObjectOpenHashMap<OpenBitSet, CombinationHelper> level0 = null;
     private Object2ObjectOpenHashMap<OpenBitSet, CombinationHelper> level1 = null;
     private Object2ObjectOpenHashMap<OpenBitSet, ObjectArrayList<OpenBitSet>> prefix_blocks = null;
-    private LongBigArrayBigList tTable;
+    private boolean intPartitions;
+    // tables used for stripped partition products, one per thread
+    private ThreadLocal<int[]> intTTable;
+    private ThreadLocal<LongBigArrayBigList> longTTable;
+    private final boolean parallel;
+    private ExecutorService executor;
 
     public TaneAlgorithm(Table table, FunctionalDependencyResultReceiver resultReceiver) {
+        this(table, resultReceiver, false);
+    }
+
+    public TaneAlgorithm(Table table, FunctionalDependencyResultReceiver resultReceiver, boolean parallel) {
+        this(parallel);
         configure(table, resultReceiver);
     }
 
     public TaneAlgorithm() {
+        this(false);
+    }
 
+    /**
+     * @param parallel whether the partition products of a level are computed concurrently
+     */
+    public TaneAlgorithm(boolean parallel) {
+        this.parallel = parallel;
     }
 
     public void configure(Table table, FunctionalDependencyResultReceiver resultReceiver) {
@@ -46,8 +69,30 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
         this.fdResultReceiver = resultReceiver;
     }
 
-    public void execute() {
+    public void execute() throws AlgorithmExecutionException {
+        if (parallel) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        try {
+            executeTane();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            // the pool threads are gone, but the calling thread still holds its table
+            if (intTTable != null) {
+                intTTable.remove();
+                intTTable = null;
+            }
+            if (longTTable != null) {
+                longTTable.remove();
+                longTTable = null;
+            }
+        }
+    }
 
+    private void executeTane() throws AlgorithmExecutionException {
         level0 = new Object2ObjectOpenHashMap<>();
         level1 = new Object2ObjectOpenHashMap<>();
         prefix_blocks = new Object2ObjectOpenHashMap<>();
@@ -57,10 +102,22 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
         setColumnIdentifiers();
         numberAttributes = this.columnNames.size();
 
-        // Initialize table used for stripped partition product
-        tTable = new LongBigArrayBigList(numberTuples);
-        for (long i = 0; i < numberTuples; i++) {
-            tTable.add(-1);
+        // Initialize tables used for stripped partition product
+        intPartitions = numberTuples < Integer.MAX_VALUE;
+        if (intPartitions) {
+            intTTable = ThreadLocal.withInitial(() -> {
+                int[] tTable = new int[(int) numberTuples];
+                Arrays.fill(tTable, -1);
+                return tTable;
+            });
+        } else {
+            longTTable = ThreadLocal.withInitial(() -> {
+                LongBigArrayBigList tTable = new LongBigArrayBigList(numberTuples);
+                for (long i = 0; i < numberTuples; i++) {
+                    tTable.add(-1);
+                }
+                return tTable;
+            });
         }
 
         // Initialize Level 0
@@ -68,7 +125,7 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
         OpenBitSet rhsCandidatesLevel0 = new OpenBitSet();
         rhsCandidatesLevel0.set(1, numberAttributes + 1);
         chLevel0.setRhsCandidates(rhsCandidatesLevel0);
-        StrippedPartition spLevel0 = new StrippedPartition(numberTuples);
+        StrippedPartition spLevel0 = intPartitions ? new IntStrippedPartition((int) numberTuples) : new LongStrippedPartition(numberTuples);
         chLevel0.setPartition(spLevel0);
         spLevel0 = null;
         level0.put(new OpenBitSet(), chLevel0);
@@ -84,8 +141,11 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
             rhsCandidatesLevel1.set(1, numberAttributes + 1);
             chLevel1.setRhsCandidates(rhsCandidatesLevel0);
 
-            StrippedPartition spLevel1 = new StrippedPartition(partitions.get(i - 1));
+            Object2ObjectOpenHashMap<Object, LongBigArrayBigList> partition = partitions.get(i - 1);
+            StrippedPartition spLevel1 = intPartitions ? new IntStrippedPartition(partition) : new LongStrippedPartition(partition);
             chLevel1.setPartition(spLevel1);
+            // the int partition is a copy, so the tuple id lists are not needed anymore
+            partitions.set(i - 1, null);
 
             level1.put(combinationLevel1, chLevel1);
         }
@@ -299,52 +359,48 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
 
     /**
      * Calculate the product of two stripped partitions and return the result as
-     * a new stripped partition.
+     * a new stripped partition, using the tTable of the current thread.
      *
      * @param pt1: First StrippedPartition
      * @param pt2: Second StrippedPartition
      * @return A new StrippedPartition as the product of the two given StrippedPartitions.
      */
     private StrippedPartition multiply(StrippedPartition pt1, StrippedPartition pt2) {
-        ObjectBigArrayBigList<LongBigArrayBigList> result = new ObjectBigArrayBigList<>();
-        ObjectBigArrayBigList<LongBigArrayBigList> pt1List = pt1.getStrippedPartition();
-        ObjectBigArrayBigList<LongBigArrayBigList> pt2List = pt2.getStrippedPartition();
-        ObjectBigArrayBigList<LongBigArrayBigList> partition = new ObjectBigArrayBigList<>();
-        long noOfElements = 0;
-        // iterate over first stripped partition and fill tTable.
-        for (long i = 0; i < pt1List.size64(); i++) {
-            for (long tId : pt1List.get(i)) {
-                tTable.set(tId, i);
-            }
-            partition.add(new LongBigArrayBigList());
+        if (intPartitions) {
+            return ((IntStrippedPartition) pt1).multiply((IntStrippedPartition) pt2, intTTable.get());
         }
-        // iterate over second stripped partition.
-        for (long i = 0; i < pt2List.size64(); i++) {
-            for (long t_id : pt2List.get(i)) {
-                // tuple is also in an equivalence class of pt1
-                if (tTable.get(t_id) != -1) {
-                    partition.get(tTable.get(t_id)).add(t_id);
-                }
-            }
-            for (long tId : pt2List.get(i)) {
-                // if condition not in the paper;
-                if (tTable.get(tId) != -1) {
-                    if (partition.get(tTable.get(tId)).size64() > 1) {
-                        LongBigArrayBigList eqClass = partition.get(tTable.get(tId));
-                        result.add(eqClass);
-                        noOfElements += eqClass.size64();
-                    }
-                    partition.set(tTable.get(tId), new LongBigArrayBigList());
-                }
+        return ((LongStrippedPartition) pt1).multiply((LongStrippedPartition) pt2, longTTable.get());
+    }
+
+    /**
+     * Calculate the products for the combinations of the next level, concurrently if TANE runs in parallel.
+     *
+     * @param products: Pairs of CombinationHelpers of the current level whose partitions are multiplied
+     * @return The products in the same order.
+     */
+    private List<StrippedPartition> multiplyAll(List<CombinationHelper[]> products) throws AlgorithmExecutionException {
+        List<StrippedPartition> partitions = new ArrayList<>(products.size());
+        if (executor == null || products.size() < 2) {
+            for (CombinationHelper[] product : products) {
+                partitions.add(multiply(product[0].getPartition(), product[1].getPartition()));
             }
+            return partitions;
+        }
+
+        List<Future<StrippedPartition>> futures = new ArrayList<>(products.size());
+        for (CombinationHelper[] product : products) {
+            futures.add(executor.submit(() -> multiply(product[0].getPartition(), product[1].getPartition())));
         }
-        // cleanup tTable to reuse it in the next multiplication.
-        for (long i = 0; i < pt1List.size64(); i++) {
-            for (long tId : pt1List.get(i)) {
-                tTable.set(tId, -1);
+        for (Future<StrippedPartition> future : futures) {
+            try {
+                partitions.add(future.get());
+            } catch (ExecutionException | InterruptedException e) {
+                executor.shutdownNow();
+                e.printStackTrace();
+                throw new AlgorithmExecutionException(e.getMessage());
             }
         }
-        return new StrippedPartition(result, noOfElements);
+        return partitions;
     }
 
     private long getLastSetBitIndex(OpenBitSet bitset) {
@@ -427,12 +483,14 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
         return xIsValid;
     }
 
-    private void generateNextLevel() {
+    private void generateNextLevel() throws AlgorithmExecutionException {
         level0 = level1;
         level1 = null;
         System.gc();
 
         Object2ObjectOpenHashMap<OpenBitSet, CombinationHelper> new_level = new Object2ObjectOpenHashMap<>();
+        List<CombinationHelper> newCombinations = new ArrayList<>();
+        List<CombinationHelper[]> products = new ArrayList<>();
 
         buildPrefixBlocks();
 
@@ -449,16 +507,15 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
                 X.or(c[1]);
 
                 if (checkSubsets(X)) {
-                    StrippedPartition st = null;
                     CombinationHelper ch = new CombinationHelper();
                     if (level0.get(c[0]).isValid() && level0.get(c[1]).isValid()) {
-                        st = multiply(level0.get(c[0]).getPartition(), level0.get(c[1]).getPartition());
+                        newCombinations.add(ch);
+                        products.add(new CombinationHelper[]{level0.get(c[0]), level0.get(c[1])});
                     } else {
                         ch.setInvalid();
                     }
                     OpenBitSet rhsCandidates = new OpenBitSet();
 
-                    ch.setPartition(st);
                     ch.setRhsCandidates(rhsCandidates);
 
                     new_level.put(X, ch);
@@ -466,6 +523,11 @@ public class TaneAlgorithm implements FunctionalDependencyAlgorithm {
             }
         }
 
+        List<StrippedPartition> partitions = multiplyAll(products);
+        for (int i = 0; i < partitions.size(); i++) {
+            newCombinations.get(i).setPartition(partitions.get(i));
+        }
+
         level1 = new_level;
     }
 
@@ -0,0 +1,53 @@
+package org.mp.naumann.algorithms.fd;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.mp.naumann.algorithms.fd.fixtures.ListTable;
+import org.mp.naumann.algorithms.fd.incremental.IncrementalFDConfiguration;
+import org.mp.naumann.algorithms.fd.utils.IncrementalFDResultListener;
+import org.mp.naumann.database.Table;
+import org.mp.naumann.database.data.GenericRow;
+import org.mp.naumann.database.data.Row;
+
+public class FDBootstrapTest {
+
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("A", "B", "C", "D", "E");
+
+    @Test
+    public void testSameFDsAsHyFD() throws Exception {
+        Table table = ListTable.of("test", COLUMN_NAMES, generateRows(200));
+        Set<String> expected = toStrings(new HyFDInitialAlgorithm(new IncrementalFDConfiguration("hyfd"), table).execute());
+
+        for (int chunkSize : new int[]{1, 10, 50, 200, 500}) {
+            FDBootstrap bootstrap = new FDBootstrap(new IncrementalFDConfiguration("bootstrap"), table, chunkSize, 30);
+            IncrementalFDResultListener listener = new IncrementalFDResultListener();
+            bootstrap.addResultListener(listener);
+            Set<String> actual = toStrings(bootstrap.execute());
+            assertEquals("chunk size " + chunkSize, expected, actual);
+            assertEquals(expected, toStrings(listener.getFDs()));
+        }
+    }
+
+    private static Set<String> toStrings(List<FunctionalDependency> fds) {
+        return fds.stream().map(FunctionalDependency::toString).collect(Collectors.toSet());
+    }
+
+    private static List<Row> generateRows(int numRows) {
+        Random random = new Random(7);
+        List<Row> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            int a = random.nextInt(10);
+            int b = random.nextInt(4);
+            rows.add(GenericRow.ofColumnNames(COLUMN_NAMES, "a" + a, "b" + b, "c" + a % 3, "d" + (a + b) % 5,
+                    "e" + random.nextInt(60)));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,61 @@
+package org.mp.naumann.algorithms.fd.fdep;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import org.junit.Test;
+import org.mp.naumann.algorithms.fd.FDAlgorithmTest;
+import org.mp.naumann.algorithms.fd.FDLogger;
+import org.mp.naumann.algorithms.fd.FunctionalDependencyAlgorithm;
+import org.mp.naumann.algorithms.fd.hyfd.PositionListIndex;
+import org.mp.naumann.algorithms.fd.structures.PLIBuilder;
+import org.mp.naumann.algorithms.fd.structures.RecordCompressor;
+import org.mp.naumann.algorithms.fd.utils.ValueComparator;
+
+public class ParallelFDEPExecutorTest extends FDAlgorithmTest {
+
+    private static final int NUM_ATTRIBUTES = 5;
+
+    @Override
+    protected FunctionalDependencyAlgorithm getNewInstance() {
+        FDLogger.setLevel(Level.OFF);
+        return new FDEPExecutor(true);
+    }
+
+    @Test
+    public void testSameFDsAsAllPairs() throws Exception {
+        // Enough pairs for several blocks
+        List<List<String>> records = generateRecords(2000);
+        PLIBuilder pliBuilder = new PLIBuilder(NUM_ATTRIBUTES, false);
+        pliBuilder.addRecords(records);
+        List<PositionListIndex> plis = pliBuilder.fetchPositionListIndexes();
+        int[][] compressedRecords = RecordCompressor.fetchCompressedRecords(plis, records.size());
+        ValueComparator valueComparator = new ValueComparator(false);
+
+        FDEP allPairs = new FDEP(NUM_ATTRIBUTES, valueComparator);
+        FDEP clusterPairs = new FDEP(NUM_ATTRIBUTES, valueComparator, plis, 4);
+        assertEquals(new HashSet<>(allPairs.execute(compressedRecords).getFunctionalDependencies()),
+                new HashSet<>(clusterPairs.execute(compressedRecords).getFunctionalDependencies()));
+    }
+
+    private static List<List<String>> generateRecords(int numRecords) {
+        Random random = new Random(11);
+        List<List<String>> records = new ArrayList<>(numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            int a = random.nextInt(20);
+            int b = random.nextInt(7);
+            records.add(Arrays.asList(
+                    Integer.toString(a),
+                    Integer.toString(b),
+                    Integer.toString(a % 4),
+                    random.nextInt(20) == 0 ? null : Integer.toString((a + b) % 9),
+                    Integer.toString(random.nextInt(numRecords))));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,70 @@
+package org.mp.naumann.algorithms.fd.fixtures;
+
+import org.mp.naumann.database.Table;
+import org.mp.naumann.database.TableInput;
+import org.mp.naumann.database.data.Column;
+import org.mp.naumann.database.data.GenericRow;
+import org.mp.naumann.database.data.Row;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mocked table whose rows are kept in a list. Every call to {@link Table#open()} reads the rows from the start.
+ */
+public class ListTable {
+
+    private ListTable() {
+    }
+
+    public static Table of(String tableName, List<String> columnNames, List<Row> rows) {
+        Table table = mock(Table.class);
+        when(table.getName()).thenReturn(tableName);
+        try {
+            when(table.open()).thenAnswer(invocation -> new ListTableInput(tableName, columnNames, rows));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return table;
+    }
+
+    private static class ListTableInput implements TableInput {
+
+        private final String tableName;
+        private final List<String> columnNames;
+        private final Iterator<Row> rows;
+
+        private ListTableInput(String tableName, List<String> columnNames, List<Row> rows) {
+            this.tableName = tableName;
+            this.columnNames = columnNames;
+            this.rows = rows.iterator();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean hasNext() {
+            return rows.hasNext();
+        }
+
+        @Override
+        public Row next() {
+            return rows.next();
+        }
+
+        @Override
+        public List<Column<String>> getColumns() {
+            return GenericRow.ofColumnNames(columnNames, new String[columnNames.size()]).getColumns();
+        }
+
+        @Override
+        public String getName() {
+            return tableName;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.mp.naumann.algorithms.fd.incremental;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
+import org.mp.naumann.algorithms.fd.FunctionalDependency;
+import org.mp.naumann.algorithms.fd.HyFDInitialAlgorithm;
+import org.mp.naumann.algorithms.fd.fixtures.ListTable;
+import org.mp.naumann.database.data.GenericRow;
+import org.mp.naumann.database.data.Row;
+import org.mp.naumann.database.statement.DefaultDeleteStatement;
+import org.mp.naumann.database.statement.DefaultInsertStatement;
+import org.mp.naumann.database.statement.Statement;
+import org.mp.naumann.processor.batch.ListBatch;
+
+public class IncrementalFDTest {
+
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("A", "B", "C", "D", "E", "F");
+    private static final String TABLE_NAME = "test";
+    private static final int MAX_LHS_SIZE = 2;
+
+    @Test
+    public void testParallelDepthFirstInduction() throws Exception {
+        Random random = new Random(3);
+        List<Row> base = generateRows(random, 400);
+        List<Row> remaining = new ArrayList<>(base);
+        List<Statement> deletes = deleteRandomRows(random, remaining, 300);
+        Set<String> expected = hyfd(new IncrementalFDConfiguration("hyfd"), remaining);
+
+        IncrementalFDConfiguration configuration = new IncrementalFDConfiguration("depth").enableDepthFirst();
+        Set<String> sequential = incremental(configuration, false, base, deletes, 100);
+        Set<String> parallel = incremental(configuration, true, base, deletes, 100);
+        assertEquals(expected, sequential);
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testPairwiseValidation() throws Exception {
+        Random random = new Random(17);
+        List<Row> base = generateRows(random, 200);
+        List<Row> inserted = generateRows(random, 120);
+        List<Statement> inserts = new ArrayList<>();
+        for (Row row : inserted) {
+            inserts.add(new DefaultInsertStatement(row.getValues(), "", TABLE_NAME));
+        }
+        List<Row> all = new ArrayList<>(base);
+        all.addAll(inserted);
+        Set<String> expected = hyfd(new IncrementalFDConfiguration("hyfd"), all);
+
+        Set<String> levelWise = incremental(new IncrementalFDConfiguration("level-wise")
+                .setPairwiseValidationThreshold(0), false, base, inserts, 40);
+        // every batch is small enough to be validated pairwise
+        Set<String> smallBatches = incremental(new IncrementalFDConfiguration("pairwise")
+                .setPairwiseValidationThreshold(100), false, base, inserts, 3);
+        Set<String> mixedBatches = incremental(new IncrementalFDConfiguration("mixed")
+                .setPairwiseValidationThreshold(10), false, base, inserts, 8);
+        assertEquals(expected, levelWise);
+        assertEquals(levelWise, smallBatches);
+        assertEquals(levelWise, mixedBatches);
+    }
+
+    @Test
+    public void testHyFDMaxLhsSize() {
+        List<Row> rows = generateRows(new Random(5), 300);
+        Set<String> unbounded = hyfd(new IncrementalFDConfiguration("hyfd"), rows);
+        Set<String> bounded = hyfd(new IncrementalFDConfiguration("bounded").setMaxLhsSize(MAX_LHS_SIZE), rows);
+        assertTrue(unbounded.stream().anyMatch(fd -> lhsSize(fd) > MAX_LHS_SIZE));
+        assertEquals(withinMaxLhsSize(unbounded), bounded);
+    }
+
+    @Test
+    public void testMaxLhsSizeWithInserts() throws Exception {
+        Random random = new Random(11);
+        List<Row> base = generateRows(random, 200);
+        List<Statement> inserts = new ArrayList<>();
+        for (Row row : generateRows(random, 200)) {
+            inserts.add(new DefaultInsertStatement(row.getValues(), "", TABLE_NAME));
+        }
+        assertMaxLhsSize(base, inserts);
+    }
+
+    @Test
+    public void testMaxLhsSizeWithDeletes() throws Exception {
+        Random random = new Random(13);
+        List<Row> base = generateRows(random, 400);
+        assertMaxLhsSize(base, deleteRandomRows(random, new ArrayList<>(base), 300));
+    }
+
+    private static void assertMaxLhsSize(List<Row> base, List<Statement> statements) throws AlgorithmExecutionException {
+        IncrementalFDConfiguration unboundedConfiguration = new IncrementalFDConfiguration("unbounded");
+        IncrementalFDConfiguration boundedConfiguration = new IncrementalFDConfiguration("bounded")
+                .setMaxLhsSize(MAX_LHS_SIZE);
+        Set<String> unbounded = incremental(unboundedConfiguration, false, base, statements, 40);
+        Set<String> bounded = incremental(boundedConfiguration, false, base, statements, 40);
+        assertTrue(unbounded.stream().anyMatch(fd -> lhsSize(fd) > MAX_LHS_SIZE));
+        assertEquals(withinMaxLhsSize(unbounded), bounded);
+    }
+
+    private static Set<String> withinMaxLhsSize(Set<String> fds) {
+        return fds.stream().filter(fd -> lhsSize(fd) <= MAX_LHS_SIZE).collect(Collectors.toSet());
+    }
+
+    private static int lhsSize(String fd) {
+        String lhs = fd.substring(fd.indexOf('[') + 1, fd.indexOf(']'));
+        return lhs.isEmpty() ? 0 : lhs.split(",").length;
+    }
+
+    /**
+     * Removes random rows from the given list and returns the statements that delete them.
+     */
+    private static List<Statement> deleteRandomRows(Random random, List<Row> rows, int numDeletes) {
+        List<Statement> deletes = new ArrayList<>(numDeletes);
+        for (int i = 0; i < numDeletes; i++) {
+            Row deleted = rows.get(random.nextInt(rows.size()));
+            // a delete removes all records with the same values
+            rows.removeIf(row -> row.getValues().equals(deleted.getValues()));
+            deletes.add(new DefaultDeleteStatement(deleted.getValues(), "", TABLE_NAME));
+        }
+        return deletes;
+    }
+
+    private static Set<String> incremental(IncrementalFDConfiguration configuration, boolean parallel, List<Row> base,
+                                           List<Statement> statements, int batchSize) throws AlgorithmExecutionException {
+        HyFDInitialAlgorithm initialAlgorithm = new HyFDInitialAlgorithm(configuration, ListTable.of(TABLE_NAME, COLUMN_NAMES, base));
+        initialAlgorithm.execute();
+        try (IncrementalFD algorithm = new IncrementalFD(TABLE_NAME, configuration)) {
+            algorithm.setValidateParallel(parallel);
+            algorithm.initialize(initialAlgorithm.getIntermediateDataStructure());
+            List<FunctionalDependency> fds = null;
+            for (int i = 0; i < statements.size(); i += batchSize) {
+                List<Statement> batch = new ArrayList<>(statements.subList(i, Math.min(i + batchSize, statements.size())));
+                fds = algorithm.execute(new ListBatch(batch, "", TABLE_NAME)).getFDs();
+            }
+            return toStrings(fds);
+        }
+    }
+
+    private static Set<String> hyfd(IncrementalFDConfiguration configuration, List<Row> rows) {
+        return toStrings(new HyFDInitialAlgorithm(configuration, ListTable.of(TABLE_NAME, COLUMN_NAMES, rows)).execute());
+    }
+
+    private static Set<String> toStrings(List<FunctionalDependency> fds) {
+        return fds.stream().map(FunctionalDependency::toString).collect(Collectors.toSet());
+    }
+
+    private static List<Row> generateRows(Random random, int numRows) {
+        List<Row> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(generateRow(random));
+        }
+        return rows;
+    }
+
+    private static Row generateRow(Random random) {
+        int a = random.nextInt(10);
+        int b = random.nextInt(4);
+        int e = random.nextInt(30);
+        return GenericRow.ofColumnNames(COLUMN_NAMES, "a" + a, "b" + b, "c" + a % 3, "d" + (a + b) % 5,
+                "e" + e, "f" + (e % 3 + random.nextInt(2)));
+    }
+}
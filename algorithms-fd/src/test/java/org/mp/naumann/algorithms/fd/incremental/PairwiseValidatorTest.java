@@ -0,0 +1,58 @@
+package org.mp.naumann.algorithms.fd.incremental;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Test;
+
+public class PairwiseValidatorTest {
+
+    private static final int NUM_RECORDS = 1000;
+    private static final Collection<Integer> NEW_RECORDS = Arrays.asList(1, 2, 3);
+
+    @Test
+    public void testThresholds() {
+        PairwiseValidator validator = new PairwiseValidator(2);
+        assertFalse(validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS));
+        validator = new PairwiseValidator(100);
+        assertFalse(validator.shouldValidate(NEW_RECORDS, 100 * NUM_RECORDS, NUM_RECORDS));
+        assertTrue(validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS));
+    }
+
+    @Test
+    public void testMeasureBothFirst() {
+        PairwiseValidator validator = new PairwiseValidator(100);
+        // the pairs are measured first, then the lattice, no matter how cheap the pairs are
+        assertTrue(validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS));
+        validator.pairsValidated(10, 10);
+        validator.nextBatch();
+        assertFalse(validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS));
+        validator.latticeValidated(1_000_000);
+        validator.nextBatch();
+        assertTrue(validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS));
+    }
+
+    @Test
+    public void testSwitchBackToLattice() {
+        PairwiseValidator validator = new PairwiseValidator(100);
+        validator.pairsValidated(10_000, 10);
+        validator.latticeValidated(1_000_000);
+        int pairwiseBatches = 0;
+        while (validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS)) {
+            validator.pairsValidated(10_000, 10);
+            validator.nextBatch();
+            assertTrue(++pairwiseBatches <= 100);
+        }
+        // the lattice is sampled although the pairs are still cheaper, and it turns out to be cheaper by now
+        validator.latticeValidated(1);
+        validator.nextBatch();
+        assertFalse(validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS));
+
+        // and once the lattice becomes expensive again, the pairs take over
+        validator.latticeValidated(1_000_000_000);
+        validator.nextBatch();
+        assertTrue(validator.shouldValidate(NEW_RECORDS, 10, NUM_RECORDS));
+    }
+}
@@ -0,0 +1,145 @@
+package org.mp.naumann.algorithms.fd.incremental;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.util.OpenBitSet;
+import org.junit.Test;
+import org.mp.naumann.algorithms.fd.incremental.pruning.ValidationPruner;
+import org.mp.naumann.algorithms.fd.incremental.structures.Lattice;
+import org.mp.naumann.algorithms.fd.incremental.structures.LatticeBuilder;
+import org.mp.naumann.algorithms.fd.incremental.structures.LatticeElementLhsPair;
+import org.mp.naumann.algorithms.fd.structures.OpenBitSetFD;
+
+public class PruningControllerTest {
+
+    private static final int NUM_ATTRIBUTES = 12;
+    private static final int LEVELS_PER_BATCH = 10;
+    private static final int MAX_BATCHES = 20;
+    private static final String NAME = "counting";
+
+    private final Lattice lattice = createLattice();
+    private final CountingPruner pruner = new CountingPruner();
+    private final PruningController controller = new PruningController(true);
+
+    @Test
+    public void testDisableAndReenable() {
+        // validations are almost free, so a pruner that never prunes is not worth its checks
+        int batches = runUntil(false, 1, 1_000_000, false);
+        assertTrue(batches < MAX_BATCHES);
+        Collection<LatticeElementLhsPair> level = lattice.getLevel(2);
+        int candidates = level.size();
+        pruner.calls = 0;
+        controller.prune(level, Collections.singletonMap(NAME, pruner));
+        assertEquals((candidates + 15) / 16, pruner.calls);
+
+        // now the probes prune expensive validations, which is enough to enable the pruner again
+        batches = runUntil(true, 1_000_000_000L, 1, true);
+        assertTrue(batches < MAX_BATCHES);
+        pruner.calls = 0;
+        controller.prune(lattice.getLevel(2), Collections.singletonMap(NAME, pruner));
+        assertEquals(candidates, pruner.calls);
+    }
+
+    @Test
+    public void testDisabledPrunerIsNotChargedForMaintenance() {
+        runUntil(false, 1, 1_000_000, false);
+        assertFalse(controller.isEnabled(NAME));
+        // maintaining a disabled pruner, however expensive, does not keep it from being enabled again
+        for (int batch = 0; batch < MAX_BATCHES && !controller.isEnabled(NAME); batch++) {
+            controller.maintained(NAME, Long.MAX_VALUE / 4);
+            runBatch(true, 1_000_000_000L, 1);
+        }
+        assertTrue(controller.isEnabled(NAME));
+    }
+
+    @Test
+    public void testPrunersOfSameClassAreJudgedApart() {
+        CountingPruner useful = new CountingPruner();
+        useful.prunes = true;
+        Map<String, ValidationPruner> pruners = new LinkedHashMap<>();
+        pruners.put("useless", pruner);
+        pruners.put("useful", useful);
+        for (int batch = 0; batch < MAX_BATCHES && controller.isEnabled("useless"); batch++) {
+            for (int i = 0; i < LEVELS_PER_BATCH; i++) {
+                // the useless pruner is asked first while it is new, so both of them are checked
+                controller.prune(lattice.getLevel(2), pruners);
+                controller.validated(1_000_000_000L, 1);
+            }
+            controller.nextBatch();
+        }
+        assertFalse(controller.isEnabled("useless"));
+        assertTrue(controller.isEnabled("useful"));
+    }
+
+    @Test
+    public void testNotAdaptive() {
+        PruningController controller = new PruningController(false);
+        Collection<LatticeElementLhsPair> level = lattice.getLevel(2);
+        int candidates = level.size();
+        controller.validated(1, 1_000_000);
+        for (int i = 0; i < 100; i++) {
+            controller.prune(lattice.getLevel(2), Collections.singletonMap(NAME, pruner));
+        }
+        pruner.calls = 0;
+        controller.prune(level, Collections.singletonMap(NAME, pruner));
+        assertEquals(candidates, pruner.calls);
+    }
+
+    /**
+     * Runs batches until the pruner reaches the given state and returns the number of batches this took.
+     */
+    private int runUntil(boolean prunes, long validationNanos, int validations, boolean enabled) {
+        int batch = 0;
+        while (batch < MAX_BATCHES && controller.isEnabled(NAME) != enabled) {
+            runBatch(prunes, validationNanos, validations);
+            batch++;
+        }
+        return batch;
+    }
+
+    private void runBatch(boolean prunes, long validationNanos, int validations) {
+        pruner.prunes = prunes;
+        for (int i = 0; i < LEVELS_PER_BATCH; i++) {
+            controller.prune(lattice.getLevel(2), Collections.singletonMap(NAME, pruner));
+            controller.validated(validationNanos, validations);
+        }
+        controller.nextBatch();
+    }
+
+    private static Lattice createLattice() {
+        List<OpenBitSetFD> fds = new ArrayList<>();
+        for (int i = 0; i < NUM_ATTRIBUTES; i++) {
+            for (int j = i + 1; j < NUM_ATTRIBUTES; j++) {
+                OpenBitSet lhs = new OpenBitSet(NUM_ATTRIBUTES);
+                lhs.fastSet(i);
+                lhs.fastSet(j);
+                int rhs = 0;
+                while (rhs == i || rhs == j) {
+                    rhs++;
+                }
+                fds.add(new OpenBitSetFD(lhs, rhs));
+            }
+        }
+        return LatticeBuilder.build(NUM_ATTRIBUTES, fds).getFds();
+    }
+
+    private static class CountingPruner implements ValidationPruner {
+
+        private boolean prunes;
+        private int calls;
+
+        @Override
+        public boolean doesNotNeedValidation(OpenBitSet lhs, OpenBitSet rhs) {
+            calls++;
+            return prunes;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.mp.naumann.algorithms.fd.incremental.pruning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.apache.lucene.util.OpenBitSet;
+import org.junit.Test;
+import org.mp.naumann.algorithms.fd.utils.BitSetUtils;
+
+public class CardinalitySetTest {
+
+    @Test
+    public void testQueries() {
+        int numAttributes = 10;
+        Random random = new Random(0);
+        CardinalitySet set = new CardinalitySet(numAttributes);
+        List<OpenBitSet> stored = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            OpenBitSet bits = randomSet(random, numAttributes, 0.6);
+            if (set.add(bits)) {
+                stored.add(bits);
+            }
+        }
+        assertFalse(set.add(stored.get(0).clone()));
+        for (int i = 0; i < 500; i++) {
+            OpenBitSet query = randomSet(random, numAttributes, 0.3);
+            Set<OpenBitSet> supersets = new HashSet<>();
+            Set<OpenBitSet> subsets = new HashSet<>();
+            for (OpenBitSet bits : stored) {
+                if (BitSetUtils.isContained(query, bits)) {
+                    supersets.add(bits);
+                }
+                if (BitSetUtils.isContained(bits, query)) {
+                    subsets.add(bits);
+                }
+            }
+            assertEquals(supersets, new HashSet<>(set.getSupersets(query)));
+            assertEquals(subsets, new HashSet<>(set.getSubsets(query)));
+            assertEquals(!supersets.isEmpty(), set.containsSuperset(query));
+        }
+    }
+
+    @Test
+    public void testEmptySet() {
+        CardinalitySet set = new CardinalitySet(4);
+        OpenBitSet empty = new OpenBitSet(4);
+        assertFalse(set.containsSuperset(empty));
+        OpenBitSet bits = new OpenBitSet(4);
+        bits.fastSet(1);
+        set.add(bits);
+        assertTrue(set.containsSuperset(empty));
+        assertTrue(set.getSubsets(empty).isEmpty());
+        OpenBitSet other = new OpenBitSet(4);
+        other.fastSet(3);
+        assertFalse(set.containsSuperset(other));
+    }
+
+    private static OpenBitSet randomSet(Random random, int numAttributes, double probability) {
+        OpenBitSet bits = new OpenBitSet(numAttributes);
+        for (int attribute = 0; attribute < numAttributes; attribute++) {
+            if (random.nextDouble() < probability) {
+                bits.fastSet(attribute);
+            }
+        }
+        return bits;
+    }
+}
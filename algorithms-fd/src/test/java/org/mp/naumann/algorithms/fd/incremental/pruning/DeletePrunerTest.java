@@ -9,7 +9,6 @@ import java.util.Set;
 import org.apache.lucene.util.OpenBitSet;
 import org.junit.Test;
 import org.mp.naumann.algorithms.fd.incremental.CompressedDiff;
-import org.mp.naumann.algorithms.fd.incremental.agreesets.DefaultViolationSet;
 import org.mp.naumann.algorithms.fd.incremental.agreesets.AgreeSetCollection;
 import org.mp.naumann.algorithms.fd.incremental.pruning.annotation.ExactDeleteValidationPruner;
 
@@ -18,7 +17,7 @@ public class DeletePrunerTest {
     @Test
     public void test() {
         int numAttributes = 4;
-        AgreeSetCollection deletePruner = new AgreeSetCollection(DefaultViolationSet::new);
+        AgreeSetCollection deletePruner = new AgreeSetCollection();
         OpenBitSet agreeSet = new OpenBitSet(numAttributes);
         agreeSet.fastSet(0);
         agreeSet.fastSet(1);
@@ -43,4 +42,26 @@ public class DeletePrunerTest {
         pruner = new ExactDeleteValidationPruner(agreeSets, numAttributes);
         assertFalse(pruner.doesNotNeedValidation(toCheck, rhs));
     }
+
+    @Test
+    public void testViolationCollectionSize() {
+        int numAttributes = 3;
+        AgreeSetCollection deletePruner = new AgreeSetCollection(2);
+        OpenBitSet agreeSet = new OpenBitSet(numAttributes);
+        agreeSet.fastSet(0);
+        deletePruner.addAgreeSet(agreeSet, 0, 1);
+        deletePruner.addAgreeSet(agreeSet, 2, 3);
+        // evicts the oldest pair (0, 1)
+        deletePruner.addAgreeSet(agreeSet, 4, 5);
+        agreeSet.fastSet(1);
+        assertFalse(deletePruner.analyzeDiff(new CompressedDiff(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>())).contains(agreeSet));
+        agreeSet.fastClear(1);
+        assertTrue(deletePruner.analyzeDiff(new CompressedDiff(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>())).contains(agreeSet));
+
+        Map<Integer, int[]> deletes = new HashMap<>();
+        deletes.put(2, null);
+        deletes.put(5, null);
+        Set<OpenBitSet> agreeSets = deletePruner.analyzeDiff(new CompressedDiff(new HashMap<>(), deletes, new HashMap<>(), new HashMap<>()));
+        assertFalse(agreeSets.contains(agreeSet));
+    }
 }
@@ -2,18 +2,18 @@ package org.mp.naumann.algorithms.fd.incremental.pruning.bloom;
 
 import org.apache.lucene.util.OpenBitSet;
 import org.junit.Test;
+import org.mp.naumann.algorithms.fd.incremental.CompressedDiff;
 import org.mp.naumann.algorithms.fd.incremental.pruning.ValidationPruner;
-import org.mp.naumann.database.statement.DefaultInsertStatement;
-import org.mp.naumann.database.statement.Statement;
-import org.mp.naumann.processor.batch.Batch;
-import org.mp.naumann.processor.batch.ListBatch;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -30,19 +30,15 @@ public class SimpleBloomTest {
         records.add(new String[]{"0", "1", "1", "1"});
         builder1.initialize(records);
         builder2.initialize(records);
-        String schema = "";
-        String tableName = "";
-        List<Statement> statements = new ArrayList<>();
         Map<String, String> record = new HashMap<>();
         record.put("a", "0");
         record.put("b", "2");
         record.put("c", "3");
         record.put("d", "2");
-        Statement statement = new DefaultInsertStatement(record, schema, tableName);
-        statements.add(statement);
-        Batch batch = new ListBatch(statements, schema, tableName);
-        ValidationPruner strategy2 = builder2.analyzeBatch(batch);
-        ValidationPruner strategy1 = builder1.analyzeBatch(batch);
+        Map<Integer, Map<String, String>> inserted = new HashMap<>();
+        inserted.put(3, record);
+        ValidationPruner strategy2 = builder2.analyzeDiff(diff(inserted, Collections.emptyMap()));
+        ValidationPruner strategy1 = builder1.analyzeDiff(diff(inserted, Collections.emptyMap()));
         OpenBitSet lhs = new OpenBitSet(columns.size());
         lhs.fastSet(0);
         lhs.fastSet(1);
@@ -57,19 +53,13 @@ public class SimpleBloomTest {
         BloomPruningStrategy builder = new BloomPruningStrategy(columns).addGenerator(new AllCombinationsBloomGenerator(1));
         List<String[]> records = new ArrayList<>();
         builder.initialize(records);
-        String schema = "";
-        String tableName = "";
-        List<Statement> statements = new ArrayList<>();
         Map<String, String> record = new HashMap<>();
         record.put("a", "0");
-        Statement statement = new DefaultInsertStatement(record, schema, tableName);
-        statements.add(statement);
-        Batch batch = new ListBatch(statements, schema, tableName);
-        ValidationPruner strategy = builder.analyzeBatch(batch);
+        ValidationPruner strategy = builder.analyzeDiff(diff(Collections.singletonMap(0, record), Collections.emptyMap()));
         OpenBitSet lhs = new OpenBitSet(columns.size());
         lhs.fastSet(0);
         assertTrue(strategy.doesNotNeedValidation(lhs, null));
-        strategy = builder.analyzeBatch(batch);
+        strategy = builder.analyzeDiff(diff(Collections.singletonMap(1, record), Collections.emptyMap()));
         assertFalse(strategy.doesNotNeedValidation(lhs, null));
     }
 
@@ -79,19 +69,87 @@ public class SimpleBloomTest {
         BloomPruningStrategy builder = new BloomPruningStrategy(columns).addGenerator(new AllCombinationsBloomGenerator(1));
         List<String[]> records = new ArrayList<>();
         builder.initialize(records);
-        String schema = "";
-        String tableName = "";
-        List<Statement> statements = new ArrayList<>();
         Map<String, String> record = new HashMap<>();
         record.put("a", "0");
-        Statement statement = new DefaultInsertStatement(record, schema, tableName);
-        statements.add(statement);
-        statements.add(statement);
-        Batch batch = new ListBatch(statements, schema, tableName);
-        ValidationPruner strategy = builder.analyzeBatch(batch);
+        Map<Integer, Map<String, String>> inserted = new HashMap<>();
+        inserted.put(0, record);
+        inserted.put(1, record);
+        ValidationPruner strategy = builder.analyzeDiff(diff(inserted, Collections.emptyMap()));
         OpenBitSet lhs = new OpenBitSet(columns.size());
         lhs.fastSet(0);
         assertFalse(strategy.doesNotNeedValidation(lhs, null));
     }
 
+    @Test
+    public void testDelete() {
+        List<String> columns = Arrays.asList("a", "b");
+        BloomPruningStrategy builder = new BloomPruningStrategy(columns).addGenerator(new AllCombinationsBloomGenerator(1));
+        List<String[]> records = new ArrayList<>();
+        records.add(new String[]{"0", "1"});
+        records.add(new String[]{"0", "2"});
+        builder.initialize(records);
+        OpenBitSet lhs = new OpenBitSet(columns.size());
+        lhs.fastSet(0);
+
+        // deleting one of two records with the same value keeps the value in the filter
+        builder.analyzeDiff(diff(Collections.emptyMap(), Collections.singletonMap(0, record("0", "1"))));
+        ValidationPruner strategy = builder.analyzeDiff(diff(Collections.singletonMap(2, record("0", "3")), Collections.emptyMap()));
+        assertFalse(strategy.doesNotNeedValidation(lhs, null));
+
+        // an update replaces the old values of the record
+        Map<Integer, Map<String, String>> deleted = new HashMap<>();
+        deleted.put(1, record("0", "2"));
+        deleted.put(2, record("0", "3"));
+        strategy = builder.analyzeDiff(diff(Collections.singletonMap(3, record("1", "3")), deleted));
+        assertTrue(strategy.doesNotNeedValidation(lhs, null));
+        strategy = builder.analyzeDiff(diff(Collections.singletonMap(4, record("0", "4")), Collections.emptyMap()));
+        assertTrue(strategy.doesNotNeedValidation(lhs, null));
+    }
+
+    @Test
+    public void testParallel() {
+        List<String> columns = Arrays.asList("a", "b", "c", "d", "e");
+        BloomPruningStrategy sequential = new BloomPruningStrategy(columns, false).addGenerator(new AllCombinationsBloomGenerator(2));
+        BloomPruningStrategy parallel = new BloomPruningStrategy(columns, true).addGenerator(new AllCombinationsBloomGenerator(2));
+        Random random = new Random(0);
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            records.add(new String[]{"" + random.nextInt(10), "" + random.nextInt(100), "" + random.nextInt(1000), "" + i, null});
+        }
+        sequential.initialize(records);
+        parallel.initialize(records);
+        for (int batch = 0; batch < 10; batch++) {
+            Map<Integer, Map<String, String>> inserted = new HashMap<>();
+            Map<Integer, Map<String, String>> deleted = new HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                int id = random.nextInt(records.size());
+                String[] values = records.get(id);
+                Map<String, String> record = new HashMap<>();
+                for (int column = 0; column < columns.size(); column++) {
+                    record.put(columns.get(column), values[column]);
+                }
+                deleted.put(id, record);
+                inserted.put(records.size() + batch * 1000 + i, Collections.singletonMap("c", "" + random.nextInt(1000)));
+            }
+            ValidationPruner sequentialPruner = sequential.analyzeDiff(diff(inserted, deleted));
+            ValidationPruner parallelPruner = parallel.analyzeDiff(diff(inserted, deleted));
+            for (int mask = 1; mask < 1 << columns.size(); mask++) {
+                OpenBitSet lhs = new OpenBitSet(new long[]{mask}, 1);
+                assertEquals(sequentialPruner.doesNotNeedValidation(lhs, null), parallelPruner.doesNotNeedValidation(lhs, null));
+            }
+        }
+        parallel.close();
+    }
+
+    private static Map<String, String> record(String a, String b) {
+        Map<String, String> record = new HashMap<>();
+        record.put("a", a);
+        record.put("b", b);
+        return record;
+    }
+
+    private static CompressedDiff diff(Map<Integer, Map<String, String>> inserted, Map<Integer, Map<String, String>> deleted) {
+        return new CompressedDiff(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(), inserted, deleted);
+    }
+
 }
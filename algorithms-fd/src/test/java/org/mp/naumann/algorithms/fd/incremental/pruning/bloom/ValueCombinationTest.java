@@ -1,22 +1,72 @@
 package org.mp.naumann.algorithms.fd.incremental.pruning.bloom;
 
-import com.google.common.hash.BloomFilter;
-
 import org.junit.Test;
 
-import java.util.Arrays;
-import java.util.List;
-
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 public class ValueCombinationTest {
 
     @Test
     public void test() {
-        BloomFilter<List<ColumnValue>> filter = BloomFilter.create(new ValueCombinationFunnel(), 100_000);
-        List<ColumnValue> s = Arrays.asList(new ColumnValue(1, "1"), new ColumnValue(2, "3"));
-        filter.put(s);
-        List<ColumnValue> s2 = Arrays.asList(new ColumnValue(1, "1"), new ColumnValue(2, "3"));
-        assertTrue(filter.mightContain(s2));
+        CountingBloomFilter filter = new CountingBloomFilter(100_000, 0.01);
+        int[] columns = {1, 2};
+        long[] s = ValueHashing.encode(new String[]{"0", "1", "3"});
+        filter.put(ValueHashing.hashCombination(0, columns, s));
+        long[] s2 = ValueHashing.encode(new String[]{"x", "1", "3"});
+        assertTrue(filter.mightContain(ValueHashing.hashCombination(0, columns, s2)));
+    }
+
+    @Test
+    public void testCombinationsAreDistinguished() {
+        long[] record = ValueHashing.encode(new String[]{"1", "3"});
+        long[] swapped = ValueHashing.encode(new String[]{"3", "1"});
+        int[] columns = {0, 1};
+        assertNotEquals(ValueHashing.hashCombination(0, columns, record), ValueHashing.hashCombination(0, columns, swapped));
+        assertNotEquals(ValueHashing.hashCombination(0, columns, record), ValueHashing.hashCombination(1, columns, record));
+        assertNotEquals(ValueHashing.hash(null), ValueHashing.hash(""));
+    }
+
+    @Test
+    public void testRemove() {
+        CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        long hash = ValueHashing.hash("value");
+        filter.put(hash);
+        filter.put(hash);
+        filter.remove(hash);
+        assertTrue(filter.mightContain(hash));
+        filter.remove(hash);
+        assertFalse(filter.mightContain(hash));
+    }
+
+    @Test
+    public void testSaturatedCountersAreKept() {
+        CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        long hash = ValueHashing.hash("value");
+        for (int i = 0; i < 20; i++) {
+            filter.put(hash);
+        }
+        for (int i = 0; i < 20; i++) {
+            filter.remove(hash);
+        }
+        assertTrue(filter.mightContain(hash));
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(ValueHashing.hash(Integer.toString(i)));
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (filter.mightContain(ValueHashing.hash(Integer.toString(i)))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+        assertEquals(7, filter.getNumHashFunctions());
     }
 }
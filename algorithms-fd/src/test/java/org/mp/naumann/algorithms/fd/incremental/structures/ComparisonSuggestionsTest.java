@@ -0,0 +1,65 @@
+package org.mp.naumann.algorithms.fd.incremental.structures;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ComparisonSuggestionsTest {
+
+    @Test
+    public void testPacking() {
+        long pair = ComparisonSuggestions.pack(7, 3);
+        assertEquals(3, ComparisonSuggestions.first(pair));
+        assertEquals(7, ComparisonSuggestions.second(pair));
+        assertEquals(pair, ComparisonSuggestions.pack(3, 7));
+
+        pair = ComparisonSuggestions.pack(0, Integer.MAX_VALUE);
+        assertEquals(0, ComparisonSuggestions.first(pair));
+        assertEquals(Integer.MAX_VALUE, ComparisonSuggestions.second(pair));
+    }
+
+    @Test
+    public void testDeduplication() {
+        ComparisonSuggestions suggestions = new ComparisonSuggestions();
+        assertTrue(suggestions.add(1, 2));
+        assertFalse(suggestions.add(1, 2));
+        assertFalse(suggestions.add(2, 1));
+        assertTrue(suggestions.add(1, 3));
+        assertEquals(2, suggestions.size());
+        assertTrue(suggestions.contains(2, 1));
+    }
+
+    @Test
+    public void testBudget() {
+        ComparisonSuggestions suggestions = new ComparisonSuggestions(2);
+        assertTrue(suggestions.add(1, 2));
+        assertTrue(suggestions.add(1, 3));
+        assertTrue(suggestions.isFull());
+        assertFalse(suggestions.add(1, 4));
+        assertEquals(2, suggestions.size());
+
+        ComparisonSuggestions other = new ComparisonSuggestions(3);
+        other.add(5, 6);
+        other.addAll(suggestions);
+        assertEquals(3, other.size());
+    }
+
+    @Test
+    public void testForEach() {
+        ComparisonSuggestions suggestions = new ComparisonSuggestions();
+        suggestions.add(4, 2);
+        List<Integer> records = new ArrayList<>();
+        suggestions.forEach((recId1, recId2) -> {
+            records.add(recId1);
+            records.add(recId2);
+        });
+        assertEquals(2, records.size());
+        assertEquals(2, (int) records.get(0));
+        assertEquals(4, (int) records.get(1));
+    }
+}
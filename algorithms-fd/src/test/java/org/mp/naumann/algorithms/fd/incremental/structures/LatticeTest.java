@@ -160,4 +160,128 @@ public class LatticeTest {
         assertTrue(fds.isEmpty());
     }
 
+    @Test
+    public void testWideLattice() {
+        Lattice lattice = new Lattice(100);
+        lattice.addFunctionalDependency(bits(3, 70), 90);
+        lattice.addFunctionalDependency(bits(70), 5);
+        lattice.addFunctionalDependency(bits(70), 65);
+        lattice.addFunctionalDependency(bits(1, 2, 99), 64);
+        assertEquals(4, lattice.getFunctionalDependencies().size());
+        assertTrue(lattice.containsFdOrGeneralization(bits(3, 50, 70), 90));
+        assertTrue(lattice.containsFdOrGeneralization(bits(70, 80), 65));
+        assertFalse(lattice.containsFdOrGeneralization(bits(3, 50), 90));
+        assertFalse(lattice.containsFdOrGeneralization(bits(1, 99), 64));
+
+        Collection<LatticeElementLhsPair> level = lattice.getLevel(1);
+        assertEquals(1, level.size());
+        OpenBitSet rhs = level.iterator().next().getElement().getRhsFds();
+        assertEquals(2, rhs.cardinality());
+        assertTrue(rhs.get(5));
+        assertTrue(rhs.get(65));
+
+        lattice.removeFunctionalDependency(bits(70), 65);
+        lattice.removeSpecializations(bits(3), 90);
+        List<OpenBitSetFD> fds = lattice.getFunctionalDependencies();
+        assertEquals(2, fds.size());
+        assertTrue(fds.contains(new OpenBitSetFD(bits(70), 5)));
+        assertTrue(fds.contains(new OpenBitSetFD(bits(1, 2, 99), 64)));
+    }
+
+    @Test
+    public void testTrim() {
+        Lattice lattice = new Lattice(5);
+        lattice.addFunctionalDependency(BitSetUtils.fromString("10000"), 0);
+        lattice.addFunctionalDependency(BitSetUtils.fromString("11000"), 4);
+        lattice.addFunctionalDependency(BitSetUtils.fromString("01011"), 2);
+        lattice.addFunctionalDependency(BitSetUtils.fromString("01100"), 2);
+        lattice.trim(2);
+        assertEquals(2, lattice.getDepth());
+        assertEquals(2, lattice.getMaxDepth());
+        List<OpenBitSetFD> fds = lattice.getFunctionalDependencies();
+        assertEquals(3, fds.size());
+        assertFalse(fds.contains(new OpenBitSetFD(BitSetUtils.fromString("01011"), 2)));
+        assertFalse(lattice.containsFdOrGeneralization(BitSetUtils.fromString("01011"), 2));
+        assertTrue(lattice.containsFdOrGeneralization(BitSetUtils.fromString("01110"), 2));
+
+        lattice.addFunctionalDependency(BitSetUtils.fromString("10011"), 1);
+        assertEquals(3, lattice.getFunctionalDependencies().size());
+        lattice.trim(1);
+        fds = lattice.getFunctionalDependencies();
+        assertEquals(1, fds.size());
+        assertTrue(fds.contains(new OpenBitSetFD(BitSetUtils.fromString("10000"), 0)));
+        assertFalse(lattice.containsFdOrGeneralization(BitSetUtils.fromString("11000"), 4));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        int numAttributes = 70;
+        Lattice lattice = new Lattice(numAttributes);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int rhs = t;
+            threads[t] = new Thread(() -> {
+                for (int a = 10; a < numAttributes; a++) {
+                    lattice.addFunctionalDependency(bits(a), rhs);
+                    lattice.addFunctionalDependency(bits(a, (a + 1) % numAttributes), rhs);
+                    lattice.removeSpecializations(bits(a), rhs);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        List<OpenBitSetFD> fds = lattice.getFunctionalDependencies();
+        assertEquals(threads.length * (numAttributes - 10), fds.size());
+        for (int rhs = 0; rhs < threads.length; rhs++) {
+            assertTrue(lattice.containsFdOrGeneralization(bits(42, 43), rhs));
+            assertFalse(lattice.containsFdOrGeneralization(bits(1, 2), rhs));
+        }
+    }
+
+    @Test
+    public void testIndex() {
+        Lattice lattice = new Lattice(5);
+        lattice.addFunctionalDependency(BitSetUtils.fromString("10000"), 1);
+        lattice.addFunctionalDependency(BitSetUtils.fromString("11000"), 4);
+        lattice.addFunctionalDependency(BitSetUtils.fromString("01100"), 4);
+        assertFalse(lattice.isIndexed());
+        // the index is built by the first query and maintained by the updates from then on
+        assertEquals(2, lattice.getFunctionalDependenciesWithRhs(4).size());
+        assertTrue(lattice.isIndexed());
+        lattice.addFunctionalDependency(BitSetUtils.fromString("01011"), 2);
+        assertEquals(2, lattice.getFunctionalDependenciesWithLhsAttribute(0).size());
+        assertEquals(3, lattice.getFunctionalDependenciesWithLhsAttribute(1).size());
+        assertEquals(2, lattice.getFunctionalDependenciesWithRhs(4).size());
+        assertTrue(lattice.getFunctionalDependenciesWithRhs(0).isEmpty());
+
+        lattice.removeFunctionalDependency(BitSetUtils.fromString("11000"), 4);
+        lattice.removeSpecializations(BitSetUtils.fromString("01000"), 2);
+        List<OpenBitSetFD> fds = lattice.getFunctionalDependenciesWithLhsAttribute(1);
+        assertEquals(1, fds.size());
+        assertTrue(fds.contains(new OpenBitSetFD(BitSetUtils.fromString("01100"), 4)));
+        assertEquals(1, lattice.getFunctionalDependenciesMentioning(BitSetUtils.fromString("00100")).size());
+        assertEquals(2, lattice.getFunctionalDependenciesMentioning(BitSetUtils.fromString("10100")).size());
+
+        lattice.trim(1);
+        assertTrue(lattice.getFunctionalDependenciesWithRhs(4).isEmpty());
+        assertEquals(1, lattice.getFunctionalDependenciesWithRhs(1).size());
+
+        LatticeElementLhsPair pair = lattice.getLevel(1).iterator().next();
+        lattice.removeFunctionalDependency(pair.getElement(), pair.getLhs(), 1);
+        assertTrue(lattice.getFunctionalDependenciesWithRhs(1).isEmpty());
+        assertTrue(lattice.getFunctionalDependenciesWithLhsAttribute(0).isEmpty());
+    }
+
+    private static OpenBitSet bits(int... attributes) {
+        OpenBitSet bits = new OpenBitSet(100);
+        for (int attribute : attributes) {
+            bits.fastSet(attribute);
+        }
+        return bits;
+    }
+
 }
@@ -0,0 +1,78 @@
+package org.mp.naumann.algorithms.fd.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.mp.naumann.algorithms.fd.hyfd.PositionListIndex;
+
+public class PLIBuilderTest {
+
+    private static final int NUM_ATTRIBUTES = 5;
+
+    @Test
+    public void testParallel() {
+        // More records than fit into a single chunk
+        List<List<String>> records = generateRecords(10_000);
+        PLIBuilder sequential = new PLIBuilder(NUM_ATTRIBUTES, false);
+        sequential.addRecords(records);
+        PLIBuilder parallel = new PLIBuilder(NUM_ATTRIBUTES, false, true);
+        parallel.addRecords(records);
+
+        assertEquals(sequential.getNumLastRecords(), parallel.getNumLastRecords());
+        assertEquals(sequential.getClusterMaps(), parallel.getClusterMaps());
+        List<PositionListIndex> expected = sequential.fetchPositionListIndexes();
+        List<PositionListIndex> actual = parallel.fetchPositionListIndexes();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getAttribute(), actual.get(i).getAttribute());
+            assertEquals(expected.get(i).getClusters(), actual.get(i).getClusters());
+        }
+    }
+
+    @Test
+    public void testParallelSingleChunk() {
+        List<List<String>> records = generateRecords(10);
+        PLIBuilder sequential = new PLIBuilder(NUM_ATTRIBUTES, true);
+        sequential.addRecords(records);
+        PLIBuilder parallel = new PLIBuilder(NUM_ATTRIBUTES, true, true);
+        parallel.addRecords(records);
+
+        assertEquals(sequential.getNumLastRecords(), parallel.getNumLastRecords());
+        assertEquals(sequential.getClusterMaps(), parallel.getClusterMaps());
+    }
+
+    @Test
+    public void testCaching() {
+        PLIBuilder pliBuilder = new PLIBuilder(NUM_ATTRIBUTES, true);
+        pliBuilder.addRecords(generateRecords(10));
+        List<PositionListIndex> plis = pliBuilder.fetchPositionListIndexes();
+        List<Integer> pliOrder = pliBuilder.getPliOrder();
+        assertSame(plis, pliBuilder.fetchPositionListIndexes());
+        assertSame(pliOrder, pliBuilder.getPliOrder());
+
+        pliBuilder.addRecords(generateRecords(10));
+        assertNotSame(plis, pliBuilder.fetchPositionListIndexes());
+        assertEquals(20, pliBuilder.fetchPositionListIndexes().stream().filter(pli -> pli.getAttribute() == 4)
+                .mapToInt(PositionListIndex::getNumNonUniqueValues).sum());
+    }
+
+    private static List<List<String>> generateRecords(int numRecords) {
+        Random random = new Random(42);
+        List<List<String>> records = new ArrayList<>(numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            records.add(Arrays.asList(
+                    Integer.toString(random.nextInt(3)),
+                    Integer.toString(random.nextInt(100)),
+                    Integer.toString(random.nextInt(numRecords)),
+                    random.nextInt(10) == 0 ? null : Integer.toString(random.nextInt(20)),
+                    Integer.toString(i)));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,123 @@
+package org.mp.naumann.algorithms.fd.structures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.lucene.util.OpenBitSet;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mp.naumann.algorithms.fd.hyfd.PositionListIndex;
+
+public class ParallelRefinementTest {
+
+    private static final int NUM_ATTRIBUTES = 5;
+    private static final int NUM_THREADS = 4;
+
+    private static ExecutorService executor;
+    private static List<PositionListIndex> plis;
+    private static int[][] compressedRecords;
+
+    @BeforeClass
+    public static void setUp() {
+        executor = Executors.newFixedThreadPool(NUM_THREADS);
+        PLIBuilder pliBuilder = new PLIBuilder(NUM_ATTRIBUTES, true);
+        pliBuilder.addRecords(generateRecords(2 * ParallelRefinement.MIN_RECORDS));
+        plis = pliBuilder.fetchPositionListIndexes();
+        compressedRecords = RecordCompressor.fetchCompressedRecords(plis, pliBuilder.getNumLastRecords());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSplit() {
+        List<IntArrayList> clusters = plis.get(0).getClusters();
+        List<List<IntArrayList>> ranges = ParallelRefinement.split(clusters, 8);
+        assertTrue(ranges.size() > 1);
+        List<IntArrayList> joined = new ArrayList<>();
+        ranges.forEach(joined::addAll);
+        assertEquals(clusters, joined);
+
+        List<IntArrayList> small = clusters.subList(0, 1);
+        assertEquals(1, ParallelRefinement.split(small, 8).size());
+    }
+
+    @Test
+    public void testShouldSplit() {
+        assertTrue(ParallelRefinement.shouldSplit(1, NUM_THREADS, ParallelRefinement.MIN_RECORDS));
+        assertFalse(ParallelRefinement.shouldSplit(1, NUM_THREADS, ParallelRefinement.MIN_RECORDS - 1));
+        assertFalse(ParallelRefinement.shouldSplit(NUM_THREADS, NUM_THREADS, ParallelRefinement.MIN_RECORDS));
+    }
+
+    @Test
+    public void testSingleRhs() throws Exception {
+        for (PositionListIndex pli : plis) {
+            for (int rhsAttr = 0; rhsAttr < NUM_ATTRIBUTES; rhsAttr++) {
+                final int rhs = rhsAttr;
+                ParallelRefinement refinement = new ParallelRefinement(NUM_ATTRIBUTES, rhs);
+                List<Boolean> results = ParallelRefinement.invokeRanges(executor, NUM_THREADS, pli.getClusters(),
+                        clusters -> pli.refines(compressedRecords, rhs, clusters, refinement));
+                assertEquals(pli.refines(compressedRecords, rhs), !results.contains(false));
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleRhs() throws Exception {
+        for (int lhsAttr = 0; lhsAttr < NUM_ATTRIBUTES; lhsAttr++) {
+            PositionListIndex pli = plis.get(lhsAttr);
+            OpenBitSet lhs = new OpenBitSet(NUM_ATTRIBUTES);
+            lhs.set((lhsAttr + 1) % NUM_ATTRIBUTES);
+            OpenBitSet rhs = new OpenBitSet(NUM_ATTRIBUTES);
+            rhs.set(0, NUM_ATTRIBUTES);
+            rhs.andNot(lhs);
+            rhs.clear(lhsAttr);
+
+            List<IntegerPair> expectedSuggestions = new ArrayList<>();
+            OpenBitSet expected = pli.refines(compressedRecords, lhs, rhs, expectedSuggestions);
+
+            ParallelRefinement refinement = new ParallelRefinement(rhs);
+            List<IntegerPair> suggestions = new ArrayList<>();
+            List<OpenBitSet> results = ParallelRefinement.invokeRanges(executor, NUM_THREADS, pli.getClusters(), clusters -> {
+                List<IntegerPair> rangeSuggestions = new ArrayList<>();
+                OpenBitSet refinedRhs = pli.refines(compressedRecords, lhs, rhs, rangeSuggestions, clusters, refinement);
+                synchronized (suggestions) {
+                    suggestions.addAll(rangeSuggestions);
+                }
+                return refinedRhs;
+            });
+            OpenBitSet actual = rhs.clone();
+            results.forEach(actual::and);
+
+            assertEquals(expected, actual);
+            assertEquals(expectedSuggestions.isEmpty(), suggestions.isEmpty());
+        }
+    }
+
+    private static List<List<String>> generateRecords(int numRecords) {
+        Random random = new Random(23);
+        List<List<String>> records = new ArrayList<>(numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            int a = random.nextInt(10);
+            int c = random.nextInt(1000);
+            records.add(Arrays.asList(
+                    Integer.toString(a),
+                    Integer.toString(a % 3),
+                    Integer.toString(c),
+                    Integer.toString((a + c) % 50),
+                    Integer.toString(random.nextInt(numRecords))));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,11 @@
+package org.mp.naumann.algorithms.fd.tane;
+
+import org.mp.naumann.algorithms.fd.FDAlgorithmTest;
+import org.mp.naumann.algorithms.fd.FunctionalDependencyAlgorithm;
+
+public class ParallelTaneTest extends FDAlgorithmTest {
+    @Override
+    protected FunctionalDependencyAlgorithm getNewInstance() {
+        return new TaneAlgorithm(true);
+    }
+}
@@ -2,7 +2,8 @@
 
 filename = "benchmark.adultfull.csv"
 
-readarray test_versions < ./benchmarks.txt
+# the configurations to run can be passed as a file, e.g. ./benchmarks.deletes.txt
+readarray test_versions < "${1:-./benchmarks.txt}"
 batch_sizes=(1 10 100 1000 10000 100000)
 tests_per_version_and_batch=5
 for configuration in "${test_versions[@]}"; do
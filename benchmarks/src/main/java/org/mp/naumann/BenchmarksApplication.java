@@ -11,6 +11,7 @@ import org.mp.naumann.database.ConnectionException;
 import org.mp.naumann.reporter.FileReporter;
 import org.mp.naumann.reporter.GoogleSheetsReporter;
 import org.mp.naumann.reporter.Reporter;
+import org.mp.naumann.testcases.BootstrapTestCase;
 import org.mp.naumann.testcases.FixedSizeTestCase;
 import org.mp.naumann.testcases.SingleFileTestCase;
 import org.mp.naumann.testcases.TestCase;
@@ -51,9 +52,9 @@ public class BenchmarksApplication {
     private String pgpass = null;
 
     // parameters for the specific modes
-    @Parameter(names = "--mode", description = "either variable, fixed, or singleFile")
+    @Parameter(names = "--mode", description = "either variable, fixed, singleFile, or bootstrap")
     private String mode = "variable";
-    @Parameter(names = "--batchSize", description = "only relevant for fixed or singleFile mode")
+    @Parameter(names = "--batchSize", description = "only relevant for fixed, singleFile, or bootstrap mode")
     private int batchSize = 100;
     @Parameter(names = "--splitLine", description = "only relevant for singleFile mode")
     private int splitLine = 15000;
@@ -61,6 +62,8 @@ public class BenchmarksApplication {
     private String batchDirectory = "";
     @Parameter(names = "--batchSizeRatio", description = "only relevant for fixed or singleFile mode")
     private double batchSizeRatio = NaN;
+    @Parameter(names = "--chunkSize", description = "number of records HyFD starts from, only relevant for bootstrap mode")
+    private int chunkSize = 10000;
 
     // parameters for algorithm configuration
     @Parameter(names = "--hyfdOnly")
@@ -85,6 +88,8 @@ public class BenchmarksApplication {
     private Boolean simplePruning;
     @Parameter(names = "--deletePruning")
     private Boolean deletePruning;
+    @Parameter(names = "--exactDeletePruning", arity = 1)
+    private Boolean exactDeletePruning;
     @Parameter(names = "--betterSampling", arity = 1)
     private Boolean betterSampling;
     @Parameter(names = "--depthFirst", arity = 1)
@@ -131,6 +136,9 @@ public class BenchmarksApplication {
         if (deletePruning != null) {
             config.addPruningStrategy(PruningStrategy.DELETE_ANNOTATIONS);
         }
+        if (exactDeletePruning != null) {
+            config.setExactDeletePruning(exactDeletePruning);
+        }
         if (depthFirst != null) {
             config.setDepthFirst(depthFirst);
         }
@@ -177,6 +185,9 @@ public class BenchmarksApplication {
                 case "singleFile":
                     t = new SingleFileTestCase(parameters, splitLine, batchSize);
                     break;
+                case "bootstrap":
+                    t = new BootstrapTestCase(parameters, chunkSize, batchSize);
+                    break;
                 default:
                     throw new IllegalArgumentException(String.format("Invalid mode parameter: %s", mode));
             }
@@ -0,0 +1,118 @@
+package org.mp.naumann.testcases;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.logging.Level;
+import org.mp.naumann.algorithms.exceptions.AlgorithmExecutionException;
+import org.mp.naumann.algorithms.fd.FDBootstrap;
+import org.mp.naumann.algorithms.fd.FDLogger;
+import org.mp.naumann.algorithms.fd.FunctionalDependency;
+import org.mp.naumann.algorithms.fd.HyFDInitialAlgorithm;
+import org.mp.naumann.database.ConnectionException;
+import org.mp.naumann.database.DataConnector;
+import org.mp.naumann.database.InputReadException;
+import org.mp.naumann.database.Table;
+import org.mp.naumann.database.jdbc.JdbcDataConnector;
+import org.mp.naumann.database.utils.ConnectionManager;
+
+/**
+ * Compares plain HyFD on the whole table with bootstrapping the FDs from a first chunk of the table through
+ * IncrementalFD, in terms of runtime, time to the first result and peak heap usage.
+ */
+public class BootstrapTestCase implements TestCase {
+
+    private final TestCaseParameters parameters;
+    private final int chunkSize;
+    private final int batchSize;
+    private long baselineSize;
+    private long hyfdTime;
+    private long hyfdPeakMemory;
+    private int hyfdFDs;
+    private long firstResultTime = -1;
+    private long bootstrapTime;
+    private long bootstrapPeakMemory;
+    private int bootstrapFDs;
+
+    public BootstrapTestCase(TestCaseParameters parameters, int chunkSize, int batchSize) {
+        this.parameters = parameters;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void execute() throws ConnectionException {
+        try (Connection conn = ConnectionManager.getPostgresConnection(parameters.pgdb, parameters.pguser, parameters.pgpass); DataConnector dc = new JdbcDataConnector(conn)) {
+            Table table = dc.getTable(parameters.schema, parameters.tableName);
+            baselineSize = table.getRowCount();
+
+            resetPeakMemory();
+            long start = System.currentTimeMillis();
+            List<FunctionalDependency> expected = new HyFDInitialAlgorithm(parameters.config, table).execute();
+            hyfdTime = System.currentTimeMillis() - start;
+            hyfdPeakMemory = getPeakMemory();
+            hyfdFDs = expected.size();
+            FDLogger.log(Level.INFO, String.format("HyFD found %s FDs in %sms", hyfdFDs, hyfdTime));
+
+            System.gc();
+            resetPeakMemory();
+            FDBootstrap bootstrap = new FDBootstrap(parameters.config, table, chunkSize, batchSize);
+            long bootstrapStart = System.currentTimeMillis();
+            bootstrap.addResultListener(result -> {
+                if (firstResultTime < 0)
+                    firstResultTime = System.currentTimeMillis() - bootstrapStart;
+            });
+            List<FunctionalDependency> actual = bootstrap.execute();
+            bootstrapTime = System.currentTimeMillis() - bootstrapStart;
+            bootstrapPeakMemory = getPeakMemory();
+            bootstrapFDs = actual.size();
+            FDLogger.log(Level.INFO, String.format("Bootstrap found %s FDs in %sms, first result after %sms", bootstrapFDs, bootstrapTime, firstResultTime));
+
+            if (!new HashSet<>(expected).equals(new HashSet<>(actual)))
+                FDLogger.log(Level.WARNING, "Bootstrap found different FDs than HyFD");
+        } catch (SQLException | InputReadException | AlgorithmExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void resetPeakMemory() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+        }
+    }
+
+    private static long getPeakMemory() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        }
+        return peak / (1024 * 1024);
+    }
+
+    @Override
+    public Object[] sheetValues() {
+        return new Object[]{
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()),
+                parameters.tableName,
+                parameters.config.getVersionName(),
+                baselineSize,
+                chunkSize,
+                batchSize,
+                hyfdTime,
+                hyfdPeakMemory,
+                hyfdFDs,
+                firstResultTime,
+                bootstrapTime,
+                bootstrapPeakMemory,
+                bootstrapFDs
+        };
+    }
+}
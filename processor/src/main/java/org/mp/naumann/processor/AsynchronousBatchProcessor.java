@@ -0,0 +1,255 @@
+package org.mp.naumann.processor;
+
+import org.mp.naumann.processor.batch.Batch;
+import org.mp.naumann.processor.batch.source.BatchSource;
+import org.mp.naumann.processor.handler.BatchHandler;
+import org.mp.naumann.processor.handler.DataAwareBatchHandler;
+import org.mp.naumann.processor.handler.database.DatabaseBatchHandler;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An asynchronous implementation of the {@link BatchProcessor}.
+ * Batches coming from the {@link BatchSource} are put into a bounded queue and handed to the
+ * {@link BatchHandler} BatchHandlers by a dispatcher thread, one batch after another and in the
+ * order they arrived. The {@link DatabaseBatchHandler} runs on a dedicated writer thread, so the
+ * source can go on producing batches while the previous ones are handled and written.
+ * If the database is written first, the handlers of a batch wait for its write. If it is written
+ * last, the handlers of a batch only wait for the write of the previous batch if a
+ * {@link DataAwareBatchHandler} is registered.
+ * <p>
+ * After a handler failed, all further batches are discarded and the failure is rethrown by
+ * {@link #batchArrived(Batch)}, {@link #flush()} and {@link #close()}.
+ */
+public class AsynchronousBatchProcessor extends BatchProcessor implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * What to do with an arriving batch if the queue is full.
+     */
+    public enum Backpressure {
+        /**
+         * Block the source until there is room in the queue.
+         */
+        BLOCK,
+        /**
+         * Throw a {@link RejectedExecutionException} to the source.
+         */
+        REJECT
+    }
+
+    private final ThreadPoolExecutor dispatcher;
+    private final ThreadPoolExecutor writer;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean dataAware = false;
+    private Future<?> lastWrite = null;
+
+    public AsynchronousBatchProcessor(BatchSource batchSource, DatabaseBatchHandler databaseBatchHandler) {
+        this(batchSource, databaseBatchHandler, false);
+    }
+
+    public AsynchronousBatchProcessor(BatchSource batchSource, DatabaseBatchHandler databaseBatchHandler, boolean insertToDatabaseFirst) {
+        this(batchSource, databaseBatchHandler, insertToDatabaseFirst, DEFAULT_CAPACITY, Backpressure.BLOCK);
+    }
+
+    /**
+     * @param capacity     The number of batches that may wait for the handlers, and for the database.
+     * @param backpressure What to do with an arriving batch if {@code capacity} batches are waiting.
+     */
+    public AsynchronousBatchProcessor(BatchSource batchSource, DatabaseBatchHandler databaseBatchHandler,
+                                      boolean insertToDatabaseFirst, int capacity, Backpressure backpressure) {
+        super(batchSource, databaseBatchHandler, insertToDatabaseFirst);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, but was " + capacity);
+        }
+        this.dispatcher = newSingleThreadExecutor(capacity, backpressure);
+        // the writer always blocks, so that a slow database slows down the dispatcher instead of piling up batches
+        this.writer = newSingleThreadExecutor(capacity, Backpressure.BLOCK);
+    }
+
+    private static ThreadPoolExecutor newSingleThreadExecutor(int capacity, Backpressure backpressure) {
+        RejectedExecutionHandler rejectionHandler = backpressure == Backpressure.BLOCK
+                ? AsynchronousBatchProcessor::blockUntilQueued
+                : new ThreadPoolExecutor.AbortPolicy();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacity), rejectionHandler);
+        // idle threads terminate, so a processor that is never closed does not keep the JVM alive
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void blockUntilQueued(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Batch processor has been closed");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+        // the executor may have been shut down while waiting, in which case the task would never run
+        if (executor.isShutdown() && executor.getQueue().remove(task)) {
+            throw new RejectedExecutionException("Batch processor has been closed");
+        }
+        // the worker may have timed out while the queue drained
+        executor.prestartCoreThread();
+    }
+
+    protected Collection<BatchHandler> initializeBatchHandlerCollection() {
+        // handlers may be added by the source thread while the dispatcher iterates over them
+        return new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public void addDataAwareBatchHandler(DataAwareBatchHandler batchHandler) {
+        super.addDataAwareBatchHandler(batchHandler);
+        dataAware = true;
+    }
+
+    /**
+     * Queues the batch for the handlers and the database. Depending on the {@link Backpressure},
+     * this blocks or throws a {@link RejectedExecutionException} if the queue is full.
+     *
+     * @param batch The Batch to process.
+     */
+    @Override
+    public void batchArrived(Batch batch) {
+        rethrowFailure();
+        dispatcher.execute(() -> process(batch));
+    }
+
+    private void process(Batch batch) {
+        if (failure.get() != null) {
+            return;
+        }
+        try {
+            if (isInsertToDatabaseFirst()) {
+                write(batch).get();
+                distributeBatch(batch);
+            } else {
+                if (dataAware) {
+                    awaitLastWrite();
+                }
+                distributeBatch(batch);
+                write(batch);
+            }
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    private Future<?> write(Batch batch) {
+        lastWrite = writer.submit(() -> {
+            try {
+                getDatabaseBatchHandler().handleBatch(batch);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+                throw t;
+            }
+        });
+        return lastWrite;
+    }
+
+    private void awaitLastWrite() throws ExecutionException, InterruptedException {
+        if (lastWrite != null) {
+            lastWrite.get();
+        }
+    }
+
+    /**
+     * Hands the batch to the BatchHandlers in the order they were registered. Called by the
+     * dispatcher thread only, so every handler sees the batches in the order they arrived.
+     *
+     * @param batch The batch to process
+     */
+    protected void distributeBatch(Batch batch) {
+        for (BatchHandler batchHandler : getBatchHandlers()) {
+            batchHandler.handleBatch(batch);
+        }
+    }
+
+    /**
+     * Waits until all batches that arrived so far have been handled and written to the database.
+     * This waits for room in the queue whatever {@link Backpressure} is configured.
+     */
+    public void flush() {
+        FutureTask<Void> marker = new FutureTask<>(() -> {
+            try {
+                awaitLastWrite();
+            } catch (ExecutionException ignored) {
+                // already recorded as failure by the writer
+            }
+            return null;
+        });
+        try {
+            dispatcher.execute(marker);
+        } catch (RejectedExecutionException e) {
+            // the queue is full and the batches are rejected, but a flush waits for them to drain
+            blockUntilQueued(marker, dispatcher);
+        }
+        try {
+            marker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while flushing batches", e);
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Stops accepting batches, drains the queue and waits until all queued batches have been
+     * handled and written to the database.
+     */
+    @Override
+    public void close() {
+        dispatcher.shutdown();
+        awaitTermination(dispatcher);
+        writer.shutdown();
+        awaitTermination(writer);
+        rethrowFailure();
+    }
+
+    private static void awaitTermination(ThreadPoolExecutor executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep draining
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while draining batches", e);
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        if (t != null) {
+            throw new IllegalStateException("Batch processing failed", t);
+        }
+    }
+}
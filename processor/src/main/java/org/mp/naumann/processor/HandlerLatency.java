@@ -0,0 +1,46 @@
+package org.mp.naumann.processor;
+
+import org.mp.naumann.processor.handler.BatchHandler;
+
+/**
+ * The time a {@link BatchHandler} spent handling the batches distributed to it so far.
+ */
+public class HandlerLatency {
+
+    private long batches = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    private long lastNanos = 0;
+
+    synchronized void record(long nanos) {
+        batches++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        lastNanos = nanos;
+    }
+
+    public synchronized long getBatches() {
+        return batches;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized long getLastNanos() {
+        return lastNanos;
+    }
+
+    public synchronized double getAverageNanos() {
+        return batches == 0 ? 0 : (double) totalNanos / batches;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s batches, avg %.2f ms, max %.2f ms", batches, getAverageNanos() / 1e6, maxNanos / 1e6);
+    }
+}
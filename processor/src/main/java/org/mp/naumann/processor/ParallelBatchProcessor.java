@@ -0,0 +1,175 @@
+package org.mp.naumann.processor;
+
+import org.mp.naumann.processor.batch.Batch;
+import org.mp.naumann.processor.batch.source.BatchSource;
+import org.mp.naumann.processor.handler.BatchHandler;
+import org.mp.naumann.processor.handler.database.DatabaseBatchHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A {@link BatchProcessor} that hands each batch to the {@link BatchHandler} BatchHandlers
+ * concurrently and waits for all of them before returning, so the next batch is only distributed
+ * once the current one has been handled everywhere.
+ * Unordered BatchHandlers, which either declare themselves as such (see {@link BatchHandler#isOrdered()})
+ * or were registered with {@link #addBatchHandler(BatchHandler, boolean)}, run on a shared executor, while
+ * the ordered ones run one after another in the order they were registered on the calling thread.
+ * The time each BatchHandler spent is recorded and can be queried with {@link #getLatency(BatchHandler)}.
+ */
+public class ParallelBatchProcessor extends BatchProcessor implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final Map<BatchHandler, HandlerLatency> latencies = new ConcurrentHashMap<>();
+    private final Set<BatchHandler> unorderedHandlers = ConcurrentHashMap.newKeySet();
+
+    public ParallelBatchProcessor(BatchSource batchSource, DatabaseBatchHandler databaseBatchHandler, int numThreads) {
+        this(batchSource, databaseBatchHandler, false, numThreads);
+    }
+
+    public ParallelBatchProcessor(BatchSource batchSource, DatabaseBatchHandler databaseBatchHandler,
+                                  boolean insertToDatabaseFirst, int numThreads) {
+        this(batchSource, databaseBatchHandler, insertToDatabaseFirst, Executors.newFixedThreadPool(numThreads), true);
+    }
+
+    /**
+     * @param executor The executor to run the unordered BatchHandlers on, which is not shut down by
+     *                 {@link #close()}.
+     */
+    public ParallelBatchProcessor(BatchSource batchSource, DatabaseBatchHandler databaseBatchHandler,
+                                  boolean insertToDatabaseFirst, ExecutorService executor) {
+        this(batchSource, databaseBatchHandler, insertToDatabaseFirst, executor, false);
+    }
+
+    private ParallelBatchProcessor(BatchSource batchSource, DatabaseBatchHandler databaseBatchHandler,
+                                   boolean insertToDatabaseFirst, ExecutorService executor, boolean ownsExecutor) {
+        super(batchSource, databaseBatchHandler, insertToDatabaseFirst);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    protected Collection<BatchHandler> initializeBatchHandlerCollection() {
+        return new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Adds a BatchHandler and decides whether it has to be called in the order it was registered,
+     * overriding {@link BatchHandler#isOrdered()}. This lets handlers that were not written for this
+     * processor run concurrently, as long as they do not depend on other handlers.
+     *
+     * @param batchHandler The BatchHandler to add.
+     * @param ordered      Whether the BatchHandler is called in the order it was registered.
+     */
+    public void addBatchHandler(BatchHandler batchHandler, boolean ordered) {
+        if (!ordered) {
+            unorderedHandlers.add(batchHandler);
+        }
+        addBatchHandler(batchHandler);
+    }
+
+    @Override
+    public void removeBatchHandler(BatchHandler batchHandler) {
+        super.removeBatchHandler(batchHandler);
+        unorderedHandlers.remove(batchHandler);
+        latencies.remove(batchHandler);
+    }
+
+    private boolean isOrdered(BatchHandler batchHandler) {
+        return batchHandler.isOrdered() && !unorderedHandlers.contains(batchHandler);
+    }
+
+    /**
+     * Processes the batch with all BatchHandlers and returns once all of them are done. If a
+     * BatchHandler fails, the first failure is rethrown after the others have finished.
+     *
+     * @param batch The batch to process
+     */
+    protected void distributeBatch(Batch batch) {
+        List<BatchHandler> ordered = new ArrayList<>();
+        List<BatchHandler> unordered = new ArrayList<>();
+        for (BatchHandler batchHandler : getBatchHandlers()) {
+            (isOrdered(batchHandler) ? ordered : unordered).add(batchHandler);
+        }
+        // without ordered handlers, the calling thread takes over the last unordered one
+        BatchHandler inline = ordered.isEmpty() && !unordered.isEmpty() ? unordered.remove(unordered.size() - 1) : null;
+
+        List<Future<?>> futures = new ArrayList<>(unordered.size());
+        for (BatchHandler batchHandler : unordered) {
+            futures.add(executor.submit(() -> handle(batchHandler, batch)));
+        }
+        RuntimeException failure = null;
+        try {
+            for (BatchHandler batchHandler : ordered) {
+                handle(batchHandler, batch);
+            }
+            if (inline != null) {
+                handle(inline, batch);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Interrupted while distributing batch", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new IllegalStateException("Batch handler failed", e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void handle(BatchHandler batchHandler, Batch batch) {
+        long start = System.nanoTime();
+        try {
+            batchHandler.handleBatch(batch);
+        } finally {
+            latencies.computeIfAbsent(batchHandler, h -> new HandlerLatency()).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the time the BatchHandler spent handling batches, or null if it has not handled any
+     * batch yet.
+     *
+     * @param batchHandler A registered BatchHandler
+     * @return The latency of the BatchHandler
+     */
+    public HandlerLatency getLatency(BatchHandler batchHandler) {
+        return latencies.get(batchHandler);
+    }
+
+    public Map<BatchHandler, HandlerLatency> getLatencies() {
+        return new HashMap<>(latencies);
+    }
+
+    /**
+     * Shuts down the executor if it was created by this processor.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
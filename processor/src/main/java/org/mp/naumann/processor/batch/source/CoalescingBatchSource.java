@@ -0,0 +1,228 @@
+package org.mp.naumann.processor.batch.source;
+
+import org.mp.naumann.database.statement.DefaultInsertStatement;
+import org.mp.naumann.database.statement.DeleteStatement;
+import org.mp.naumann.database.statement.InsertStatement;
+import org.mp.naumann.database.statement.Statement;
+import org.mp.naumann.database.statement.StatementVisitor;
+import org.mp.naumann.database.statement.UpdateStatement;
+import org.mp.naumann.processor.batch.Batch;
+import org.mp.naumann.processor.batch.ListBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stage between a {@link StreamableBatchSource} and its listeners that merges consecutive batches
+ * of the same table until they hold {@code maxBatchSize} statements or the oldest of them waited
+ * for {@code maxLatencyMillis}, and that drops statements whose effect is undone later on.
+ * Deletes and updates remove every record with the given values, so
+ * <ul>
+ * <li>an insert followed by a delete of the same values is reduced to the delete,</li>
+ * <li>an insert followed by an update of the same values is reduced to the update and an insert
+ * of the new values,</li>
+ * <li>an update that does not change any value is dropped.</li>
+ * </ul>
+ * The remaining statements keep their order, so the listeners end up with the same table as with
+ * the original batches, while the records that are inserted and removed again never reach them.
+ * Whatever is left when the source stops streaming is passed on by {@link #endStreaming()} and
+ * {@link #startStreaming()} respectively, or explicitly by {@link #flush()}.
+ * <p>
+ * With a latency bound, merged statements are passed on by a timer thread once the oldest of them
+ * waited for {@code maxLatencyMillis}, even if no further batch arrives. Listeners are therefore
+ * called from that thread as well, although never concurrently. {@link #close()} stops the timer.
+ */
+public class CoalescingBatchSource extends AbstractBatchSource implements StreamableBatchSource, BatchSourceListener,
+        AutoCloseable {
+
+    private final StreamableBatchSource batchSource;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+
+    private final List<Statement> pending = new ArrayList<>();
+    private final Map<Map<String, String>, List<Integer>> pendingInserts = new HashMap<>();
+    private final StatementCoalescer coalescer = new StatementCoalescer();
+    private String schema;
+    private String tableName;
+    private int pendingSize = 0;
+    private long pendingSince = 0;
+    private long cancelledStatements = 0;
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * @param maxBatchSize     The number of statements from which on the merged batch is passed on.
+     * @param maxLatencyMillis The time after which the merged batch is passed on, or 0 to only
+     *                         pass it on by size.
+     */
+    public CoalescingBatchSource(StreamableBatchSource batchSource, int maxBatchSize, long maxLatencyMillis) {
+        this.batchSource = batchSource;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        batchSource.addBatchSourceListener(this);
+    }
+
+    @Override
+    public synchronized void batchArrived(Batch batch) {
+        if (!pending.isEmpty() && (!Objects.equals(batch.getSchema(), schema)
+                || !Objects.equals(batch.getTableName(), tableName)
+                || pendingSize + batch.getSize() > maxBatchSize)) {
+            flush();
+        }
+        if (pending.isEmpty()) {
+            schema = batch.getSchema();
+            tableName = batch.getTableName();
+            pendingSince = System.nanoTime();
+        }
+        // the statements are taken over into an own list, since sources may reuse the list of a batch
+        for (Statement statement : batch.getStatements()) {
+            statement.accept(coalescer);
+        }
+        long waited = System.nanoTime() - pendingSince;
+        if (pendingSize >= maxBatchSize || (maxLatencyNanos > 0 && waited >= maxLatencyNanos)) {
+            flush();
+        } else if (maxLatencyNanos > 0 && scheduledFlush == null && !pending.isEmpty()) {
+            scheduledFlush = getTimer().schedule(this::flushExpired, maxLatencyNanos - waited, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ScheduledExecutorService getTimer() {
+        if (timer == null) {
+            // a daemon thread, so a source that is never closed does not keep the JVM alive
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "coalescing-batch-source-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return timer;
+    }
+
+    private synchronized void flushExpired() {
+        // a flush in the meantime cancels this one, but it may already have been waiting for the lock,
+        // in which case the statements merged since then are not due yet and have a timer of their own
+        if (!pending.isEmpty() && System.nanoTime() - pendingSince >= maxLatencyNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * Passes on the statements merged so far, unless all of them were cancelled.
+     */
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<Statement> statements = new ArrayList<>(pendingSize);
+        for (Statement statement : pending) {
+            if (statement != null) {
+                statements.add(statement);
+            }
+        }
+        pending.clear();
+        pendingInserts.clear();
+        pendingSize = 0;
+        if (!statements.isEmpty()) {
+            notifyListener(new ListBatch(statements, schema, tableName));
+        }
+    }
+
+    /**
+     * Returns the number of statements that were dropped so far.
+     */
+    public synchronized long getCancelledStatements() {
+        return cancelledStatements;
+    }
+
+    @Override
+    public void startStreaming() {
+        batchSource.startStreaming();
+        if (batchSource.isDoneFilling()) {
+            flush();
+        }
+    }
+
+    @Override
+    public void endStreaming() {
+        batchSource.endStreaming();
+        flush();
+    }
+
+    /**
+     * Passes on the statements merged so far and stops the timer of the latency bound.
+     */
+    @Override
+    public synchronized void close() {
+        flush();
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return batchSource.isStreaming();
+    }
+
+    @Override
+    public boolean isDoneFilling() {
+        return batchSource.isDoneFilling();
+    }
+
+    private void add(Statement statement) {
+        pending.add(statement);
+        pendingSize++;
+    }
+
+    private List<Integer> cancelInserts(Map<String, String> values) {
+        List<Integer> inserts = pendingInserts.remove(values);
+        if (inserts == null) {
+            return new ArrayList<>(0);
+        }
+        for (int index : inserts) {
+            pending.set(index, null);
+        }
+        pendingSize -= inserts.size();
+        cancelledStatements += inserts.size();
+        return inserts;
+    }
+
+    private class StatementCoalescer implements StatementVisitor {
+
+        @Override
+        public void visit(InsertStatement insert) {
+            pendingInserts.computeIfAbsent(insert.getValueMap(), v -> new ArrayList<>()).add(pending.size());
+            add(insert);
+        }
+
+        @Override
+        public void visit(DeleteStatement delete) {
+            cancelInserts(delete.getValueMap());
+            add(delete);
+        }
+
+        @Override
+        public void visit(UpdateStatement update) {
+            if (update.getOldValueMap().equals(update.getNewValueMap())) {
+                cancelledStatements++;
+                return;
+            }
+            int cancelled = cancelInserts(update.getOldValueMap()).size();
+            add(update);
+            for (int i = 0; i < cancelled; i++) {
+                // the update would have turned the cancelled inserts into records with the new values
+                visit(new DefaultInsertStatement(update.getNewValueMap(), update.getSchema(), update.getTableName()));
+                cancelledStatements--;
+            }
+        }
+    }
+}
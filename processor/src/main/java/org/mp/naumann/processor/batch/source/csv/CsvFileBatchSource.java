@@ -41,7 +41,7 @@ public abstract class CsvFileBatchSource extends AbstractBatchSource {
         this.tableName = tableName;
     }
 
-    private CSVParser initializeCsvParser(File file) {
+    CSVParser initializeCsvParser(File file) {
         if ((csvParser == null) || (!file.getAbsolutePath().equals(filename))) {
             try {
                 try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
@@ -1,6 +1,10 @@
 package org.mp.naumann.processor.batch.source.csv;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
 
 public class FixedSizeCsvBatchSource extends SizableCsvBatchSource {
 
@@ -16,8 +20,28 @@ public class FixedSizeCsvBatchSource extends SizableCsvBatchSource {
         this.csvFile = new File(fileName);
     }
 
+    /**
+     * Parses the records one by one while streaming, so that at most one batch of statements is
+     * kept in memory. Skipped records are not parsed, and parsing stops once the source is
+     * exhausted or streaming was ended.
+     */
     protected void start() {
-        parseFile(csvFile);
+        CSVParser csvParser = initializeCsvParser(csvFile);
+        try {
+            Iterator<CSVRecord> records = csvParser.iterator();
+            while (records.hasNext() && isStreaming() && !isExhausted()) {
+                CSVRecord record = records.next();
+                if (!skipNext()) {
+                    addStatement(parseRecord(record));
+                }
+            }
+        } finally {
+            try {
+                csvParser.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
         finishFilling();
     }
 
@@ -6,13 +6,21 @@ import org.mp.naumann.processor.batch.Batch;
 import org.mp.naumann.processor.batch.ListBatch;
 import org.mp.naumann.processor.batch.source.StreamableBatchSource;
 
-
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A CSV batch source that sends out batches of a fixed size as soon as enough statements were
+ * added. Sent statements are released, so only the statements of the next batch are kept in
+ * memory.
+ */
 public abstract class SizableCsvBatchSource extends CsvFileBatchSource implements StreamableBatchSource {
 
     private final int batchSize;
     private boolean streaming = false;
     private boolean doneFilling = false;
     private int currentStatementPosition = 0;
+    private int skipFirst = 0;
     private int stopAfter = -1;
     private int currentBatch = 0;
 
@@ -24,7 +32,7 @@ public abstract class SizableCsvBatchSource extends CsvFileBatchSource implement
     public SizableCsvBatchSource(String schema, String tableName, int batchSize, int stopAfter, int skipFirst) {
         this(schema, tableName, batchSize);
         this.stopAfter = stopAfter;
-        this.currentStatementPosition = skipFirst;
+        this.skipFirst = skipFirst;
     }
 
     public int getBatchSize() {
@@ -60,6 +68,9 @@ public abstract class SizableCsvBatchSource extends CsvFileBatchSource implement
     }
 
     protected void addStatement(Statement stmt) {
+        if (skipNext() || isExhausted()) {
+            return;
+        }
         this.statementList.add(stmt);
         if (streaming)
             weakStream();
@@ -88,34 +99,57 @@ public abstract class SizableCsvBatchSource extends CsvFileBatchSource implement
     protected void forceStream() {
         // Streams all there is left if it is fewer than the specified size
         if (hasSomethingToStream()) {
-            int size = hasEnoughToStream() ? batchSize : statementList.size() - currentStatementPosition;
+            int size = hasEnoughToStream() ? batchSize : statementList.size();
             stream(size);
             forceStream();
         }
     }
 
     private synchronized void stream(int size) {
-        if (stopAfter < 0 || currentBatch < stopAfter) {
-            Batch batchToSend = new ListBatch(
-                    statementList.subList(currentStatementPosition, currentStatementPosition + size),
-                    this.schema,
-                    this.tableName
-            );
+        if (!isExhausted()) {
+            // copy the statements, so that they are released from the statement list
+            List<Statement> statements = new ArrayList<>(statementList.subList(0, size));
+            statementList.subList(0, size).clear();
+            Batch batchToSend = new ListBatch(statements, this.schema, this.tableName);
             currentStatementPosition += size;
             notifyListener(batchToSend);
             currentBatch++;
         } else {
             streaming = false;
+            statementList.clear();
+        }
+    }
+
+    /**
+     * Decides whether the next statement is one of the first statements that should be skipped,
+     * so that subclasses can skip records without parsing them.
+     *
+     * @return true if the next statement should be skipped
+     */
+    protected boolean skipNext() {
+        if (skipFirst > 0) {
+            skipFirst--;
+            currentStatementPosition++;
+            return true;
         }
+        return false;
+    }
 
+    /**
+     * Whether the source already sent out as many batches as it should.
+     *
+     * @return true if no more batches will be sent
+     */
+    protected boolean isExhausted() {
+        return stopAfter >= 0 && currentBatch >= stopAfter;
     }
 
     protected boolean hasEnoughToStream() {
-        return statementList.size() - currentStatementPosition >= batchSize;
+        return statementList.size() >= batchSize;
     }
 
     protected boolean hasSomethingToStream() {
-        return statementList.size() > currentStatementPosition;
+        return !statementList.isEmpty();
     }
 
     protected int getCurrentStatementPosition() {
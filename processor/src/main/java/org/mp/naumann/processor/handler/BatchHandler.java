@@ -5,4 +5,15 @@ import org.mp.naumann.processor.batch.Batch;
 public interface BatchHandler {
 
     void handleBatch(Batch batch);
+
+    /**
+     * Denotes whether this BatchHandler has to be called in the order it was registered, relative to
+     * the other ordered BatchHandlers. Unordered BatchHandlers do not depend on other handlers and may
+     * be called concurrently with them.
+     *
+     * @return true, unless overridden by an independent BatchHandler
+     */
+    default boolean isOrdered() {
+        return true;
+    }
 }
@@ -0,0 +1,151 @@
+package org.mp.naumann.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.mp.naumann.processor.AsynchronousBatchProcessor.Backpressure;
+import org.mp.naumann.processor.batch.Batch;
+import org.mp.naumann.processor.batch.source.BatchSource;
+import org.mp.naumann.processor.handler.BatchHandler;
+import org.mp.naumann.processor.handler.database.DatabaseBatchHandler;
+
+public class AsynchronousBatchProcessorTest {
+
+    private static final int NUM_BATCHES = 200;
+
+    private final BatchSource batchSource = mock(BatchSource.class);
+    private final DatabaseBatchHandler databaseBatchHandler = mock(DatabaseBatchHandler.class);
+
+    @Test
+    public void testOrderPerHandler() {
+        List<Batch> written = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> written.add((Batch) invocation.getArguments()[0]))
+                .when(databaseBatchHandler).handleBatch(any(Batch.class));
+        List<Batch> handled1 = new ArrayList<>();
+        List<Batch> handled2 = new ArrayList<>();
+        List<Batch> batches = new ArrayList<>();
+        try (AsynchronousBatchProcessor batchProcessor = new AsynchronousBatchProcessor(batchSource,
+                databaseBatchHandler, false, 4, Backpressure.BLOCK)) {
+            batchProcessor.addBatchHandler(handled1::add);
+            batchProcessor.addBatchHandler(handled2::add);
+            for (int i = 0; i < NUM_BATCHES; i++) {
+                Batch batch = mock(Batch.class);
+                batches.add(batch);
+                batchProcessor.batchArrived(batch);
+            }
+        }
+        assertEquals(batches, handled1);
+        assertEquals(batches, handled2);
+        assertEquals(batches, written);
+    }
+
+    @Test
+    public void testDatabaseFirst() {
+        List<Batch> written = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> written.add((Batch) invocation.getArguments()[0]))
+                .when(databaseBatchHandler).handleBatch(any(Batch.class));
+        List<Boolean> writtenBefore = new ArrayList<>();
+        try (AsynchronousBatchProcessor batchProcessor = new AsynchronousBatchProcessor(batchSource,
+                databaseBatchHandler, true)) {
+            batchProcessor.addBatchHandler(batch -> writtenBefore.add(written.contains(batch)));
+            for (int i = 0; i < NUM_BATCHES; i++) {
+                batchProcessor.batchArrived(mock(Batch.class));
+            }
+            batchProcessor.flush();
+            assertEquals(NUM_BATCHES, writtenBefore.size());
+            assertTrue(writtenBefore.stream().allMatch(b -> b));
+        }
+    }
+
+    @Test
+    public void testFailureIsRethrown() {
+        RuntimeException exception = new RuntimeException();
+        BatchHandler batchHandler = mock(BatchHandler.class);
+        doThrow(exception).when(batchHandler).handleBatch(any(Batch.class));
+        AsynchronousBatchProcessor batchProcessor = new AsynchronousBatchProcessor(batchSource, databaseBatchHandler);
+        batchProcessor.addBatchHandler(batchHandler);
+        batchProcessor.batchArrived(mock(Batch.class));
+        try {
+            batchProcessor.close();
+            fail();
+        } catch (RuntimeException e) {
+            assertSame(exception, e);
+        }
+    }
+
+    @Test
+    public void testReject() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (AsynchronousBatchProcessor batchProcessor = new AsynchronousBatchProcessor(batchSource,
+                databaseBatchHandler, false, 1, Backpressure.REJECT)) {
+            batchProcessor.addBatchHandler(batch -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            // the first batch blocks the dispatcher, the second one fills the queue
+            batchProcessor.batchArrived(mock(Batch.class));
+            started.await();
+            batchProcessor.batchArrived(mock(Batch.class));
+            try {
+                batchProcessor.batchArrived(mock(Batch.class));
+                fail();
+            } catch (RejectedExecutionException e) {
+                // expected
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    @Test
+    public void testFlushWaitsForFullQueue() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Batch> handled = Collections.synchronizedList(new ArrayList<>());
+        try (AsynchronousBatchProcessor batchProcessor = new AsynchronousBatchProcessor(batchSource,
+                databaseBatchHandler, false, 1, Backpressure.REJECT)) {
+            batchProcessor.addBatchHandler(batch -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                handled.add(batch);
+            });
+            batchProcessor.batchArrived(mock(Batch.class));
+            started.await();
+            batchProcessor.batchArrived(mock(Batch.class));
+            // the queue is full, so the flush has to wait for it instead of being rejected
+            Thread releaser = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {
+                    // release anyway
+                }
+                release.countDown();
+            });
+            releaser.start();
+            batchProcessor.flush();
+            assertEquals(2, handled.size());
+            releaser.join();
+        }
+    }
+}
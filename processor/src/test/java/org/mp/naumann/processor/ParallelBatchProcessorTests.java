@@ -0,0 +1,122 @@
+package org.mp.naumann.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.mp.naumann.processor.batch.Batch;
+import org.mp.naumann.processor.handler.BatchHandler;
+import org.mp.naumann.processor.helper.OccurenceCountingBatchHandler;
+
+public class ParallelBatchProcessorTests extends BatchProcessorTests {
+
+    public ParallelBatchProcessorTests() {
+        batchProcessor = new ParallelBatchProcessor(batchSource, databaseBatchHandler, 4);
+    }
+
+    @After
+    public void tearDown() {
+        ((ParallelBatchProcessor) batchProcessor).close();
+    }
+
+    @Test
+    public void testOrderedHandlersInSequence() {
+        OccurenceCountingBatchHandler.reset();
+        for (int i = 0; i < numberOfDistributedBatchHandlers; i++) {
+            batchProcessor.addBatchHandler(new OccurenceCountingBatchHandler(i));
+        }
+        batchProcessor.batchArrived(mock(Batch.class));
+    }
+
+    @Test
+    public void testUnorderedHandlersConcurrently() {
+        // each handler waits for the other one, which only terminates if both run at the same time
+        CountDownLatch latch = new CountDownLatch(2);
+        BatchHandler first = new LatchBatchHandler(latch);
+        BatchHandler second = new LatchBatchHandler(latch);
+        batchProcessor.addBatchHandler(first);
+        batchProcessor.addBatchHandler(second);
+        batchProcessor.batchArrived(mock(Batch.class));
+        assertEquals(0, latch.getCount());
+    }
+
+    @Test
+    public void testHandlersRegisteredAsUnorderedConcurrently() {
+        // plain handlers are ordered by default, unless they are registered as unordered
+        CountDownLatch latch = new CountDownLatch(2);
+        ParallelBatchProcessor parallelBatchProcessor = (ParallelBatchProcessor) batchProcessor;
+        parallelBatchProcessor.addBatchHandler(batch -> awaitOther(latch), false);
+        parallelBatchProcessor.addBatchHandler(batch -> awaitOther(latch), false);
+        parallelBatchProcessor.batchArrived(mock(Batch.class));
+        assertEquals(0, latch.getCount());
+    }
+
+    @Test
+    public void testLatency() {
+        ParallelBatchProcessor parallelBatchProcessor = (ParallelBatchProcessor) batchProcessor;
+        BatchHandler unordered = new LatchBatchHandler(new CountDownLatch(0));
+        parallelBatchProcessor.addBatchHandler(unordered);
+        assertNull(parallelBatchProcessor.getLatency(unordered));
+        for (int i = 0; i < 3; i++) {
+            parallelBatchProcessor.batchArrived(mock(Batch.class));
+        }
+        HandlerLatency latency = parallelBatchProcessor.getLatency(unordered);
+        assertNotNull(latency);
+        assertEquals(3, latency.getBatches());
+        assertTrue(latency.getMaxNanos() <= latency.getTotalNanos());
+        assertEquals(3, parallelBatchProcessor.getLatency(batchHandler).getBatches());
+    }
+
+    @Test
+    public void testUnorderedFailureIsRethrown() {
+        RuntimeException exception = new RuntimeException();
+        batchProcessor.addBatchHandler(new LatchBatchHandler(new CountDownLatch(0)) {
+            @Override
+            public void handleBatch(Batch batch) {
+                throw exception;
+            }
+        });
+        try {
+            batchProcessor.batchArrived(mock(Batch.class));
+            fail();
+        } catch (RuntimeException e) {
+            assertSame(exception, e);
+        }
+    }
+
+    private static void awaitOther(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class LatchBatchHandler implements BatchHandler {
+
+        private final CountDownLatch latch;
+
+        LatchBatchHandler(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void handleBatch(Batch batch) {
+            awaitOther(latch);
+        }
+
+        @Override
+        public boolean isOrdered() {
+            return false;
+        }
+    }
+}
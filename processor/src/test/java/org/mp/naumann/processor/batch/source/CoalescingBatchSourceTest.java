@@ -0,0 +1,213 @@
+package org.mp.naumann.processor.batch.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.mp.naumann.database.statement.DefaultDeleteStatement;
+import org.mp.naumann.database.statement.DefaultInsertStatement;
+import org.mp.naumann.database.statement.DefaultUpdateStatement;
+import org.mp.naumann.database.statement.DeleteStatement;
+import org.mp.naumann.database.statement.InsertStatement;
+import org.mp.naumann.database.statement.Statement;
+import org.mp.naumann.database.statement.StatementVisitor;
+import org.mp.naumann.database.statement.UpdateStatement;
+import org.mp.naumann.processor.batch.Batch;
+import org.mp.naumann.processor.batch.ListBatch;
+
+public class CoalescingBatchSourceTest {
+
+    private static final String SCHEMA = "";
+    private static final String TABLE_NAME = "demotable";
+
+    @Test
+    public void testCoalesceBySize() {
+        List<Batch> batches = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batches.add(batch(insert(i), insert(i + 100)));
+        }
+        List<Batch> coalesced = stream(batches, 5);
+        assertEquals(5, coalesced.size());
+        for (Batch batch : coalesced) {
+            assertTrue(batch.getSize() <= 5);
+        }
+    }
+
+    @Test
+    public void testCancelInsertAndDelete() {
+        TestBatchSource batchSource = new TestBatchSource(Collections.singletonList(
+                batch(insert(1), insert(2), delete(1), update(2, 3), update(4, 4))));
+        CoalescingBatchSource coalescingBatchSource = new CoalescingBatchSource(batchSource, 100, 0);
+        List<Batch> coalesced = new ArrayList<>();
+        coalescingBatchSource.addBatchSourceListener(coalesced::add);
+        coalescingBatchSource.startStreaming();
+
+        assertEquals(1, coalesced.size());
+        assertEquals(Collections.singletonList(delete(1).getValueMap()),
+                valueMaps(coalesced.get(0).getDeleteStatements()));
+        assertEquals(Collections.singletonList(values(3)),
+                valueMaps(coalesced.get(0).getInsertStatements()));
+        assertEquals(1, coalesced.get(0).getUpdateStatements().size());
+        assertEquals(2, coalescingBatchSource.getCancelledStatements());
+    }
+
+    @Test
+    public void testLatencyWithoutFurtherBatches() throws InterruptedException {
+        TestBatchSource batchSource = new TestBatchSource(Collections.singletonList(batch(insert(1), insert(2))));
+        List<Batch> coalesced = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch passedOn = new CountDownLatch(1);
+        try (CoalescingBatchSource coalescingBatchSource = new CoalescingBatchSource(batchSource, 100, 50)) {
+            coalescingBatchSource.addBatchSourceListener(batch -> {
+                coalesced.add(batch);
+                passedOn.countDown();
+            });
+            // the source keeps streaming, so only the latency bound passes the batch on
+            batchSource.stream();
+            assertTrue(coalesced.isEmpty());
+            assertTrue(passedOn.await(10, TimeUnit.SECONDS));
+            assertEquals(1, coalesced.size());
+            assertEquals(2, coalesced.get(0).getSize());
+        }
+    }
+
+    @Test
+    public void testSameTable() {
+        Random random = new Random(42);
+        for (int run = 0; run < 50; run++) {
+            List<Batch> batches = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                List<Statement> statements = new ArrayList<>();
+                for (int j = 0; j < 1 + random.nextInt(5); j++) {
+                    int value = random.nextInt(4);
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            statements.add(insert(value));
+                            break;
+                        case 1:
+                            statements.add(delete(value));
+                            break;
+                        default:
+                            statements.add(update(value, random.nextInt(4)));
+                    }
+                }
+                batches.add(new ListBatch(statements, SCHEMA, TABLE_NAME));
+            }
+            assertEquals(apply(batches), apply(stream(batches, 1 + random.nextInt(30))));
+        }
+    }
+
+    private static List<Batch> stream(List<Batch> batches, int maxBatchSize) {
+        CoalescingBatchSource coalescingBatchSource = new CoalescingBatchSource(new TestBatchSource(batches),
+                maxBatchSize, 0);
+        List<Batch> coalesced = new ArrayList<>();
+        coalescingBatchSource.addBatchSourceListener(coalesced::add);
+        coalescingBatchSource.startStreaming();
+        return coalesced;
+    }
+
+    /**
+     * Applies the batches to a table that is represented by the number of records per values.
+     */
+    private static Map<Map<String, String>, Integer> apply(List<Batch> batches) {
+        Map<Map<String, String>, Integer> table = new HashMap<>();
+        StatementVisitor applier = new StatementVisitor() {
+            @Override
+            public void visit(DeleteStatement delete) {
+                table.remove(delete.getValueMap());
+            }
+
+            @Override
+            public void visit(UpdateStatement update) {
+                Integer count = table.remove(update.getOldValueMap());
+                if (count != null) {
+                    table.merge(update.getNewValueMap(), count, Integer::sum);
+                }
+            }
+
+            @Override
+            public void visit(InsertStatement insert) {
+                table.merge(insert.getValueMap(), 1, Integer::sum);
+            }
+        };
+        batches.forEach(batch -> batch.forEach(statement -> statement.accept(applier)));
+        return table;
+    }
+
+    private static List<Map<String, String>> valueMaps(List<? extends Statement> statements) {
+        List<Map<String, String>> valueMaps = new ArrayList<>();
+        for (Statement statement : statements) {
+            valueMaps.add(statement instanceof InsertStatement ? ((InsertStatement) statement).getValueMap()
+                    : ((DeleteStatement) statement).getValueMap());
+        }
+        return valueMaps;
+    }
+
+    private static Batch batch(Statement... statements) {
+        List<Statement> list = new ArrayList<>();
+        Collections.addAll(list, statements);
+        return new ListBatch(list, SCHEMA, TABLE_NAME);
+    }
+
+    private static Map<String, String> values(int value) {
+        Map<String, String> values = new HashMap<>();
+        values.put("a", Integer.toString(value));
+        values.put("b", Integer.toString(value % 2));
+        return values;
+    }
+
+    private static InsertStatement insert(int value) {
+        return new DefaultInsertStatement(values(value), SCHEMA, TABLE_NAME);
+    }
+
+    private static DeleteStatement delete(int value) {
+        return new DefaultDeleteStatement(values(value), SCHEMA, TABLE_NAME);
+    }
+
+    private static UpdateStatement update(int oldValue, int newValue) {
+        return new DefaultUpdateStatement(values(newValue), values(oldValue), SCHEMA, TABLE_NAME);
+    }
+
+    private static class TestBatchSource extends AbstractBatchSource implements StreamableBatchSource {
+
+        private final List<Batch> batches;
+        private boolean streaming = false;
+
+        TestBatchSource(List<Batch> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void startStreaming() {
+            stream();
+            streaming = false;
+        }
+
+        void stream() {
+            streaming = true;
+            batches.forEach(this::notifyListener);
+        }
+
+        @Override
+        public void endStreaming() {
+            streaming = false;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return streaming;
+        }
+
+        @Override
+        public boolean isDoneFilling() {
+            return true;
+        }
+    }
+}
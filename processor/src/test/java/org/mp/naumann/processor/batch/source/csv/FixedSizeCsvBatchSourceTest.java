@@ -0,0 +1,62 @@
+package org.mp.naumann.processor.batch.source.csv;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mp.naumann.database.statement.InsertStatement;
+import org.mp.naumann.processor.batch.Batch;
+
+public class FixedSizeCsvBatchSourceTest {
+
+    private static final int NUM_RECORDS = 23;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStreamAll() throws IOException {
+        List<Batch> batches = stream(5, -1, 0);
+        assertEquals(5, batches.size());
+        assertEquals(3, batches.get(4).getSize());
+        assertEquals("0", firstValue(batches.get(0)));
+        assertEquals("20", firstValue(batches.get(4)));
+    }
+
+    @Test
+    public void testSkipFirstAndStopAfter() throws IOException {
+        List<Batch> batches = stream(5, 2, 7);
+        assertEquals(2, batches.size());
+        assertEquals("7", firstValue(batches.get(0)));
+        assertEquals("12", firstValue(batches.get(1)));
+        for (Batch batch : batches) {
+            assertEquals(5, batch.getSize());
+        }
+    }
+
+    private List<Batch> stream(int batchSize, int stopAfter, int skipFirst) throws IOException {
+        File file = folder.newFile("inserts.csv");
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("::action,a,b");
+            for (int i = 0; i < NUM_RECORDS; i++) {
+                writer.println("insert," + i + "," + (i % 3));
+            }
+        }
+        FixedSizeCsvBatchSource batchSource = new FixedSizeCsvBatchSource(file.getAbsolutePath(), "", "table",
+                batchSize, stopAfter, skipFirst);
+        List<Batch> batches = new ArrayList<>();
+        batchSource.addBatchSourceListener(batches::add);
+        batchSource.startStreaming();
+        return batches;
+    }
+
+    private static String firstValue(Batch batch) {
+        return ((InsertStatement) batch.getStatements().get(0)).getValueMap().get("a");
+    }
+}